@@ -0,0 +1,101 @@
+package io.github.martinwitt.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * The fixed input of the benchmarks. Every corpus is a set of checked-in folders of this repository, so results of
+ * different runs stay comparable as long as these folders are unchanged.
+ */
+public enum Corpus {
+    /**
+     * The test resources of the refactorings, small real-world files with known bad smells.
+     */
+    TEST_RESOURCES("code-transformation/src/test/resources/projects"),
+    /**
+     * The sources of the matcher and spoon-analyzer modules, a small real-world project.
+     */
+    SPOON_ANALYZER("matcher/src/main/java", "spoon-analyzer/src/main/java"),
+    /**
+     * The sources of the code-transformation module, a medium-sized real-world project.
+     */
+    CODE_TRANSFORMATION("code-transformation/src/main/java");
+
+    private static final String ROOT_PROPERTY = "benchmarks.corpus.root";
+
+    private final List<String> folders;
+
+    Corpus(String... folders) {
+        this.folders = List.of(folders);
+    }
+
+    /**
+     * Copies all java files of this corpus into the source folder of a new project. The project can be analyzed like
+     * a mined project.
+     * @param projectRoot  the root folder of the new project
+     * @return  the root folder of the new project
+     */
+    public Path createProject(Path projectRoot) {
+        Path repositoryRoot = Path.of(System.getProperty(ROOT_PROPERTY, ".."));
+        try {
+            Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+            for (String folder : folders) {
+                Path source = repositoryRoot.resolve(folder);
+                for (Path file : findJavaFiles(source)) {
+                    Path target = sourceFolder.resolve(
+                            source.relativize(file).toString().replace("src/main/java/", ""));
+                    Files.createDirectories(target.getParent());
+                    Files.copy(file, target);
+                }
+            }
+            return projectRoot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds the model of a project created by {@link #createProject(Path)} with the settings of the spoon analyzer.
+     * @param projectRoot  the root folder of the project
+     * @return  all types of the project
+     */
+    public static List<CtType<?>> buildModel(Path projectRoot) {
+        Launcher launcher = new Launcher();
+        launcher.addInputResource(projectRoot.resolve("src/main/java").toString());
+        launcher.getEnvironment().setAutoImports(true);
+        launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(17);
+        launcher.getEnvironment().setIgnoreSyntaxErrors(true);
+        launcher.getEnvironment().setLevel("ERROR");
+        return new ArrayList<>(launcher.buildModel().getAllTypes());
+    }
+
+    /**
+     * Deletes a project created by {@link #createProject(Path)}.
+     * @param projectRoot  the root folder of the project
+     */
+    public static void deleteProject(Path projectRoot) {
+        try (Stream<Path> files = Files.walk(projectRoot)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> findJavaFiles(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            return files.filter(v -> v.toString().endsWith(".java")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.martinwitt.benchmarks;
+
+import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.SpoonAnalyzer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * Measures a single analyzer on all types of a prebuilt model. The model is built once per trial, so only the cost
+ * of the rule itself is measured. Add the rule id of a new analyzer to {@link #rule} to see its cost.
+ */
+@State(Scope.Benchmark)
+public class LocalAnalyzerBenchmark {
+
+    @Param
+    private Corpus corpus;
+
+    @Param({
+        "AccessStaticViaInstance",
+        "ArrayCanBeReplacedWithEnumValues",
+        "CharsetObjectCanBeUsed",
+        "FinalStaticMethod",
+        "IndexOfReplaceableByContains",
+        "NonProtectedConstructorInAbstractClass",
+        "PrivateFinalMethod",
+        "SizeReplaceableByIsEmpty",
+        "UnnecessaryImplements",
+        "UnnecessaryTostring"
+    })
+    private String rule;
+
+    private List<CtType<?>> types;
+    private LocalAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void buildModel() throws IOException {
+        Path projectRoot = corpus.createProject(Files.createTempDirectory("benchmark"));
+        try {
+            types = Corpus.buildModel(projectRoot);
+        } finally {
+            Corpus.deleteProject(projectRoot);
+        }
+        analyzer = new SpoonAnalyzer()
+                .getLocalAnalyzers().stream()
+                        .filter(v -> v.getRuleId().equals(rule))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown rule " + rule));
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        for (CtType<?> type : types) {
+            blackhole.consume(analyzer.analyze(type));
+        }
+    }
+}
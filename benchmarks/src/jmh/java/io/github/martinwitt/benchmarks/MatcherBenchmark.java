@@ -0,0 +1,118 @@
+package io.github.martinwitt.benchmarks;
+
+import io.github.martinwitt.laughing_train.spoonutils.CallMatcherTable;
+import io.github.martinwitt.laughing_train.spoonutils.ConstructorMatcher;
+import io.github.martinwitt.laughing_train.spoonutils.InvocationMatcher;
+import io.github.martinwitt.laughing_train.spoonutils.matcher.Matcher;
+import io.github.martinwitt.laughing_train.spoonutils.matcher.Matchers;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtModifiable;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtTypedElement;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+/**
+ * Compares the compiled matchers with checking every matcher one by one. The call benchmarks match all calls of the
+ * model against the matchers of the CharsetObjectCanBeUsed rule, the conjunction benchmarks match all methods against
+ * a type check and two modifier checks written in the expensive-first order.
+ */
+@State(Scope.Benchmark)
+public class MatcherBenchmark {
+
+    private static final List<InvocationMatcher> INVOCATION_MATCHERS = List.of(
+            new InvocationMatcher("java.lang.String", "getBytes", "java.lang.String"),
+            new InvocationMatcher("java.io.ByteArrayOutputStream", "toString", "java.lang.String"),
+            new InvocationMatcher("java.net.URLDecoder", "decode", "java.lang.String", "java.lang.String"),
+            new InvocationMatcher("java.net.URLEncoder", "encode", "java.lang.String", "java.lang.String"));
+    private static final List<ConstructorMatcher> CONSTRUCTOR_MATCHERS = List.of(
+            new ConstructorMatcher("java.lang.String", "byte[]", "int", "int", "java.lang.String"),
+            new ConstructorMatcher("java.lang.String", "byte[]", "java.lang.String"),
+            new ConstructorMatcher("java.util.Scanner", "java.io.InputStream", "java.lang.String"),
+            new ConstructorMatcher("java.util.Scanner", "java.io.File", "java.lang.String"),
+            new ConstructorMatcher("java.io.PrintStream", "java.io.OutputStream", "boolean", "java.lang.String"),
+            new ConstructorMatcher("java.io.PrintWriter", "java.io.OutputStream", "boolean", "java.lang.String"));
+
+    @Param
+    private Corpus corpus;
+
+    private List<CtAbstractInvocation<?>> calls;
+    private List<CtMethod<?>> methods;
+    private CallMatcherTable callMatcherTable;
+    private Matcher<CtMethod<?>> lambdaConjunction;
+    private Matcher<CtMethod<?>> compiledConjunction;
+
+    @Setup(Level.Trial)
+    public void buildModel() throws IOException {
+        Path projectRoot = corpus.createProject(Files.createTempDirectory("benchmark"));
+        List<CtType<?>> types;
+        try {
+            types = Corpus.buildModel(projectRoot);
+        } finally {
+            Corpus.deleteProject(projectRoot);
+        }
+        calls = new ArrayList<>();
+        methods = new ArrayList<>();
+        for (CtType<?> type : types) {
+            calls.addAll(type.getElements(new TypeFilter<>(CtAbstractInvocation.class)));
+            methods.addAll(type.getElements(new TypeFilter<>(CtMethod.class)));
+        }
+        callMatcherTable = new CallMatcherTable(INVOCATION_MATCHERS, CONSTRUCTOR_MATCHERS);
+        Matcher<CtTypedElement<?>> returnsCollection =
+                Matchers.isSubtypeOf("java.util.Collection", types.get(0).getFactory());
+        Matcher<CtModifiable> isPrivate = Matchers.isPrivate();
+        Matcher<CtModifiable> isStatic = Matchers.isStatic();
+        lambdaConjunction = v -> returnsCollection.matches(v) && isPrivate.matches(v) && isStatic.matches(v);
+        compiledConjunction = Matchers.allOf(returnsCollection, isPrivate, isStatic);
+    }
+
+    @Benchmark
+    public void matchCallsOneByOne(Blackhole blackhole) {
+        for (CtAbstractInvocation<?> call : calls) {
+            if (call instanceof CtInvocation<?> invocation) {
+                for (InvocationMatcher matcher : INVOCATION_MATCHERS) {
+                    blackhole.consume(matcher.matches(invocation));
+                }
+            } else if (call instanceof CtConstructorCall<?> constructorCall) {
+                for (ConstructorMatcher matcher : CONSTRUCTOR_MATCHERS) {
+                    blackhole.consume(matcher.matches(constructorCall));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void matchCallsWithTable(Blackhole blackhole) {
+        for (CtAbstractInvocation<?> call : calls) {
+            blackhole.consume(callMatcherTable.countMatches(call));
+        }
+    }
+
+    @Benchmark
+    public void matchMethodsWithLambdas(Blackhole blackhole) {
+        for (CtMethod<?> method : methods) {
+            blackhole.consume(lambdaConjunction.matches(method));
+        }
+    }
+
+    @Benchmark
+    public void matchMethodsCompiled(Blackhole blackhole) {
+        for (CtMethod<?> method : methods) {
+            blackhole.consume(compiledConjunction.matches(method));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.martinwitt.benchmarks;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import io.github.martinwitt.laughing_train.domain.value.Position;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaAnalyzerResult;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaRefactor;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaRules;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+
+/**
+ * Measures how a {@link QodanaRefactor} dispatches many findings to the types of a prebuilt model, like the refactor
+ * service does after a qodana run. The findings are spread over all files and match no element, so the model stays
+ * unchanged and only the dispatch and the position checks of the refactorings are measured.
+ */
+@State(Scope.Benchmark)
+public class QodanaRefactorBenchmark {
+
+    private static final List<QodanaRules> RULES = List.of(
+            QodanaRules.SIZE_REPLACEABLE_BY_IS_EMPTY,
+            QodanaRules.UNNECESSARY_LOCAL_VARIABLE,
+            QodanaRules.UNNECESSARY_RETURN,
+            QodanaRules.UNNECESSARY_TO_STRING_CALL,
+            QodanaRules.NON_STRICT_COMPARISON_CAN_BE_EQUALITY);
+
+    @Param({"CODE_TRANSFORMATION"})
+    private Corpus corpus;
+
+    @Param({"5000"})
+    private int findings;
+
+    private List<CtType<?>> types;
+    private List<AnalyzerResult> results;
+
+    @Setup(Level.Trial)
+    public void buildModel() throws IOException {
+        Path projectRoot = corpus.createProject(Files.createTempDirectory("benchmark"));
+        List<CtType<?>> topLevelTypes;
+        try {
+            topLevelTypes = Corpus.buildModel(projectRoot);
+        } finally {
+            Corpus.deleteProject(projectRoot);
+        }
+        types = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        for (CtType<?> type : topLevelTypes) {
+            types.addAll(type.getElements(new TypeFilter<>(CtType.class)));
+            Path file = type.getPosition().getCompilationUnit().getFile().toPath();
+            files.add(projectRoot.relativize(file).toString());
+        }
+        results = new ArrayList<>();
+        for (int i = 0; i < findings; i++) {
+            QodanaRules rule = RULES.get(i % RULES.size());
+            results.add(new QodanaAnalyzerResult(
+                    rule.getRuleId(),
+                    files.get(i % files.size()),
+                    new Position(100_000 + i, 100_000 + i, 1, 2, 0, 1),
+                    "message",
+                    "markdown",
+                    "snippet"));
+        }
+    }
+
+    @Benchmark
+    public ChangeListener refactor() {
+        ChangeListener listener = new ChangeListener();
+        QodanaRefactor refactor = new QodanaRefactor(EnumSet.copyOf(RULES), listener, results);
+        for (CtType<?> type : types) {
+            CtCompilationUnit unit = type.getPosition().getCompilationUnit();
+            if (unit == null || refactor.isApplicable(unit)) {
+                refactor.process(type);
+            }
+        }
+        return listener;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.martinwitt.benchmarks;
+
+import io.github.martinwitt.spoon_analyzer.BadSmell;
+import io.github.martinwitt.spoon_analyzer.SpoonAnalyzer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a complete analysis of a project like the miner runs it, from building the model to the found bad smells.
+ */
+@State(Scope.Benchmark)
+public class SpoonAnalyzerBenchmark {
+
+    @Param
+    private Corpus corpus;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private Path projectRoot;
+    private SpoonAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void createProject() throws IOException {
+        projectRoot = corpus.createProject(Files.createTempDirectory("benchmark"));
+        analyzer = new SpoonAnalyzer(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProject() {
+        Corpus.deleteProject(projectRoot);
+    }
+
+    @Benchmark
+    public List<BadSmell> analyze() {
+        return analyzer.analyze(projectRoot.toString());
+    }
+}
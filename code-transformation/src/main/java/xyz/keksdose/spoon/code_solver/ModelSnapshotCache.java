@@ -0,0 +1,204 @@
+package xyz.keksdose.spoon.code_solver;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import spoon.reflect.cu.CompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import xyz.keksdose.spoon.code_solver.util.LruFileStore;
+
+/**
+ * A persistent cache for built Spoon models. A snapshot is keyed by the project url and the commit, see
+ * {@link #createKey(String, String)}, so every checkout of the same commit can reuse the model instead of parsing the
+ * project again.
+ * <p>
+ * A snapshot is the compressed serialized factory of the model together with the root folder it was built from. On
+ * load, the files of all compilation units are moved to the new root folder, so the model can be printed into another
+ * checkout of the same commit.
+ * <p>
+ * The snapshots are kept in a {@link LruFileStore}, bounded by the total size of their files. A snapshot is streamed
+ * into its file, so it is never held in memory as a whole.
+ * <p>
+ * Snapshots of different keys are read and written concurrently. Only the snapshots of one key, and of the few keys
+ * sharing its lock, wait for each other.
+ * <p>
+ * The cache is used for the models of the refactoring, which are built from a source folder with the options of the
+ * transformations. The analysis of a mined commit doesn't use it: it builds its model in batches with other options,
+ * and the per file results in the {@link xyz.keksdose.spoon.code_solver.analyzer.spoon.AnalyzerResultCache} already
+ * skip the model of a commit analyzed before.
+ */
+public class ModelSnapshotCache {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final String ENTRY_SUFFIX = ".snapshot";
+    /**
+     * Increase this whenever the format of a snapshot or the options of the built model change.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final ObjectInputFilter MODEL_FILTER =
+            ObjectInputFilter.Config.createFilter("spoon.**;java.util.**;java.lang.*;java.io.File;!*");
+    /**
+     * The number of locks shared by the keys. The keys are hashes, so they are spread evenly over the locks.
+     */
+    private static final int KEY_LOCKS = 64;
+
+    private final LruFileStore snapshots;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Object[] keyLocks = new Object[KEY_LOCKS];
+
+    /**
+     * Creates a new cache in the given directory. Existing snapshots in the directory are reused.
+     * @param directory  the directory of the cache, created if missing
+     * @param maxSizeInBytes  the maximum total size of all snapshots
+     * @throws IOException  if the directory can't be created or read
+     */
+    public ModelSnapshotCache(Path directory, long maxSizeInBytes) throws IOException {
+        this.snapshots = new LruFileStore(directory, maxSizeInBytes, ENTRY_SUFFIX);
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            keyLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Creates the key of a snapshot. The key is the SHA-256 hash of the project url, the commit and the snapshot
+     * format.
+     * @param projectUrl  the url of the project
+     * @param commitHash  the hash of the checked out commit
+     * @return  the key of the snapshot
+     */
+    public static String createKey(String projectUrl, String commitHash) {
+        return LruFileStore.createKey(projectUrl, commitHash, Integer.toString(FORMAT_VERSION));
+    }
+
+    /**
+     * Loads the snapshot with the given key for a checkout in the given root folder.
+     * @param key  the key created by {@link #createKey(String, String)}
+     * @param root  the root folder of the checkout the model is used for
+     * @return  the factory of the loaded model, or empty if there is no readable snapshot for the key
+     */
+    public Optional<Factory> load(String key, Path root) {
+        synchronized (lockOf(key)) {
+            Optional<Path> entry = snapshots.find(key);
+            if (entry.isEmpty()) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new GZIPInputStream(Files.newInputStream(entry.get()))))) {
+                in.setObjectInputFilter(MODEL_FILTER);
+                Path snapshotRoot = Path.of(in.readUTF());
+                Factory factory = (Factory) in.readObject();
+                // the factory of the elements is transient
+                factory.createQuery(factory.Module().getAllModules().toArray())
+                        .filterChildren(null)
+                        .forEach((CtElement element) -> element.setFactory(factory));
+                moveCompilationUnits(factory, snapshotRoot, root);
+                hits.incrementAndGet();
+                return Optional.of(factory);
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                // also happens if the snapshot was evicted while it was read
+                logger.atWarning().withCause(e).log("Removing unreadable snapshot %s", entry.get());
+                snapshots.remove(key);
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Stores a snapshot of the model of the given factory. Store a model right after it is built, before it is
+     * analyzed or transformed.
+     * @param key  the key created by {@link #createKey(String, String)}
+     * @param root  the root folder the model was built from
+     * @param factory  the factory of the model
+     */
+    public void store(String key, Path root, Factory factory) {
+        synchronized (lockOf(key)) {
+            try {
+                snapshots.write(key, file -> {
+                    try (ObjectOutputStream out =
+                            new ObjectOutputStream(new BufferedOutputStream(new GZIPOutputStream(file)))) {
+                        out.writeUTF(root.toAbsolutePath().normalize().toString());
+                        out.writeObject(factory);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                logger.atWarning().withCause(e).log("Could not store snapshot %s", key);
+            }
+        }
+    }
+
+    /**
+     * @return the number of loads that found a snapshot
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of loads that found no snapshot
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the total size of all snapshots in bytes
+     */
+    public long getSizeInBytes() {
+        return snapshots.getSizeInBytes();
+    }
+
+    /**
+     * @return the number of snapshots
+     */
+    public int getEntryCount() {
+        return snapshots.getEntryCount();
+    }
+
+    /**
+     * Moves the files of all compilation units from the root folder of the snapshot to the given root folder. Printers
+     * write a type to the file of its compilation unit. The units are not part of the model, so their factory is set
+     * here.
+     */
+    private static void moveCompilationUnits(Factory factory, Path snapshotRoot, Path root) {
+        Path newRoot = root.toAbsolutePath().normalize();
+        Set<CompilationUnit> units = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CtType<?> type : factory.getModel().getAllTypes()) {
+            CompilationUnit unit = type.getPosition().getCompilationUnit();
+            if (unit == null || !units.add(unit)) {
+                continue;
+            }
+            factory.createQuery(unit).filterChildren(null).forEach((CtElement element) -> element.setFactory(factory));
+            if (unit.getFile() != null) {
+                Path file = unit.getFile().toPath();
+                File movedFile = file.startsWith(snapshotRoot)
+                        ? newRoot.resolve(snapshotRoot.relativize(file)).toFile()
+                        : file.toFile();
+                unit.setFile(movedFile);
+            }
+        }
+    }
+
+    private Object lockOf(String key) {
+        return keyLocks[Math.floorMod(key.hashCode(), KEY_LOCKS)];
+    }
+}
@@ -1,35 +1,155 @@
 package xyz.keksdose.spoon.code_solver;
 
 import com.google.common.flogger.FluentLogger;
+import com.google.errorprone.annotations.Var;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import spoon.processing.Processor;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
 import spoon.reflect.factory.Factory;
 import spoon.support.QueueProcessingManager;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
 
 /**
  * This class is responsible for applying the transformations to the given elements, till no more changes are detected.
  * The transformations are applied in the order they are added to the TransformationEngine.
  * Use {@link #process(Collection)} to apply the transformations to the given elements.
+ * <p>
+ * The first iteration processes all given elements. Every further iteration only processes the given elements
+ * containing a type changed in the previous iteration, because the transformations of all other elements found nothing
+ * left to do. This includes types changed while processing another element.
+ * A {@link TransformationProcessor} is only applied to the types of compilation units it is
+ * {@link TransformationProcessor#isApplicable(CtCompilationUnit) applicable} to.
+ * The number of iterations per call is capped, so transformations undoing each other can't loop forever.
  */
 public class RepeatingProcessingManager extends QueueProcessingManager {
 
+    /**
+     * The default maximum number of iterations. Transformations rarely enable each other more than a few times.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 10;
+
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
     private final ChangeListener listener;
-    private int iteration = 0;
+    private final int maxIterations;
+    private final List<Iteration> iterations = new ArrayList<>();
 
     public RepeatingProcessingManager(Factory factory, ChangeListener listener) {
+        this(factory, listener, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Creates a new processing manager that stops after the given number of iterations, even if the last iteration
+     * changed a type.
+     * @param factory  the factory of the processed model
+     * @param listener  the listener receiving the changes of the transformations
+     * @param maxIterations  the maximum number of iterations, at least 1
+     */
+    public RepeatingProcessingManager(Factory factory, ChangeListener listener, int maxIterations) {
         super(factory);
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("At least one iteration is needed, but was " + maxIterations);
+        }
         this.listener = listener;
+        this.maxIterations = maxIterations;
     }
 
     @Override
     public void process(Collection<? extends CtElement> elements) {
-        do {
+        iterations.clear();
+        List<CtElement> allElements = new ArrayList<>(elements);
+        @Var List<CtElement> worklist = allElements;
+        while (!worklist.isEmpty()) {
+            if (iterations.size() == maxIterations) {
+                logger.atWarning().log(
+                        "Stopping after %d iterations, %d elements are still changing", maxIterations, worklist.size());
+                return;
+            }
             listener.reset();
-            logger.atInfo().log("Starting iteration %d", iteration++);
-            super.process(elements);
-            logger.atInfo().log("Finished iteration %d", iteration);
-        } while (listener.isChanged());
+            int number = iterations.size();
+            logger.atInfo().log("Starting iteration %d with %d elements", number, worklist.size());
+            long start = System.nanoTime();
+            int skippedPairs = processIteration(worklist);
+            Set<CtType<?>> changedTypes = listener.getChangedTypesSinceReset();
+            Iteration iteration = new Iteration(
+                    number,
+                    worklist.size(),
+                    skippedPairs,
+                    changedTypes.size(),
+                    Duration.ofNanos(System.nanoTime() - start));
+            iterations.add(iteration);
+            logger.atInfo().log(
+                    "Finished iteration %d in %s, %d types changed, skipped %d inapplicable processor and element pairs",
+                    number, iteration.duration(), iteration.changedTypes(), skippedPairs);
+            // a type can be changed while processing another one, so all given elements are candidates
+            worklist = getChangedElements(allElements, changedTypes);
+        }
+    }
+
+    /**
+     * Applies every processor to the elements it is applicable to, in the order of the processors.
+     * @return  the number of skipped processor and element pairs
+     */
+    private int processIteration(List<CtElement> worklist) {
+        @Var int skippedPairs = 0;
+        for (Processor<?> processor : new ArrayList<>(getProcessors())) {
+            List<CtElement> elements =
+                    worklist.stream().filter(v -> isApplicable(processor, v)).toList();
+            skippedPairs += worklist.size() - elements.size();
+            if (!elements.isEmpty()) {
+                QueueProcessingManager processingManager = new QueueProcessingManager(getFactory());
+                processingManager.addProcessor(processor);
+                processingManager.process(elements);
+            }
+        }
+        return skippedPairs;
+    }
+
+    private static boolean isApplicable(Processor<?> processor, CtElement element) {
+        if (!(processor instanceof TransformationProcessor<?> transformation) || !(element instanceof CtType<?> type)) {
+            return true;
+        }
+        CtCompilationUnit unit = type.getPosition().getCompilationUnit();
+        return unit == null || transformation.isApplicable(unit);
+    }
+
+    /**
+     * Returns the statistics of the iterations run by the last call of {@link #process(Collection)}, in their order.
+     * @return  an unmodifiable list of the iterations
+     */
+    public List<Iteration> getIterations() {
+        return List.copyOf(iterations);
     }
+
+    /**
+     * Returns the elements that are a changed type or contain one.
+     */
+    private static List<CtElement> getChangedElements(List<CtElement> elements, Set<CtType<?>> changedTypes) {
+        if (changedTypes.isEmpty()) {
+            return List.of();
+        }
+        List<CtElement> changedElements = new ArrayList<>();
+        for (CtElement element : elements) {
+            if (changedTypes.stream().anyMatch(v -> v == element || v.hasParent(element))) {
+                changedElements.add(element);
+            }
+        }
+        return changedElements;
+    }
+
+    /**
+     * The statistics of one iteration over the worklist.
+     * @param number  the number of the iteration, starting at 0
+     * @param elements  the number of processed elements
+     * @param skippedPairs  the number of processor and element pairs skipped because the processor is not applicable
+     * @param changedTypes  the number of types changed by the transformations
+     * @param duration  the time spent in the iteration
+     */
+    public record Iteration(int number, int elements, int skippedPairs, int changedTypes, Duration duration) {}
 }
@@ -1,8 +1,11 @@
 package xyz.keksdose.spoon.code_solver;
 
 import com.google.common.flogger.FluentLogger;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import spoon.Launcher;
@@ -10,11 +13,14 @@ import spoon.compiler.Environment;
 import spoon.processing.ProcessingManager;
 import spoon.reflect.CtModel;
 import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
 import xyz.keksdose.spoon.code_solver.history.Changelog;
 import xyz.keksdose.spoon.code_solver.printing.ChangedTypePrinting;
 import xyz.keksdose.spoon.code_solver.printing.EnvironmentOptions;
 import xyz.keksdose.spoon.code_solver.printing.IPrinting;
+import xyz.keksdose.spoon.code_solver.printing.InMemoryPrinting;
+import xyz.keksdose.spoon.code_solver.printing.PrintedFile;
 import xyz.keksdose.spoon.code_solver.printing.PrinterCreation;
 import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
 import xyz.keksdose.spoon.code_solver.transformations.junit.migration.AssertThatTransformation;
@@ -37,6 +43,7 @@ public class TransformationEngine {
     private List<Function<ChangeListener, TransformationProcessor<?>>> processors;
     private IPrinting printing;
     private ChangeListener changeListener;
+    private int maxIterations = RepeatingProcessingManager.DEFAULT_MAX_ITERATIONS;
 
     public TransformationEngine(List<Function<ChangeListener, TransformationProcessor<?>>> processors) {
         this.processors = processors;
@@ -63,6 +70,16 @@ public class TransformationEngine {
         this.changeListener = changeListener;
     }
 
+    /**
+     * Sets the maximum number of times the transformations are repeated on the changed types.
+     * @param maxIterations  the maximum number of iterations, at least 1
+     * @return  this engine
+     */
+    public TransformationEngine setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
     public TransformationEngine setPrinting(IPrinting printing) {
         this.printing = printing;
         return this;
@@ -76,21 +93,46 @@ public class TransformationEngine {
         CtModel model = launcher.buildModel();
         LOGGER.atInfo().log("Model built");
         PrinterCreation.setPrettyPrinter(environment, model);
-        if (printing == null) {
-            printing = new ChangedTypePrinting(environment.createPrettyPrinter());
-        }
-        if (changeListener == null) {
-            changeListener = new ChangeListener();
-        }
-        ProcessingManager pm = new RepeatingProcessingManager(launcher.getFactory(), changeListener);
-        addProcessors(pm, changeListener);
-        pm.process(model.getAllTypes());
-        Collection<CtType<?>> newTypes = model.getAllTypes();
-        LOGGER.atInfo().log("Applying transformations to %s done", path);
+        return applyToAllTypes(launcher.getFactory(), model, printingFor(launcher.getFactory()));
+    }
+
+    /**
+     * Applies the transformations to all types of an already built workspace and prints the changed types.
+     * @param workspace  the workspace, its model is changed in place
+     * @return  the changelog of the transformations
+     */
+    public Changelog applyTo(Workspace workspace) {
         LOGGER.atInfo().log(
-                "%s Changes found", changeListener.getChangelog().getChanges().size());
-        printing.printChangedTypes(changeListener, newTypes);
-        return changeListener.getChangelog();
+                "Applying transformations to workspace %s with %s processors", workspace.getRoot(), processors.size());
+        return applyToAllTypes(workspace.getFactory(), workspace.getModel(), printingFor(workspace.getFactory()));
+    }
+
+    /**
+     * Applies the transformations to all types of an already built workspace without writing any file. The changed
+     * files are printed in memory instead, the configured printing is not used. The changes are reported to the
+     * listener set with {@link #setChangeListener(ChangeListener)}.
+     * @param workspace  the workspace, its model is changed in place
+     * @return  the printed files by the path of their compilation unit, with their new content and a diff relative to
+     *     the root of the workspace
+     */
+    public SortedMap<Path, PrintedFile> applyInMemory(Workspace workspace) {
+        LOGGER.atInfo().log(
+                "Applying transformations in memory to workspace %s with %s processors",
+                workspace.getRoot(), processors.size());
+        InMemoryPrinting inMemoryPrinting =
+                new InMemoryPrinting(workspace.getEnvironment()::createPrettyPrinter, workspace.getRoot());
+        applyToAllTypes(workspace.getFactory(), workspace.getModel(), inMemoryPrinting);
+        return inMemoryPrinting.getPrintedFiles();
+    }
+
+    /**
+     * Applies the transformations to java sources held in memory, like {@link #applyInMemory(Workspace)}. No file is
+     * read or written.
+     * @param sources  the content of every java file by its path, e.g. {@code src/main/java/foo/A.java}
+     * @return  the printed files by the path of their source, with their new content and a diff
+     */
+    public SortedMap<Path, PrintedFile> applyInMemory(Map<String, ? extends CharSequence> sources) {
+        return applyInMemory(Workspace.ofSources(sources));
     }
 
     protected void addInput(String path, Launcher launcher) {
@@ -108,18 +150,61 @@ public class TransformationEngine {
         addInput(path, launcher);
         CtModel model = launcher.buildModel();
         PrinterCreation.setPrettyPrinter(environment, model);
+        return applyToTypes(
+                launcher.getFactory(), getTypesWithName(typeName, model), printingFor(launcher.getFactory()));
+    }
+
+    /**
+     * Applies the transformations to the types with the given simple name of an already built workspace. Only these
+     * types are processed and printed, the rest of the model is reused as is.
+     * @param workspace  the workspace, its model is changed in place
+     * @param typeName  the simple name of the transformed types
+     * @return  the changelog of the transformations
+     */
+    public Changelog applyTo(Workspace workspace, String typeName) {
+        LOGGER.atInfo().log(
+                "Applying transformations to %s in workspace %s with %s processors",
+                typeName, workspace.getRoot(), processors.size());
+        return applyToTypes(
+                workspace.getFactory(),
+                getTypesWithName(typeName, workspace.getModel()),
+                printingFor(workspace.getFactory()));
+    }
+
+    private Changelog applyToAllTypes(Factory factory, CtModel model, IPrinting printing) {
+        process(factory, model.getAllTypes());
+        Collection<CtType<?>> newTypes = model.getAllTypes();
+        LOGGER.atInfo().log("Applying transformations done");
+        LOGGER.atInfo().log(
+                "%s Changes found", changeListener.getChangelog().getChanges().size());
+        printing.printChangedTypes(changeListener, newTypes);
+        return changeListener.getChangelog();
+    }
+
+    private Changelog applyToTypes(Factory factory, Collection<CtType<?>> types, IPrinting printing) {
+        process(factory, types);
+        printing.printChangedTypes(changeListener, types);
+        return changeListener.getChangelog();
+    }
+
+    /**
+     * Returns the configured printing or, if none is set, a printing writing the changed types with the printer of the
+     * factory.
+     */
+    private IPrinting printingFor(Factory factory) {
         if (printing == null) {
-            printing = new ChangedTypePrinting(environment.createPrettyPrinter());
+            return new ChangedTypePrinting(factory.getEnvironment()::createPrettyPrinter);
         }
+        return printing;
+    }
+
+    private void process(Factory factory, Collection<CtType<?>> types) {
         if (changeListener == null) {
             changeListener = new ChangeListener();
         }
-        ProcessingManager pm = new RepeatingProcessingManager(launcher.getFactory(), changeListener);
-        Collection<CtType<?>> newTypes = getTypesWithName(typeName, model);
+        ProcessingManager pm = new RepeatingProcessingManager(factory, changeListener, maxIterations);
         addProcessors(pm, changeListener);
-        pm.process(newTypes);
-        printing.printChangedTypes(changeListener, newTypes);
-        return changeListener.getChangelog();
+        pm.process(types);
     }
 
     private static List<CtType<?>> getTypesWithName(String typeName, CtModel model) {
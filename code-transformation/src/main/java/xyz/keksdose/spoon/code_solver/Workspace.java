@@ -0,0 +1,158 @@
+package xyz.keksdose.spoon.code_solver;
+
+import com.google.common.flogger.FluentLogger;
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import spoon.Launcher;
+import spoon.compiler.Environment;
+import spoon.reflect.CtModel;
+import spoon.reflect.factory.Factory;
+import xyz.keksdose.spoon.code_solver.analyzer.spoon.SpoonBasedAnalyzer;
+import xyz.keksdose.spoon.code_solver.history.Changelog;
+import xyz.keksdose.spoon.code_solver.printing.EnvironmentOptions;
+import xyz.keksdose.spoon.code_solver.printing.PrinterCreation;
+import xyz.keksdose.spoon.code_solver.spoon.InMemorySources;
+
+/**
+ * A built model of a project with its environment and printers, shared by the analysis and the transformations. The
+ * project is parsed once, no matter how many analyses and transformations run on it.
+ * <p>
+ * Transformations change the model in place. An analysis after a transformation sees the changed model, because the
+ * indexes of the analysis are built again on every analysis.
+ */
+public class Workspace {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private final Path root;
+    private final Factory factory;
+    private final CtModel model;
+
+    private Workspace(Path root, Factory factory, CtModel model) {
+        this.root = root;
+        this.factory = factory;
+        this.model = model;
+    }
+
+    /**
+     * Builds the model of all java files in the given folder or file, with the options and printers of the
+     * {@link TransformationEngine}.
+     * @param root  the root folder of the project, or a source folder of it
+     * @return  the workspace of the built model
+     */
+    public static Workspace of(Path root) {
+        long start = System.nanoTime();
+        Launcher launcher = new Launcher();
+        Environment environment = EnvironmentOptions.setEnvironmentOptions(launcher);
+        launcher.addInputResource(root.toString());
+        CtModel model = launcher.buildModel();
+        PrinterCreation.setPrettyPrinter(environment, model);
+        logger.atInfo().log("Built workspace of %s in %d ms", root, (System.nanoTime() - start) / 1_000_000);
+        return new Workspace(root, launcher.getFactory(), model);
+    }
+
+    /**
+     * Builds the model of java sources held in memory, like {@link #of(Path)} but without reading any file. The root
+     * of the workspace is the empty path, so the file paths of the analysis results are the paths of the sources.
+     * Print the changes of such a workspace with {@link TransformationEngine#applyInMemory(Workspace)}, the sources
+     * have no files to write to.
+     * @param sources  the content of every java file by its path, e.g. {@code src/main/java/foo/A.java}
+     * @return  the workspace of the built model
+     */
+    public static Workspace ofSources(Map<String, ? extends CharSequence> sources) {
+        long start = System.nanoTime();
+        Launcher launcher = InMemorySources.of(sources).createLauncher();
+        Environment environment = EnvironmentOptions.setEnvironmentOptions(launcher);
+        CtModel model = launcher.buildModel();
+        PrinterCreation.setPrettyPrinter(environment, model);
+        logger.atInfo().log(
+                "Built workspace of %d sources in %d ms", sources.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Workspace(Path.of(""), launcher.getFactory(), model);
+    }
+
+    /**
+     * Loads the model of the given commit from the snapshot cache, or builds it like {@link #of(Path)} and stores a
+     * snapshot of it. A loaded model has the files of the given root, even if the snapshot was built from another
+     * checkout.
+     * @param root  the root folder of the checkout
+     * @param cache  the cache of the snapshots
+     * @param projectUrl  the url of the project
+     * @param commitHash  the hash of the checked out commit
+     * @return  the workspace of the loaded or built model
+     */
+    public static Workspace of(Path root, ModelSnapshotCache cache, String projectUrl, String commitHash) {
+        long start = System.nanoTime();
+        String key = ModelSnapshotCache.createKey(projectUrl, commitHash);
+        Optional<Factory> snapshot = cache.load(key, root);
+        if (snapshot.isEmpty()) {
+            Workspace workspace = of(root);
+            cache.store(key, root, workspace.getFactory());
+            return workspace;
+        }
+        Factory factory = snapshot.get();
+        Environment environment = EnvironmentOptions.setEnvironmentOptions(factory.getEnvironment());
+        CtModel model = factory.getModel();
+        PrinterCreation.setPrettyPrinter(environment, model);
+        logger.atInfo().log(
+                "Loaded workspace of %s from snapshot in %d ms", root, (System.nanoTime() - start) / 1_000_000);
+        return new Workspace(root, factory, model);
+    }
+
+    /**
+     * Analyzes all types of the workspace. The file paths of the results are relative to the root of the workspace.
+     * @param analyzer  the analyzer, its result cache is not used
+     * @return  the found results
+     */
+    public List<AnalyzerResult> analyze(SpoonBasedAnalyzer analyzer) {
+        return analyzer.analyze(root, model);
+    }
+
+    /**
+     * Applies the transformations of the engine to all types of the workspace and prints the changed types.
+     * @param engine  the engine with the transformations
+     * @return  the changelog of the transformations
+     */
+    public Changelog transform(TransformationEngine engine) {
+        return engine.applyTo(this);
+    }
+
+    /**
+     * Applies the transformations of the engine to the types with the given simple name and prints them if changed.
+     * @param engine  the engine with the transformations
+     * @param typeName  the simple name of the transformed types
+     * @return  the changelog of the transformations
+     */
+    public Changelog transform(TransformationEngine engine, String typeName) {
+        return engine.applyTo(this, typeName);
+    }
+
+    /**
+     * @return the root folder or file of the workspace
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the built model
+     */
+    public CtModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return the environment of the model, with the pretty printer of the transformations
+     */
+    public Environment getEnvironment() {
+        return factory.getEnvironment();
+    }
+
+    /**
+     * @return the factory of the model
+     */
+    public Factory getFactory() {
+        return factory;
+    }
+}
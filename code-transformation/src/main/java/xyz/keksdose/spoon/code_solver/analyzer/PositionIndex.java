@@ -0,0 +1,157 @@
+package xyz.keksdose.spoon.code_solver.analyzer;
+
+import com.google.errorprone.annotations.Var;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.path.CtRole;
+import spoon.reflect.visitor.EarlyTerminatingScanner;
+import spoon.reflect.visitor.chain.ScanningMode;
+
+/**
+ * An index of the positions of all elements of a compilation unit, answering the queries of {@link PositionScanner}
+ * without scanning the searched subtree again.
+ * <p>
+ * The index records every element the scanner of {@link PositionScanner} visits, in the same order, together with the
+ * range of visits in its subtree. A line table of the visits with a valid position finds the candidates of a query by
+ * binary search. Every match of {@link PositionScanner} starts on a line between the start and the end line of the
+ * searched position, so checking these candidates with the same conditions gives the same elements in the same order.
+ * <p>
+ * The index is built lazily once per unit and kept in its metadata. Call {@link #invalidate(CtElement)} after changing
+ * a unit, the {@link xyz.keksdose.spoon.code_solver.history.ChangeListener} does this for every reported change.
+ */
+public final class PositionIndex {
+
+    private static final String METADATA_KEY = PositionIndex.class.getName();
+
+    private final List<CtElement> visits;
+    private final int[] subtreeEnds;
+    private final Map<CtElement, Integer> firstVisits;
+    /**
+     * The visits with a valid position, sorted by their line and then by their order.
+     */
+    private final int[] visitsByLine;
+    /**
+     * The line of every entry of {@link #visitsByLine}.
+     */
+    private final int[] lines;
+
+    private PositionIndex(List<CtElement> visits, int[] subtreeEnds) {
+        this.visits = visits;
+        this.subtreeEnds = subtreeEnds;
+        this.firstVisits = new IdentityHashMap<>();
+        List<Integer> validVisits = new ArrayList<>();
+        for (int i = 0; i < visits.size(); i++) {
+            firstVisits.putIfAbsent(visits.get(i), i);
+            if (visits.get(i).getPosition().isValidPosition()) {
+                validVisits.add(i);
+            }
+        }
+        // the sort is stable, so visits on the same line keep their order
+        validVisits.sort(
+                Comparator.comparingInt(v -> visits.get(v).getPosition().getLine()));
+        this.visitsByLine = validVisits.stream().mapToInt(Integer::intValue).toArray();
+        this.lines = Arrays.stream(visitsByLine)
+                .map(v -> visits.get(v).getPosition().getLine())
+                .toArray();
+    }
+
+    /**
+     * Removes the index of the compilation unit of the given element, so the next query builds it again.
+     * @param element  an element of the changed compilation unit
+     */
+    public static void invalidate(CtElement element) {
+        CtCompilationUnit unit = element.getPosition().getCompilationUnit();
+        if (unit != null && unit.getMetadata(METADATA_KEY) != null) {
+            unit.putMetadata(METADATA_KEY, null);
+        }
+    }
+
+    /**
+     * Searches the subtree of the given element for the elements matching the query.
+     * @return  the matches in the order of {@link PositionScanner}, or null if the element is not in an indexed unit
+     */
+    static @Nullable List<CtElement> find(CtElement root, PositionScanner query) {
+        CtCompilationUnit unit = root.getPosition().getCompilationUnit();
+        if (unit == null) {
+            return null;
+        }
+        PositionIndex index;
+        if (unit.getMetadata(METADATA_KEY) instanceof PositionIndex cached) {
+            index = cached;
+        } else {
+            index = build(unit);
+            unit.putMetadata(METADATA_KEY, index);
+        }
+        return index.findInSubtree(root, query);
+    }
+
+    private @Nullable List<CtElement> findInSubtree(CtElement root, PositionScanner query) {
+        Integer start = firstVisits.get(root);
+        if (start == null) {
+            return null;
+        }
+        int end = subtreeEnds[start];
+        int firstLine = query.getStartLine();
+        int lastLine = Math.max(query.getStartLine(), query.getEndLine());
+        List<Integer> matches = new ArrayList<>();
+        for (int i = lowerBound(firstLine); i < lines.length && lines[i] <= lastLine; i++) {
+            int visit = visitsByLine[i];
+            if (visit >= start && visit < end && query.matches(visits.get(visit))) {
+                matches.add(visit);
+            }
+        }
+        matches.sort(null);
+        return matches.stream().map(visits::get).toList();
+    }
+
+    private int lowerBound(int line) {
+        @Var int low = 0;
+        @Var int high = lines.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lines[middle] < line) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static PositionIndex build(CtCompilationUnit unit) {
+        VisitRecorder recorder = new VisitRecorder();
+        for (CtType<?> type : unit.getDeclaredTypes()) {
+            recorder.scan(type);
+        }
+        return new PositionIndex(
+                recorder.visits,
+                recorder.subtreeEnds.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Records the visits of the scanner of {@link PositionScanner} and the end of the subtree of every visit.
+     */
+    private static class VisitRecorder extends EarlyTerminatingScanner<Void> {
+
+        private final List<CtElement> visits = new ArrayList<>();
+        private final List<Integer> subtreeEnds = new ArrayList<>();
+
+        // without a listener, every element is visited with its children in doScan
+        @Override
+        protected void doScan(CtRole role, CtElement element, ScanningMode mode) {
+            int visit = visits.size();
+            visits.add(element);
+            subtreeEnds.add(visit + 1);
+            super.doScan(role, element, mode);
+            subtreeEnds.set(visit, visits.size());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import spoon.reflect.visitor.EarlyTerminatingScanner;
  * This class matches AST elements with a given position {@link Position}.
  * {@link PositionScanner#findLineOnly(CtElement, Position)} only matches elements that are on the same line as the given position.
  * {@link PositionScanner#find(CtElement, Position)} matches elements that are exactly on the given position.
+ * Searches in a compilation unit are answered by its {@link PositionIndex}, other elements are scanned.
  */
 public class PositionScanner extends EarlyTerminatingScanner<List<CtElement>> {
 
@@ -27,9 +28,7 @@ public class PositionScanner extends EarlyTerminatingScanner<List<CtElement>> {
      * @return  a list of all elements that are on the given position. This list is never null.
      */
     public static List<CtElement> find(CtElement element, Position position) {
-        PositionScanner scanner = new PositionScanner(position);
-        scanner.scan(element);
-        return scanner.getResult();
+        return new PositionScanner(position).search(element);
     }
     /**
      * Searches for all elements that are on the same line as the given position. This search visits the subtree of the given element.
@@ -42,8 +41,7 @@ public class PositionScanner extends EarlyTerminatingScanner<List<CtElement>> {
         scanner.charOffset = 0;
         scanner.charLength = 0;
         scanner.startColumn = 0;
-        scanner.scan(element);
-        return scanner.getResult();
+        return scanner.search(element);
     }
 
     private PositionScanner(Position position) {
@@ -56,8 +54,28 @@ public class PositionScanner extends EarlyTerminatingScanner<List<CtElement>> {
         setResult(new ArrayList<>());
     }
 
+    private List<CtElement> search(CtElement element) {
+        List<CtElement> indexedResult = PositionIndex.find(element, this);
+        if (indexedResult != null) {
+            return indexedResult;
+        }
+        scan(element);
+        return getResult();
+    }
+
     @Override
     protected void onElement(CtRole role, CtElement element) {
+        if (matches(element)) {
+            getResult().add(element);
+        }
+        super.onElement(role, element);
+    }
+
+    /**
+     * Checks if the element is on the searched position. Every match starts on a line between the start line and the
+     * end line, or on the start line if the end line is before it.
+     */
+    boolean matches(CtElement element) {
         if (hasValidPosition(element)
                 && matchesStartLine(element)
                 && matchesSourceStart(element)
@@ -65,13 +83,17 @@ public class PositionScanner extends EarlyTerminatingScanner<List<CtElement>> {
                 && matchesColumn(element)
                 && matchesEndcolumn(element)
                 && matchesSourceEnd(element)) {
-            getResult().add(element);
-        } else {
-            if (hasValidPosition(element) && isAfterStartLine(element) && isBeforeEndLine(element)) {
-                getResult().add(element);
-            }
+            return true;
         }
-        super.onElement(role, element);
+        return hasValidPosition(element) && isAfterStartLine(element) && isBeforeEndLine(element);
+    }
+
+    int getStartLine() {
+        return startLine;
+    }
+
+    int getEndLine() {
+        return endLine;
     }
 
     private boolean isBeforeEndLine(CtElement element) {
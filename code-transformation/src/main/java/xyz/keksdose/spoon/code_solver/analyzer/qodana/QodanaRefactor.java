@@ -2,6 +2,7 @@ package xyz.keksdose.spoon.code_solver.analyzer.qodana;
 
 import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
 import io.github.martinwitt.laughing_train.domain.value.RuleId;
+import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -10,6 +11,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtType;
 import xyz.keksdose.spoon.code_solver.analyzer.qodana.rules.AbstractRefactoring;
 import xyz.keksdose.spoon.code_solver.analyzer.qodana.rules.MethodMayBeStatic;
@@ -29,17 +32,20 @@ import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
  * This aggregates all qodana refactorings and wraps them in a single processor.
  * Use {@link run(Path, ChangeListener)} to analyse the source code.
  * <b> Note: </b> This requires a running docker host and can take some minutes.
+ * <p>
+ * The refactorings are indexed by the normalized file path of their result. A type only sees the refactorings of the
+ * file of its compilation unit, and compilation units without results are skipped.
  */
 public class QodanaRefactor extends TransformationProcessor<CtType<?>> {
 
     private Map<RuleId, Function<AnalyzerResult, AbstractRefactoring>> ruleParser;
-    private List<AbstractRefactoring> refactorings;
+    private Map<Path, List<AbstractRefactoring>> refactoringsByFile;
     private List<Consumer<QodanaAnalyzer.Builder>> settings = new ArrayList<>();
     private List<AnalyzerResult> results;
 
     private QodanaRefactor(Builder builder) {
         super(builder.listener);
-        refactorings = new ArrayList<>();
+        refactoringsByFile = new HashMap<>();
         this.listener = builder.listener;
         this.ruleParser = builder.ruleParser.entrySet().stream()
                 .collect(HashMap::new, (m, v) -> m.put(new RuleId(v.getKey()), v.getValue()), HashMap::putAll);
@@ -49,7 +55,7 @@ public class QodanaRefactor extends TransformationProcessor<CtType<?>> {
     public QodanaRefactor(
             Iterable<QodanaRules> qodanaRules, ChangeListener listener, List<? extends AnalyzerResult> results) {
         super(listener);
-        refactorings = new ArrayList<>();
+        refactoringsByFile = new HashMap<>();
         ruleParser = new HashMap<>();
         for (QodanaRules qodanaRule : qodanaRules) {
             ruleParser.put(qodanaRule.getRuleId(), qodanaRule.getRefactoring());
@@ -72,17 +78,47 @@ public class QodanaRefactor extends TransformationProcessor<CtType<?>> {
 
     private void splitResults(List<? extends AnalyzerResult> results) {
         for (AnalyzerResult result : results) {
-            Optional.ofNullable(ruleParser.get(result.ruleID())).ifPresent(v -> refactorings.add(v.apply(result)));
+            Optional.ofNullable(ruleParser.get(result.ruleID())).ifPresent(v -> refactoringsByFile
+                    .computeIfAbsent(Path.of(result.filePath()).normalize(), k -> new ArrayList<>())
+                    .add(v.apply(result)));
         }
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return !getRefactorings(unit.getFile()).isEmpty();
+    }
+
     @Override
     public void process(CtType<?> type) {
-        for (AbstractRefactoring refactoring : refactorings) {
+        if (!type.getPosition().isValidPosition()) {
+            return;
+        }
+        for (AbstractRefactoring refactoring :
+                getRefactorings(type.getPosition().getCompilationUnit().getFile())) {
             refactoring.refactor(listener, type);
         }
     }
 
+    /**
+     * Returns the refactorings of all results whose path is the given file or a suffix of it, matching the results the
+     * refactorings accept in {@link AbstractRefactoring#isSameType(CtType, Path)}.
+     */
+    private List<AbstractRefactoring> getRefactorings(@Nullable File file) {
+        if (file == null || refactoringsByFile.isEmpty()) {
+            return List.of();
+        }
+        Path path = file.toPath().normalize();
+        List<AbstractRefactoring> refactorings = new ArrayList<>();
+        if (path.isAbsolute()) {
+            refactorings.addAll(refactoringsByFile.getOrDefault(path, List.of()));
+        }
+        for (int i = 0; i < path.getNameCount(); i++) {
+            refactorings.addAll(refactoringsByFile.getOrDefault(path.subpath(i, path.getNameCount()), List.of()));
+        }
+        return refactorings;
+    }
+
     @Deprecated
     public static class Builder {
 
@@ -65,8 +65,7 @@ public class PointlessBooleanExpression extends AbstractRefactoring {
     }
 
     private boolean isAlreadyFixed(ChangeListener listener) {
-        return listener.getChangelog().getChanges().stream()
-                .anyMatch(v -> v.getAnalyzerResult().equals(result));
+        return listener.isFixed(result);
     }
 
     private CtExpression<Object> createNewExpression(CtExpression<?> ctExpression, String newExpression) {
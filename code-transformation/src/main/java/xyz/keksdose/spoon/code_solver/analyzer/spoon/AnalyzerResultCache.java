@@ -0,0 +1,149 @@
+package xyz.keksdose.spoon.code_solver.analyzer.spoon;
+
+import com.google.common.flogger.FluentLogger;
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import xyz.keksdose.spoon.code_solver.util.LruFileStore;
+
+/**
+ * A persistent cache for the analyzer results of single files. Entries are keyed by the hash of the file content and
+ * the version of the analyzer set, see {@link #createKey(byte[], String)}. Identical files in different projects or
+ * commits share one entry.
+ * <p>
+ * The entries are kept in a {@link LruFileStore}, bounded by the total size of their files.
+ */
+public class AnalyzerResultCache {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final String ENTRY_SUFFIX = ".results";
+    private static final ObjectInputFilter RESULT_FILTER = ObjectInputFilter.Config.createFilter(
+            "java.util.*;java.lang.*;io.github.martinwitt.laughing_train.domain.value.*;"
+                    + SpoonAnalyzerResult.class.getName() + ";!*");
+
+    private final LruFileStore store;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new cache in the given directory. Existing entries in the directory are reused.
+     * @param directory  the directory of the cache, created if missing
+     * @param maxSizeInBytes  the maximum total size of all entries
+     * @throws IOException  if the directory can't be created or read
+     */
+    public AnalyzerResultCache(Path directory, long maxSizeInBytes) throws IOException {
+        this.store = new LruFileStore(directory, maxSizeInBytes, ENTRY_SUFFIX);
+    }
+
+    /**
+     * Creates the key of a file. The key is the SHA-256 hash of the content combined with the analyzer set version.
+     * @param content  the content of the file
+     * @param analyzerSetVersion  the version of the analyzers that produced the results
+     * @return  the key of the file
+     */
+    public static String createKey(byte[] content, String analyzerSetVersion) {
+        return LruFileStore.createKey(analyzerSetVersion.getBytes(StandardCharsets.UTF_8), content);
+    }
+
+    /**
+     * Returns the cached results for the given key. The file paths of the results are the ones of the file that was
+     * analyzed first, callers should replace them.
+     * @param key  the key created by {@link #createKey(byte[], String)}
+     * @return  the cached results or empty if there is no entry for the key
+     */
+    public Optional<List<AnalyzerResult>> get(String key) {
+        Optional<Path> entry = store.find(key);
+        if (entry.isEmpty()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            List<AnalyzerResult> results = deserialize(Files.readAllBytes(entry.get()));
+            hits.incrementAndGet();
+            return Optional.of(results);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.atWarning().withCause(e).log("Removing unreadable cache entry %s", entry.get());
+            store.remove(key);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the results of a file. An empty list is stored too, because a file without results must not be analyzed
+     * again.
+     * @param key  the key created by {@link #createKey(byte[], String)}
+     * @param results  the results of the file
+     */
+    public void put(String key, List<? extends AnalyzerResult> results) {
+        try {
+            store.write(key, out -> serialize(results, out));
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Could not store cache entry %s", key);
+        }
+    }
+
+    /**
+     * @return the number of lookups that found an entry
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that found no entry
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the total size of all entries in bytes
+     */
+    public long getSizeInBytes() {
+        return store.getSizeInBytes();
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int getEntryCount() {
+        return store.getEntryCount();
+    }
+
+    private static void serialize(List<? extends AnalyzerResult> results, OutputStream file) throws IOException {
+        ArrayList<SpoonAnalyzerResult> entries = new ArrayList<>();
+        for (AnalyzerResult result : results) {
+            entries.add(new SpoonAnalyzerResult(
+                    result.ruleID(),
+                    result.filePath(),
+                    result.position(),
+                    result.message(),
+                    result.messageMarkdown(),
+                    result.snippet()));
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file))) {
+            out.writeObject(entries);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AnalyzerResult> deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(RESULT_FILTER);
+            return (List<AnalyzerResult>) in.readObject();
+        }
+    }
+}
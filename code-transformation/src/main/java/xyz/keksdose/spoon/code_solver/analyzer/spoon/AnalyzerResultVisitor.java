@@ -21,21 +21,19 @@ import io.github.martinwitt.spoon_analyzer.badsmells.size_replaceable_by_is_empt
 import io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_implements.UnnecessaryImplements;
 import io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_tostring.UnnecessaryTostring;
 import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Optional;
 import spoon.reflect.code.CtBinaryOperator;
 import spoon.reflect.cu.SourcePosition;
-import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtType;
 
 class AnalyzerResultVisitor implements BadSmellVisitor<AnalyzerResult> {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
     private final Path rootPath;
+    private final SourceSnippets snippets = new SourceSnippets();
 
     public AnalyzerResultVisitor(Path rootPath) {
         this.rootPath = rootPath;
@@ -58,10 +56,9 @@ class AnalyzerResultVisitor implements BadSmellVisitor<AnalyzerResult> {
         return toSpoonAnalyzerResult(
                 badSmell,
                 badSmell.getIndexOfCall().getPosition(),
-                trygetOriginalSourceCode(badSmell.getIndexOfCall())
-                        .orElse(badSmell.getIndexOfCall()
-                                .getParent(CtBinaryOperator.class)
-                                .toString()));
+                snippets.getContext(badSmell.getIndexOfCall()).orElseGet(() -> badSmell.getIndexOfCall()
+                        .getParent(CtBinaryOperator.class)
+                        .toString()));
     }
 
     private Optional<String> getAbsolutePath(BadSmell badSmell) {
@@ -107,74 +104,71 @@ class AnalyzerResultVisitor implements BadSmellVisitor<AnalyzerResult> {
 
     @Override
     public AnalyzerResult visit(AccessStaticViaInstance badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getAffectedCtInvocation())
-                .orElse(badSmell.getAffectedCtInvocation().toString());
+        String snippet = snippets.getContext(badSmell.getAffectedCtInvocation())
+                .orElseGet(() -> badSmell.getAffectedCtInvocation().toString());
         return toSpoonAnalyzerResult(
                 badSmell, badSmell.getAffectedCtInvocation().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(ArrayCanBeReplacedWithEnumValues badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getAffectedElement())
-                .orElse(badSmell.getAffectedElement().toString());
+        String snippet = snippets.getContext(badSmell.getAffectedElement())
+                .orElseGet(() -> badSmell.getAffectedElement().toString());
         return toSpoonAnalyzerResult(badSmell, badSmell.getAffectedElement().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(CharsetObjectCanBeUsed badSmell) {
         if (badSmell.getInvocation() != null) {
-            String snippet = trygetOriginalSourceCode(badSmell.getInvocation())
-                    .orElse(badSmell.getInvocation().toString());
+            String snippet = snippets.getContext(badSmell.getInvocation())
+                    .orElseGet(() -> badSmell.getInvocation().toString());
             return toSpoonAnalyzerResult(badSmell, badSmell.getInvocation().getPosition(), snippet);
         } else {
-            String snippet = trygetOriginalSourceCode(badSmell.getCtorCall())
-                    .orElse(badSmell.getCtorCall().toString());
+            String snippet = snippets.getContext(badSmell.getCtorCall())
+                    .orElseGet(() -> badSmell.getCtorCall().toString());
             return toSpoonAnalyzerResult(badSmell, badSmell.getCtorCall().getPosition(), snippet);
         }
     }
 
     @Override
     public AnalyzerResult visit(InnerClassMayBeStatic badSmell) {
-        CtType<?> clone = badSmell.getAffectedType().clone();
-        clone.setTypeMembers(new ArrayList<>());
-        String snippet = clone.toString();
+        String snippet = snippets.getDeclaration(badSmell.getAffectedType())
+                .orElseGet(() -> printDeclaration(badSmell.getAffectedType()));
         return toSpoonAnalyzerResult(badSmell, badSmell.getInnerClass().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(NonProtectedConstructorInAbstractClass badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getCtConstructor())
-                .orElse(badSmell.getCtConstructor().toString());
+        String snippet = snippets.getContext(badSmell.getCtConstructor())
+                .orElseGet(() -> badSmell.getCtConstructor().toString());
         return toSpoonAnalyzerResult(badSmell, badSmell.getCtConstructor().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(PrivateFinalMethod badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getAffectedMethod())
-                .orElse(badSmell.getAffectedMethod().toString());
+        String snippet = snippets.getContext(badSmell.getAffectedMethod())
+                .orElseGet(() -> badSmell.getAffectedMethod().toString());
         return toSpoonAnalyzerResult(badSmell, badSmell.getAffectedMethod().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(SizeReplaceableByIsEmpty badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getSizeInvocation())
-                .orElse(badSmell.getSizeInvocation().toString());
+        String snippet = snippets.getContext(badSmell.getSizeInvocation())
+                .orElseGet(() -> badSmell.getSizeInvocation().toString());
         return toSpoonAnalyzerResult(badSmell, badSmell.getSizeInvocation().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(UnnecessaryImplements badSmell) {
-
-        CtType<?> clone = badSmell.getAffectedType().clone();
-        clone.setTypeMembers(new ArrayList<>());
-        String snippet = clone.toString();
+        String snippet = snippets.getDeclaration(badSmell.getAffectedType())
+                .orElseGet(() -> printDeclaration(badSmell.getAffectedType()));
         return toSpoonAnalyzerResult(badSmell, badSmell.getAffectedType().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(UnnecessaryTostring badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getNotNeededTostring())
-                .orElse(badSmell.getNotNeededTostring().toString());
+        String snippet = snippets.getContext(badSmell.getNotNeededTostring())
+                .orElseGet(() -> badSmell.getNotNeededTostring().toString());
         return toSpoonAnalyzerResult(badSmell, badSmell.getNotNeededTostring().getPosition(), snippet);
     }
 
@@ -186,37 +180,25 @@ class AnalyzerResultVisitor implements BadSmellVisitor<AnalyzerResult> {
 
     @Override
     public AnalyzerResult visit(EqualsHashcode badSmell) {
-        CtType<?> clone = badSmell.getAffectedType().clone();
-        clone.setTypeMembers(new ArrayList<>());
-        String snippet = clone.toString();
+        String snippet = snippets.getDeclaration(badSmell.getAffectedType())
+                .orElseGet(() -> printDeclaration(badSmell.getAffectedType()));
         return toSpoonAnalyzerResult(badSmell, badSmell.getAffectedType().getPosition(), snippet);
     }
 
     @Override
     public AnalyzerResult visit(ImplicitArrayToString badSmell) {
-        String snippet = trygetOriginalSourceCode(badSmell.getImplicitToStringCaller())
-                .orElse(badSmell.getImplicitToStringCaller().toString());
+        String snippet = snippets.getContext(badSmell.getImplicitToStringCaller())
+                .orElseGet(() -> badSmell.getImplicitToStringCaller().toString());
         return toSpoonAnalyzerResult(
                 badSmell, badSmell.getImplicitToStringCaller().getPosition(), snippet);
     }
 
-    private Optional<String> trygetOriginalSourceCode(CtElement element) {
-        try {
-            File file = element.getPosition().getCompilationUnit().getFile();
-            String sourceCode = Files.readString(file.toPath());
-            int lineNumber = element.getPosition().getLine();
-
-            // Split the source code into lines
-            String[] lines = sourceCode.split("\\r?\\n");
-
-            // Extract the two lines before and after the given line number
-            int startIndex = Math.max(0, lineNumber - 3);
-            int endIndex = Math.min(lines.length - 1, lineNumber + 2);
-            String context = String.join("\n", Arrays.copyOfRange(lines, startIndex, endIndex + 1));
-
-            return Optional.ofNullable(context);
-        } catch (Throwable e) {
-            return Optional.empty();
-        }
+    /**
+     * Prints the declaration of a type without its members. Only used if the source of the type is not available.
+     */
+    private static String printDeclaration(CtType<?> type) {
+        CtType<?> clone = type.clone();
+        clone.setTypeMembers(new ArrayList<>());
+        return clone.toString();
     }
 }
@@ -0,0 +1,164 @@
+package xyz.keksdose.spoon.code_solver.analyzer.spoon;
+
+import com.google.errorprone.annotations.Var;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.cu.CompilationUnit;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.cu.position.BodyHolderSourcePosition;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * Cuts snippets out of the original source files of the analyzed code. Every file is read once and indexed by line,
+ * so a snippet is a substring of the cached content instead of a new read and split of the file.
+ * <p>
+ * Bad smells arrive grouped by type, so only the most recently used files are kept.
+ */
+class SourceSnippets {
+
+    private static final int CONTEXT_LINES = 2;
+    private static final int MAX_CACHED_FILES = 16;
+
+    private final Map<File, Optional<SourceFile>> files = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Optional<SourceFile>> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
+    /**
+     * Returns the line of the element with the two lines before and after it.
+     * @param element  the element of the snippet
+     * @return  the lines, or empty if the element has no position in a readable file
+     */
+    Optional<String> getContext(CtElement element) {
+        SourcePosition position = element.getPosition();
+        if (!position.isValidPosition()) {
+            return Optional.empty();
+        }
+        int line = position.getLine() - 1;
+        return getSourceFile(position).flatMap(v -> v.getLines(line - CONTEXT_LINES, line + CONTEXT_LINES));
+    }
+
+    /**
+     * Returns the declaration of a type without its members, from its javadoc and modifiers to the opening brace of
+     * the body, followed by the closing brace.
+     * @param type  the type of the snippet
+     * @return  the declaration, or empty if the type has no position in a readable file
+     */
+    Optional<String> getDeclaration(CtType<?> type) {
+        if (!(type.getPosition() instanceof BodyHolderSourcePosition position) || !position.isValidPosition()) {
+            return Optional.empty();
+        }
+        return getSourceFile(position)
+                .flatMap(v -> v.getRange(position.getSourceStart(), position.getBodyStart() + 1))
+                .map(v -> v + "}");
+    }
+
+    private synchronized Optional<SourceFile> getSourceFile(SourcePosition position) {
+        CompilationUnit compilationUnit = position.getCompilationUnit();
+        File file = compilationUnit == null ? position.getFile() : compilationUnit.getFile();
+        if (file == null) {
+            return Optional.empty();
+        }
+        return files.computeIfAbsent(file, v -> readSourceFile(v, compilationUnit));
+    }
+
+    /**
+     * Reads the source the positions of the model refer to. The unit knows it, also for sources held in memory whose
+     * relative path may name an unrelated file on disk. The file is only read if the unit has no source.
+     */
+    private static Optional<SourceFile> readSourceFile(File file, @Nullable CompilationUnit compilationUnit) {
+        if (compilationUnit != null) {
+            try {
+                String source = compilationUnit.getOriginalSourceCode();
+                if (source != null) {
+                    return Optional.of(SourceFile.of(source));
+                }
+            } catch (RuntimeException e) {
+                // the unit could not read its file, try the file directly
+            }
+        }
+        try {
+            return Optional.of(SourceFile.of(Files.readString(file.toPath())));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The content of a file with the start offset of every line. Trailing empty lines are not counted.
+     */
+    private static final class SourceFile {
+
+        private final String content;
+        private final int[] lineStarts;
+        private final int lineCount;
+
+        private SourceFile(String content, int[] lineStarts, int lineCount) {
+            this.content = content;
+            this.lineStarts = lineStarts;
+            this.lineCount = lineCount;
+        }
+
+        static SourceFile of(String content) {
+            List<Integer> starts = new ArrayList<>();
+            starts.add(0);
+            for (int i = 0; i < content.length(); i++) {
+                if (content.charAt(i) == '\n') {
+                    starts.add(i + 1);
+                }
+            }
+            int[] lineStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+            @Var int lineCount = lineStarts.length;
+            while (lineCount > 1 && getLine(content, lineStarts, lineCount - 1).isEmpty()) {
+                lineCount--;
+            }
+            return new SourceFile(content, lineStarts, lineCount);
+        }
+
+        /**
+         * Returns the lines between the given zero based indexes, both inclusive and clamped to the file, joined by
+         * {@code \n}.
+         */
+        Optional<String> getLines(int first, int last) {
+            int from = Math.max(0, first);
+            int to = Math.min(lineCount - 1, last);
+            if (from > to) {
+                return Optional.empty();
+            }
+            StringBuilder lines = new StringBuilder();
+            for (int i = from; i <= to; i++) {
+                if (i > from) {
+                    lines.append('\n');
+                }
+                lines.append(getLine(content, lineStarts, i));
+            }
+            return Optional.of(lines.toString());
+        }
+
+        Optional<String> getRange(int start, int end) {
+            if (start < 0 || start >= end || end > content.length()) {
+                return Optional.empty();
+            }
+            return Optional.of(content.substring(start, end));
+        }
+
+        private static String getLine(String content, int[] lineStarts, int index) {
+            int start = lineStarts[index];
+            @Var int end = index + 1 < lineStarts.length ? lineStarts[index + 1] - 1 : content.length();
+            if (end > start && content.charAt(end - 1) == '\r') {
+                end--;
+            }
+            return content.substring(start, end);
+        }
+    }
+}
@@ -8,8 +8,10 @@ public record SpoonAnalyzerResult(
         RuleId ruleID, String filePath, Position position, String message, String messageMarkdown, String snippet)
         implements AnalyzerResult {
 
+    public static final String ANALYZER_NAME = "Spoon";
+
     @Override
     public String getAnalyzer() {
-        return "Spoon";
+        return ANALYZER_NAME;
     }
 }
@@ -1,21 +1,423 @@
 package xyz.keksdose.spoon.code_solver.analyzer.spoon;
 
 import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import io.github.martinwitt.spoon_analyzer.AnalysisBudget;
+import io.github.martinwitt.spoon_analyzer.AnalysisListener;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
+import io.github.martinwitt.spoon_analyzer.BadSmellSink;
+import io.github.martinwitt.spoon_analyzer.PathUtils;
+import io.github.martinwitt.spoon_analyzer.SourceRootFinder;
 import io.github.martinwitt.spoon_analyzer.SpoonAnalyzer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.CtModel;
 
 public class SpoonBasedAnalyzer {
 
+    private final @Nullable AnalyzerResultCache cache;
+    private final AnalysisListener listener;
+    private final int maxFilesPerBatch;
+    private final AnalysisBudget budget;
+
+    public SpoonBasedAnalyzer() {
+        this(null);
+    }
+
+    /**
+     * Creates a new analyzer that reuses the results of files with the same content from the given cache. Only files
+     * without a cache entry and the files referencing their types are analyzed, in the model of the whole project.
+     * Rules that are not type-local, e.g. ones looking at the whole type hierarchy, are never cached and run on the
+     * cached files again.
+     * @param cache  the cache for the results of single files or null to analyze all files
+     */
+    public SpoonBasedAnalyzer(@Nullable AnalyzerResultCache cache) {
+        this(cache, AnalysisListener.NONE);
+    }
+
+    /**
+     * Creates a new analyzer like {@link #SpoonBasedAnalyzer(AnalyzerResultCache)} that reports the time spent in every
+     * phase and analyzer to the listener. The conversion of the bad smells to results is reported as
+     * {@link AnalysisListener#PHASE_CONVERSION}.
+     * @param cache  the cache for the results of single files or null to analyze all files
+     * @param listener  the listener receiving the performance data
+     */
+    public SpoonBasedAnalyzer(@Nullable AnalyzerResultCache cache, AnalysisListener listener) {
+        this(cache, listener, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new analyzer like {@link #SpoonBasedAnalyzer(AnalyzerResultCache, AnalysisListener)} that builds the
+     * model in batches of at most the given number of files. With a sink, only the model of one batch is in memory.
+     * @param cache  the cache for the results of single files or null to analyze all files
+     * @param listener  the listener receiving the performance data
+     * @param maxFilesPerBatch  the maximum number of java files in one model
+     * @see SpoonAnalyzer#SpoonAnalyzer(int, AnalysisListener, int)
+     */
+    public SpoonBasedAnalyzer(@Nullable AnalyzerResultCache cache, AnalysisListener listener, int maxFilesPerBatch) {
+        this(cache, listener, maxFilesPerBatch, AnalysisBudget.UNLIMITED);
+    }
+
+    /**
+     * Creates a new analyzer like {@link #SpoonBasedAnalyzer(AnalyzerResultCache, AnalysisListener, int)} that limits
+     * the time spent on a single type and on the whole project. If a budget is exceeded, the results of the analyzed
+     * files are not cached, because they may be incomplete.
+     * @param cache  the cache for the results of single files or null to analyze all files
+     * @param listener  the listener receiving the performance data and timeouts
+     * @param maxFilesPerBatch  the maximum number of java files in one model
+     * @param budget  the time budgets per type and per project
+     * @see SpoonAnalyzer#SpoonAnalyzer(int, AnalysisListener, int, AnalysisBudget)
+     */
+    public SpoonBasedAnalyzer(
+            @Nullable AnalyzerResultCache cache,
+            AnalysisListener listener,
+            int maxFilesPerBatch,
+            AnalysisBudget budget) {
+        this.cache = cache;
+        this.listener = listener;
+        this.maxFilesPerBatch = maxFilesPerBatch;
+        this.budget = budget;
+    }
+
     public List<AnalyzerResult> analyze(Path sourceRoot) {
-        SpoonAnalyzer analyzer = new SpoonAnalyzer();
+        if (cache != null) {
+            List<Path> sourceRoots = findSourceRoots(sourceRoot);
+            return analyzeWithCache(cache, sourceRoot, sourceRoots, findSourceFiles(sourceRoot, sourceRoots));
+        }
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        return toAnalyzerResults(
+                sourceRoot, analyzer.analyze(sourceRoot.toAbsolutePath().toString()));
+    }
+
+    /**
+     * Analyzes only the given files of a project. The file paths of the results are relative to the source root, like
+     * in {@link #analyze(Path)}. With a cache, the files are analyzed in the model of the whole project, otherwise the
+     * model is built from the given files alone.
+     * @param sourceRoot  the root folder of the project
+     * @param files  the java files to analyze, relative to the source root
+     * @return  the results found in the given files
+     */
+    public List<AnalyzerResult> analyze(Path sourceRoot, Collection<Path> files) {
+        if (cache != null) {
+            return analyzeWithCache(cache, sourceRoot, findSourceRoots(sourceRoot), files);
+        }
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        return toAnalyzerResults(sourceRoot, analyzer.analyzeFiles(toAbsolutePaths(sourceRoot, files)));
+    }
+
+    /**
+     * Analyzes all types of an already built model, e.g. of a {@link xyz.keksdose.spoon.code_solver.Workspace}. The
+     * model is analyzed as a whole, so the cache and the batch size are not used.
+     * @param sourceRoot  the root folder of the project, the file paths of the results are relative to it
+     * @param model  the model of the project
+     * @return  the found results
+     */
+    public List<AnalyzerResult> analyze(Path sourceRoot, CtModel model) {
+        return toAnalyzerResults(sourceRoot, createSpoonAnalyzer().analyzeModel(model));
+    }
+
+    /**
+     * Analyzes the project like {@link #analyze(Path)}, but passes every result to the sink as soon as it is found.
+     * The sink is never called concurrently, but it may be called from different threads.
+     * @param sourceRoot  the root folder of the project
+     * @param sink  the sink receiving the results
+     */
+    public void analyze(Path sourceRoot, Consumer<AnalyzerResult> sink) {
+        if (cache != null) {
+            List<Path> sourceRoots = findSourceRoots(sourceRoot);
+            analyzeWithCache(cache, sourceRoot, sourceRoots, findSourceFiles(sourceRoot, sourceRoots), sink);
+            return;
+        }
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        AtomicLong conversionNanos = new AtomicLong();
+        analyzer.analyze(
+                sourceRoot.toAbsolutePath().toString(), toAnalyzerResultSink(sourceRoot, sink, conversionNanos));
+        reportConversion(conversionNanos.get());
+    }
+
+    /**
+     * Analyzes the given source and test folders of a project like {@link #analyze(Path, Consumer)}. This allows the
+     * caller to find the folders with a {@link SourceRootFinder} that caches the layout of its projects.
+     * @param sourceRoot  the root folder of the project
+     * @param sourceRoots  the source and test folders of the project
+     * @param sink  the sink receiving the results
+     */
+    public void analyzeSourceRoots(Path sourceRoot, List<Path> sourceRoots, Consumer<AnalyzerResult> sink) {
+        if (cache != null) {
+            analyzeWithCache(cache, sourceRoot, sourceRoots, findSourceFiles(sourceRoot, sourceRoots), sink);
+            return;
+        }
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        AtomicLong conversionNanos = new AtomicLong();
+        analyzer.analyzeSourceRoots(
+                toAbsolutePaths(sourceRoot, sourceRoots), toAnalyzerResultSink(sourceRoot, sink, conversionNanos));
+        reportConversion(conversionNanos.get());
+    }
+
+    /**
+     * Analyzes only the given files like {@link #analyze(Path, Collection)}, but passes every result to the sink as
+     * soon as it is found.
+     * @param sourceRoot  the root folder of the project
+     * @param files  the java files to analyze, relative to the source root
+     * @param sink  the sink receiving the results
+     */
+    public void analyze(Path sourceRoot, Collection<Path> files, Consumer<AnalyzerResult> sink) {
+        if (cache != null) {
+            analyzeWithCache(cache, sourceRoot, findSourceRoots(sourceRoot), files, sink);
+            return;
+        }
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        AtomicLong conversionNanos = new AtomicLong();
+        analyzer.analyzeFiles(
+                toAbsolutePaths(sourceRoot, files), toAnalyzerResultSink(sourceRoot, sink, conversionNanos));
+        reportConversion(conversionNanos.get());
+    }
+
+    /**
+     * Analyzes the files changed since an earlier analysis in the model of the whole project, together with the files
+     * referencing their types. The results of the returned files replace the results of the earlier analysis, the
+     * results of all other files are still valid. The cache is not used, because the results of the dependent files
+     * change without a change of their content.
+     * @param sourceRoot  the root folder of the project
+     * @param sourceRoots  the source and test folders of the project
+     * @param changedFiles  the added or modified files, relative to the source root
+     * @param sink  the sink receiving the results
+     * @return  the analyzed files, relative to the source root
+     * @see SpoonAnalyzer#analyzeChangedFiles(List, Collection, BadSmellSink)
+     */
+    public Set<Path> analyzeChangedFiles(
+            Path sourceRoot, List<Path> sourceRoots, Collection<Path> changedFiles, Consumer<AnalyzerResult> sink) {
+        SpoonAnalyzer analyzer = createSpoonAnalyzer();
+        AtomicLong conversionNanos = new AtomicLong();
+        Path absoluteSourceRoot = sourceRoot.toAbsolutePath().normalize();
+        Set<Path> analyzedFiles = new HashSet<>();
+        analyzer.analyzeChangedFiles(
+                        toAbsolutePaths(sourceRoot, sourceRoots),
+                        toAbsolutePaths(sourceRoot, changedFiles),
+                        toAnalyzerResultSink(sourceRoot, sink, conversionNanos))
+                .forEach(v -> analyzedFiles.add(absoluteSourceRoot.relativize(v)));
+        reportConversion(conversionNanos.get());
+        return analyzedFiles;
+    }
+
+    private List<AnalyzerResult> analyzeWithCache(
+            AnalyzerResultCache cache, Path sourceRoot, List<Path> sourceRoots, Collection<Path> files) {
+        List<AnalyzerResult> results = new ArrayList<>();
+        analyzeWithCache(cache, sourceRoot, sourceRoots, files, results::add);
+        return results;
+    }
+
+    /**
+     * Analyzes the files without a cache entry and passes the cached results of all other files to the sink. The
+     * missed files are analyzed in the model of the whole project, together with the files referencing their types,
+     * because the results of a file depend on the types it uses. The cached results of these dependent files are
+     * replaced. The new results are kept until the analysis ends, because only then their cache entries are complete.
+     * Nothing is cached if a time budget was exceeded.
+     * <p>
+     * A cache entry only covers the content of its file and the types it references directly. The results of rules that
+     * are not type-local depend on more, e.g. on a supertype of a supertype, so they are not cached. These rules run on
+     * the cached files in every analysis, see {@link SpoonAnalyzer#getNonLocalRuleIds()}.
+     */
+    private void analyzeWithCache(
+            AnalyzerResultCache cache,
+            Path sourceRoot,
+            List<Path> sourceRoots,
+            Collection<Path> files,
+            Consumer<AnalyzerResult> sink) {
+        AtomicBoolean timedOut = new AtomicBoolean();
+        SpoonAnalyzer analyzer = createSpoonAnalyzer(new AnalysisListener() {
+            @Override
+            public void phaseFinished(String phase, Duration duration) {
+                listener.phaseFinished(phase, duration);
+            }
+
+            @Override
+            public void modelBuilt(int numberOfTypes) {
+                listener.modelBuilt(numberOfTypes);
+            }
+
+            @Override
+            public void analyzerFinished(String ruleId, Duration duration, int numberOfResults) {
+                listener.analyzerFinished(ruleId, duration, numberOfResults);
+            }
+
+            @Override
+            public void typeTimedOut(String qualifiedName, String ruleId, Duration budget) {
+                timedOut.set(true);
+                listener.typeTimedOut(qualifiedName, ruleId, budget);
+            }
+
+            @Override
+            public void projectTimedOut(Duration budget, int skippedTypes, int skippedBatches) {
+                timedOut.set(true);
+                listener.projectTimedOut(budget, skippedTypes, skippedBatches);
+            }
+        });
+        String analyzerSetVersion = analyzer.getAnalyzerSetVersion();
+        Set<String> nonLocalRuleIds = analyzer.getNonLocalRuleIds();
+        Map<String, String> keysByFile = new LinkedHashMap<>();
+        Map<String, List<AnalyzerResult>> cachedResultsByFile = new LinkedHashMap<>();
+        List<Path> missedFiles = new ArrayList<>();
+        List<Path> cachedFiles = new ArrayList<>();
+        Path absoluteSourceRoot = sourceRoot.toAbsolutePath().normalize();
+        for (Path file : files) {
+            Path absolutePath = absoluteSourceRoot.resolve(file).normalize();
+            if (!PathUtils.isSourceFile(absolutePath) || !Files.isRegularFile(absolutePath)) {
+                continue;
+            }
+            String filePath = absoluteSourceRoot.relativize(absolutePath).toString();
+            String key = AnalyzerResultCache.createKey(readContent(absolutePath), analyzerSetVersion);
+            keysByFile.put(filePath, key);
+            Optional<List<AnalyzerResult>> cachedResults = cache.get(key);
+            if (cachedResults.isPresent()) {
+                cachedResultsByFile.put(filePath, cachedResults.get());
+                cachedFiles.add(absolutePath);
+            } else {
+                missedFiles.add(absolutePath);
+            }
+        }
+        Set<String> analyzedFiles = new HashSet<>();
+        Map<String, List<AnalyzerResult>> newResultsByFile = new HashMap<>();
+        if (!missedFiles.isEmpty() || (!cachedFiles.isEmpty() && !nonLocalRuleIds.isEmpty())) {
+            AtomicLong conversionNanos = new AtomicLong();
+            analyzer.analyzeChangedFiles(
+                            toAbsolutePaths(sourceRoot, sourceRoots),
+                            missedFiles,
+                            cachedFiles,
+                            toAnalyzerResultSink(
+                                    sourceRoot,
+                                    result -> {
+                                        // dependent files outside of the requested files are not reported
+                                        if (keysByFile.containsKey(result.filePath())) {
+                                            newResultsByFile
+                                                    .computeIfAbsent(result.filePath(), v -> new ArrayList<>())
+                                                    .add(result);
+                                            sink.accept(result);
+                                        }
+                                    },
+                                    conversionNanos))
+                    .forEach(v ->
+                            analyzedFiles.add(absoluteSourceRoot.relativize(v).toString()));
+            reportConversion(conversionNanos.get());
+        }
+        cachedResultsByFile.forEach((filePath, results) -> {
+            if (!analyzedFiles.contains(filePath)) {
+                results.forEach(v -> sink.accept(withFilePath(v, filePath)));
+            }
+        });
+        if (timedOut.get()) {
+            return;
+        }
+        keysByFile.forEach((filePath, key) -> {
+            if (analyzedFiles.contains(filePath)) {
+                cache.put(
+                        key,
+                        newResultsByFile.getOrDefault(filePath, List.of()).stream()
+                                .filter(v ->
+                                        !nonLocalRuleIds.contains(v.ruleID().id()))
+                                .toList());
+            }
+        });
+    }
+
+    private SpoonAnalyzer createSpoonAnalyzer() {
+        return createSpoonAnalyzer(listener);
+    }
+
+    private SpoonAnalyzer createSpoonAnalyzer(AnalysisListener analysisListener) {
+        return new SpoonAnalyzer(
+                Runtime.getRuntime().availableProcessors(), analysisListener, maxFilesPerBatch, budget);
+    }
+
+    /**
+     * Converts the bad smells to results and passes them to the sink. Only the conversion is added to the given time,
+     * the sink itself may block until its consumer catches up.
+     */
+    private static BadSmellSink toAnalyzerResultSink(
+            Path sourceRoot, Consumer<AnalyzerResult> sink, AtomicLong conversionNanos) {
+        AnalyzerResultVisitor analyzerResultVisitor = new AnalyzerResultVisitor(sourceRoot);
+        return badSmells -> {
+            for (BadSmell badSmell : badSmells) {
+                long start = System.nanoTime();
+                Optional<AnalyzerResult> result = analyzerResultVisitor.toAnalyzerResult(badSmell);
+                conversionNanos.addAndGet(System.nanoTime() - start);
+                result.ifPresent(sink);
+            }
+        };
+    }
+
+    private void reportConversion(long nanos) {
+        listener.phaseFinished(AnalysisListener.PHASE_CONVERSION, Duration.ofNanos(nanos));
+    }
+
+    private static List<Path> findSourceRoots(Path sourceRoot) {
+        return new SourceRootFinder().findSourceRoots(sourceRoot);
+    }
+
+    /**
+     * Returns the java files in the given source folders, relative to the source root.
+     */
+    private static List<Path> findSourceFiles(Path sourceRoot, List<Path> sourceRoots) {
+        List<Path> sourceFiles = new ArrayList<>();
+        for (Path folder : sourceRoots) {
+            try (Stream<Path> files = Files.walk(sourceRoot.resolve(folder))) {
+                files.filter(PathUtils::isSourceFile)
+                        .map(v -> sourceRoot.relativize(v))
+                        .forEach(sourceFiles::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return sourceFiles;
+    }
+
+    private static byte[] readContent(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> toAbsolutePaths(Path sourceRoot, Collection<Path> files) {
+        return files.stream().map(v -> sourceRoot.resolve(v).toAbsolutePath()).toList();
+    }
+
+    private static AnalyzerResult withFilePath(AnalyzerResult result, String filePath) {
+        return new SpoonAnalyzerResult(
+                result.ruleID(),
+                filePath,
+                result.position(),
+                result.message(),
+                result.messageMarkdown(),
+                result.snippet());
+    }
+
+    private List<AnalyzerResult> toAnalyzerResults(Path sourceRoot, List<BadSmell> badSmells) {
+        long start = System.nanoTime();
         AnalyzerResultVisitor analyzerResultVisitor = new AnalyzerResultVisitor(sourceRoot);
-        List<BadSmell> analyze = analyzer.analyze(sourceRoot.toAbsolutePath().toString());
-        return analyze.stream()
+        List<AnalyzerResult> results = badSmells.stream()
                 .map(analyzerResultVisitor::toAnalyzerResult)
                 .filter(v -> v.isPresent())
                 .map(v -> v.get())
                 .toList();
+        reportConversion(System.nanoTime() - start);
+        return results;
     }
 }
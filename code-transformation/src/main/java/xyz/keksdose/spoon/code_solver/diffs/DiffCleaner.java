@@ -1,33 +1,36 @@
 package xyz.keksdose.spoon.code_solver.diffs;
 
-import com.google.common.collect.Iterators;
-import com.google.common.collect.PeekingIterator;
+import com.github.difflib.DiffUtils;
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.ChangeDelta;
+import com.github.difflib.patch.Patch;
 import com.google.common.flogger.FluentLogger;
-import java.io.ByteArrayOutputStream;
+import com.google.errorprone.annotations.Var;
+import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffFormatter;
-import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import xyz.keksdose.spoon.code_solver.history.Change;
 
 /**
  * This class cleans the diff of a change. This means that the diff is cleaned from changes like whitespace changes.
- * Under the hood it uses the git diff command.
+ * The diff is computed in memory between the file content at {@code HEAD} and the file in the working tree, the
+ * repository itself is only read.
  */
 public class DiffCleaner {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
@@ -35,113 +38,148 @@ public class DiffCleaner {
     /**
      * Cleans the diff of a change. This means that the diff is cleaned from changes like whitespace changes.
      * It requires the path to the repository and the change.
-     * <b>Warning:</b> This method changes the git repository.
-     * <p>
-     * For each change the diff is cleaned according to the set modes.
      * @param path the path to the git repository
      * @param change the change
+     * @see #clean(Path, Collection)
      */
     public void clean(Path path, Change change) {
-        OutputStream out = new ByteArrayOutputStream();
+        clean(path, List.of(change));
+    }
 
+    /**
+     * Cleans the diffs of all changed files in one pass. The repository is opened once and every changed file is
+     * compared line by line with its content at {@code HEAD}, no commit is created.
+     * <p>
+     * A file is cleaned according to the modes of its changes and written back at most once. Files without a mode or
+     * without a version at {@code HEAD} are left untouched.
+     * @param path the path to the git repository
+     * @param changes the changes, several changes of the same file are cleaned together
+     */
+    public void clean(Path path, Collection<Change> changes) {
         try (Git git = Git.open(path.toFile());
-                ObjectReader reader = git.getRepository().newObjectReader();
-                DiffFormatter df = new DiffFormatter(out)) {
-            // get the path to the file in the repository and the line endings
-            String shortPath = getRelativeRepoPath(change, git);
-            String lineEnding = detectLineSeparator(Files.readString(
-                    change.getAffectedType().getPosition().getFile().toPath()));
-            boolean hasLineEnding = fileHasLineEnding(git, shortPath);
-            Path filePath = path.resolve(shortPath);
-
-            // prepare the two iterators to compute the diff between
-            CanonicalTreeParser oldTreeIter = new CanonicalTreeParser();
-            oldTreeIter.reset(reader, getLastCommit(git));
-            CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
-            var fakeCommit = createFakeCommit(git, shortPath);
-            newTreeIter.reset(reader, fakeCommit);
-
-            // finally get the list of changed files
-            List<DiffEntry> diffs =
-                    git.diff().setNewTree(newTreeIter).setOldTree(oldTreeIter).call();
-            setDiffFormaterSettings(git, df);
-            createDiffs(df, diffs);
-            PeekingIterator<String> it =
-                    Iterators.peekingIterator(out.toString().lines().toList().iterator());
-
-            while (it.hasNext()) {
-                String line = it.next();
-                if (isDeletedLines(line)) {
-                    var next = it.peek();
-                    if (isAddedLine(next)) {
-                        GitLineChange lineChange = new GitLineChange(
-                                out.toString().lines().toList().indexOf(next.substring(2)),
-                                line.substring(1),
-                                next.substring(1));
-                        if (change.getModes().contains(DiffCleanModes.NO_WHITESPACE_ADD)) {
-                            String cleanResult = new ExtraWhiteSpaceCleaner()
-                                    .clean(Files.readString(filePath), lineChange, change, lineEnding);
-                            printResult(filePath, cleanResult, hasLineEnding, lineEnding);
-                        }
-                    }
-                }
+                ObjectReader reader = git.getRepository().newObjectReader()) {
+            Path workTree = git.getRepository().getWorkTree().toPath();
+            Map<String, List<Change>> changesByPath = groupByRepoPath(workTree, changes);
+            if (changesByPath.isEmpty()) {
+                return;
             }
-            git.reset().setRef("HEAD~1").call();
+            Map<String, ObjectId> headBlobs = findHeadBlobs(git.getRepository(), reader, changesByPath.keySet());
+            changesByPath.forEach((shortPath, fileChanges) -> {
+                ObjectId blobId = headBlobs.get(shortPath);
+                if (blobId == null) {
+                    logger.atInfo().log("%s is not in HEAD, nothing to clean", shortPath);
+                    return;
+                }
+                try {
+                    cleanFile(workTree.resolve(shortPath), reader, blobId, fileChanges);
+                } catch (IOException e) {
+                    logger.atSevere().withCause(e).log("could not clean %s", shortPath);
+                }
+            });
         } catch (Exception e) {
             logger.atSevere().withCause(e).log("could not clean because not a git repo");
         }
     }
 
-    private boolean isAddedLine(String next) {
-        return next.startsWith("+ ");
-    }
-
-    private boolean isDeletedLines(String line) {
-        return line.startsWith("- ") && !line.startsWith("---");
-    }
-
-    private void printResult(Path filePath, String cleanResult, boolean hasLineEnding, String lineEnding)
+    private void cleanFile(Path filePath, ObjectReader reader, ObjectId blobId, List<Change> fileChanges)
             throws IOException {
-        if (hasLineEnding) {
-            cleanResult += lineEnding;
+        if (!hasCleanMode(fileChanges)) {
+            return;
         }
-        Files.writeString(filePath, cleanResult);
+        String oldContent = new String(reader.open(blobId).getBytes(), StandardCharsets.UTF_8);
+        Files.writeString(filePath, clean(oldContent, Files.readString(filePath), fileChanges));
     }
 
-    private void createDiffs(DiffFormatter df, List<DiffEntry> diffs) {
-        diffs.forEach(v -> {
-            try {
-                df.format(v);
-            } catch (IOException e) {
-                logger.atSevere().withCause(e).log("could not format diff");
-            }
-        });
+    /**
+     * Cleans the diff of a file in memory, e.g. of a file printed in a dry run. The file system is not touched.
+     * @param oldContent the content of the file at {@code HEAD}
+     * @param newContent the changed content of the file
+     * @param changes the changes of the file, the file is cleaned according to their modes
+     * @return the cleaned content, or the new content if no change has a mode
+     */
+    public String clean(String oldContent, String newContent, Collection<? extends Change> changes) {
+        if (!hasCleanMode(changes)) {
+            return newContent;
+        }
+        String lineEnding = detectLineSeparator(newContent);
+        @Var String cleanResult = newContent;
+        ExtraWhiteSpaceCleaner cleaner = new ExtraWhiteSpaceCleaner();
+        Change change = changes.iterator().next();
+        for (GitLineChange lineChange : computeLineChanges(oldContent, newContent)) {
+            // the change is only passed on to the cleaner, every change of this file has the same line changes
+            cleanResult = cleaner.clean(cleanResult, lineChange, change, lineEnding);
+        }
+        if (oldContent.endsWith("\n")) {
+            cleanResult += lineEnding;
+        }
+        return cleanResult;
     }
 
-    private void setDiffFormaterSettings(Git git, DiffFormatter df) {
-        df.setContext(0);
-        df.setRepository(git.getRepository());
+    private boolean hasCleanMode(Collection<? extends Change> changes) {
+        return changes.stream().anyMatch(v -> v.getModes().contains(DiffCleanModes.NO_WHITESPACE_ADD));
     }
 
-    private String getRelativeRepoPath(Change change, Git git) {
-        return git.getRepository()
-                .getWorkTree()
-                .toPath()
-                .relativize(change.getAffectedType()
-                        .getPosition()
-                        .getCompilationUnit()
-                        .getFile()
-                        .toPath())
-                .toString();
+    /**
+     * Computes the changed lines between two file contents, like a diff without context. The removed and added lines of
+     * a changed block are paired in order, the remaining lines of the larger side are pure additions or deletions.
+     */
+    private List<GitLineChange> computeLineChanges(String oldContent, String newContent) {
+        List<String> newLines = newContent.lines().toList();
+        Patch<String> patch = DiffUtils.diff(oldContent.lines().toList(), newLines);
+        List<GitLineChange> lineChanges = new ArrayList<>();
+        for (AbstractDelta<String> delta : patch.getDeltas()) {
+            if (delta instanceof ChangeDelta<String> changeDelta) {
+                List<String> removedLines = changeDelta.getSource().getLines();
+                List<String> addedLines = changeDelta.getTarget().getLines();
+                for (int i = 0; i < Math.min(removedLines.size(), addedLines.size()); i++) {
+                    int lineNumber = changeDelta.getTarget().getPosition() + i + 1;
+                    lineChanges.add(new GitLineChange(lineNumber, removedLines.get(i), addedLines.get(i)));
+                }
+            }
+        }
+        return lineChanges;
     }
 
-    private AnyObjectId getLastCommit(Git git) throws GitAPIException {
-        return git.log().setMaxCount(1).call().iterator().next().getTree().getId();
+    private Map<String, List<Change>> groupByRepoPath(Path workTree, Collection<Change> changes) {
+        Map<String, List<Change>> changesByPath = new LinkedHashMap<>();
+        for (Change change : changes) {
+            var compilationUnit = change.getAffectedType().getPosition().getCompilationUnit();
+            if (compilationUnit == null || compilationUnit.getFile() == null) {
+                continue;
+            }
+            Path file = compilationUnit.getFile().toPath().toAbsolutePath();
+            if (!file.startsWith(workTree)) {
+                logger.atWarning().log("%s is not in the repository %s", file, workTree);
+                continue;
+            }
+            // git paths always use '/' as separator
+            String shortPath = workTree.relativize(file).toString().replace(File.separatorChar, '/');
+            changesByPath.computeIfAbsent(shortPath, k -> new ArrayList<>()).add(change);
+        }
+        return changesByPath;
     }
 
-    private RevTree createFakeCommit(Git git, String shortPath) throws GitAPIException {
-        git.add().addFilepattern(shortPath).call();
-        return git.commit().setSign(false).setMessage("fake commit").call().getTree();
+    /**
+     * Finds the blobs of the given paths at {@code HEAD} with a single walk over the tree.
+     */
+    private Map<String, ObjectId> findHeadBlobs(Repository repository, ObjectReader reader, Collection<String> paths)
+            throws IOException {
+        Map<String, ObjectId> blobs = new HashMap<>();
+        ObjectId head = repository.resolve("HEAD");
+        if (head == null) {
+            return blobs;
+        }
+        try (RevWalk revWalk = new RevWalk(reader);
+                TreeWalk treeWalk = new TreeWalk(reader)) {
+            RevTree tree = revWalk.parseCommit(head).getTree();
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
+            while (treeWalk.next()) {
+                blobs.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+            }
+        }
+        return blobs;
     }
 
     private static final String CR = "\r";
@@ -170,37 +208,4 @@ public class DiffCleaner {
         }
         return System.getProperty("line.separator");
     }
-    /**
-     * Gets the content of a file at a specific commit.
-     * @param git   the git repository
-     * @param commit  the commit to get the content from
-     * @param path  the path to the file
-     * @return  the content of the file
-     * @throws IOException  if the file could not be read
-     */
-    private String getContent(Git git, RevCommit commit, String path) throws IOException {
-        try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), path, commit.getTree())) {
-            ObjectId blobId = treeWalk.getObjectId(0);
-            try (ObjectReader objectReader = git.getRepository().newObjectReader()) {
-                ObjectLoader objectLoader = objectReader.open(blobId);
-                byte[] bytes = objectLoader.getBytes();
-                return new String(bytes, StandardCharsets.UTF_8);
-            }
-        }
-    }
-    /**
-     * Checks if the file has a line ending at the end of the file.
-     * @param git   the git repository
-     * @param filePath  the path to the file
-     * @return  true if the file has a line ending at the end of the file
-     */
-    private boolean fileHasLineEnding(Git git, String filePath) {
-        try (RevWalk revWalk = new RevWalk(git.getRepository())) {
-            RevCommit commit = revWalk.parseCommit(git.getRepository().resolve("HEAD~1"));
-            return getContent(git, commit, filePath).endsWith("\n");
-        } catch (IOException e) {
-            logger.atSevere().withCause(e).log("could not get content");
-            return false;
-        }
-    }
 }
@@ -2,44 +2,61 @@ package xyz.keksdose.spoon.code_solver.history;
 
 import com.google.common.flogger.FluentLogger;
 import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.analyzer.PositionIndex;
 
+/**
+ * Collects the changes of the transformations and the changed types. All methods are thread-safe, so the
+ * transformations of a type can report changes from any thread.
+ */
 public class ChangeListener {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
     private boolean changed;
     private Set<CtType<?>> changedTypes = new HashSet<>();
+    private Set<CtType<?>> changedTypesSinceReset = new LinkedHashSet<>();
     private Changelog changelog = new Changelog();
 
-    public boolean isChanged() {
+    public synchronized boolean isChanged() {
         return changed;
     }
 
-    public void reset() {
+    public synchronized void reset() {
         changed = false;
+        changedTypesSinceReset.clear();
     }
 
-    public void setChanged(CtType<?> changedType, Change change) {
+    public synchronized void setChanged(CtType<?> changedType, Change change) {
         logger.atInfo().log("Type %s changed", changedType.getQualifiedName());
         changed = true;
         changedTypes.add(changedType);
+        changedTypesSinceReset.add(changedType);
         changelog.addChange(change);
+        PositionIndex.invalidate(changedType);
     }
 
-    public boolean isChanged(CtType<?> type) {
+    public synchronized boolean isChanged(CtType<?> type) {
         return changedTypes.contains(type);
     }
+
+    /**
+     * Returns the types changed since the last {@link #reset()}, in the order of their first change.
+     * @return  an unmodifiable copy of the changed types
+     */
+    public synchronized Set<CtType<?>> getChangedTypesSinceReset() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(changedTypesSinceReset));
+    }
     /**
      * Checks if the result is already fixed in the changelog.
      * @param result the analyzer result to check
      * @return  true iff the result is already fixed.
      */
     public boolean isFixed(AnalyzerResult result) {
-        return changelog.getChanges().stream()
-                .filter(v -> v.getAnalyzerResult() != null)
-                .anyMatch(v -> v.getAnalyzerResult().equals(result));
+        return changelog.isFixed(result);
     }
 
     /**
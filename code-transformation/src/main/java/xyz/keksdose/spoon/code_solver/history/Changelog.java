@@ -1,21 +1,111 @@
 package xyz.keksdose.spoon.code_solver.history;
 
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.transformations.BadSmell;
 
+/**
+ * The changes of a transformation run, in the order they were made.
+ * <p>
+ * The changes are indexed by their fixed analyzer result, their affected type and their bad smell, so
+ * {@link #isFixed(AnalyzerResult)}, {@link #getChangesForType(CtType)} and {@link #getChangesForBadSmell(BadSmell)}
+ * take constant time. The indexes follow every change of the list returned by {@link #getChanges()}.
+ * <p>
+ * All methods are thread-safe. Like a {@link java.util.Collections#synchronizedList(List) synchronized list}, the list
+ * returned by {@link #getChanges()} must be iterated while holding the lock of the changelog if other threads add
+ * changes.
+ */
 public class Changelog {
 
-    private List<Change> changes = new ArrayList<>();
+    private final List<Change> changes = new ArrayList<>();
+    private final List<Change> changesView = new IndexedChanges();
+    private final Map<AnalyzerResult, List<Change>> changesByResult = new HashMap<>();
+    private final Map<CtType<?>, List<Change>> changesByType = new IdentityHashMap<>();
+    private final Map<BadSmell, List<Change>> changesByBadSmell = new HashMap<>();
 
-    public void addChange(Change change) {
-        changes.add(change);
+    public synchronized void addChange(Change change) {
+        changesView.add(change);
     }
 
     /**
-     * @return the changes
+     * @return the changes, changing this list changes the changelog
      */
     public List<Change> getChanges() {
-        return changes;
+        return changesView;
+    }
+
+    /**
+     * Checks if a change fixed the given analyzer result.
+     * @param result  the analyzer result to check
+     * @return  true iff a change has an equal analyzer result
+     */
+    public synchronized boolean isFixed(AnalyzerResult result) {
+        return changesByResult.containsKey(result);
+    }
+
+    /**
+     * Returns the changes of the given type, in the order they were added.
+     * @param type  the changed type, a nested type is resolved to its top-level type like in {@link Change}
+     * @return  a copy of the changes of the type, empty if it is unchanged
+     */
+    public synchronized List<Change> getChangesForType(CtType<?> type) {
+        return List.copyOf(changesByType.getOrDefault(type.getTopLevelType(), List.of()));
+    }
+
+    /**
+     * Returns the changes fixing the given bad smell, in the order they were added.
+     * @param badSmell  the fixed bad smell
+     * @return  a copy of the changes of the bad smell, empty if it is not fixed
+     */
+    public synchronized List<Change> getChangesForBadSmell(BadSmell badSmell) {
+        return List.copyOf(changesByBadSmell.getOrDefault(badSmell, List.of()));
+    }
+
+    private void index(Change change) {
+        if (change.getAnalyzerResult() != null) {
+            changesByResult
+                    .computeIfAbsent(change.getAnalyzerResult(), k -> new ArrayList<>())
+                    .add(change);
+        }
+        changesByType
+                .computeIfAbsent(change.getAffectedType(), k -> new ArrayList<>())
+                .add(change);
+        changesByBadSmell
+                .computeIfAbsent(change.getBadSmell(), k -> new ArrayList<>())
+                .add(change);
+    }
+
+    private void unindex(Change change) {
+        if (change.getAnalyzerResult() != null) {
+            removeFromIndex(changesByResult, change.getAnalyzerResult(), change);
+        }
+        removeFromIndex(changesByType, change.getAffectedType(), change);
+        removeFromIndex(changesByBadSmell, change.getBadSmell(), change);
+    }
+
+    private static <K> void removeFromIndex(Map<K, List<Change>> index, K key, Change change) {
+        List<Change> indexedChanges = index.get(key);
+        if (indexedChanges == null) {
+            return;
+        }
+        // remove a single entry by identity, equal or even the same changes can be in the changelog more than once
+        for (Iterator<Change> iterator = indexedChanges.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() == change) {
+                iterator.remove();
+                break;
+            }
+        }
+        if (indexedChanges.isEmpty()) {
+            index.remove(key);
+        }
     }
 
     /* (non-Javadoc)
@@ -23,7 +113,7 @@ public class Changelog {
      */
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append("The following has changed in the code:\n");
         for (Change change : changes) {
@@ -31,4 +121,53 @@ public class Changelog {
         }
         return builder.toString();
     }
+
+    /**
+     * The modifiable view of the changes, updating the indexes on every modification.
+     */
+    private class IndexedChanges extends AbstractList<Change> implements RandomAccess {
+
+        @Override
+        public Change get(int index) {
+            synchronized (Changelog.this) {
+                return changes.get(index);
+            }
+        }
+
+        @Override
+        public int size() {
+            synchronized (Changelog.this) {
+                return changes.size();
+            }
+        }
+
+        @Override
+        public Change set(int index, Change change) {
+            synchronized (Changelog.this) {
+                Change old = changes.set(index, change);
+                unindex(old);
+                index(change);
+                return old;
+            }
+        }
+
+        @Override
+        public void add(int index, Change change) {
+            synchronized (Changelog.this) {
+                changes.add(index, change);
+                index(change);
+                modCount++;
+            }
+        }
+
+        @Override
+        public Change remove(int index) {
+            synchronized (Changelog.this) {
+                Change old = changes.remove(index);
+                unindex(old);
+                modCount++;
+                return old;
+            }
+        }
+    }
 }
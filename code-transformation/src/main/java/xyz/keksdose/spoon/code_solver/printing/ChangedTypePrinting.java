@@ -1,30 +1,114 @@
 package xyz.keksdose.spoon.code_solver.printing;
 
 import com.google.common.flogger.FluentLogger;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.visitor.PrettyPrinter;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
 
+/**
+ * Prints the compilation units of all changed types back to their files.
+ * <p>
+ * Every changed unit is printed and written exactly once, even if several of its types changed. The units are printed
+ * one after another on the calling thread, because the printers and their import preprocessors resolve types and
+ * compute imports in the shared model and factory.
+ * <p>
+ * A file is written to a temporary file in its own folder first and then atomically moved over the original, so a
+ * failed write never leaves a truncated source file.
+ */
 public class ChangedTypePrinting implements IPrinting {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
-    private PrettyPrinter prettyPrinter;
+    private final Supplier<PrettyPrinter> printerCreator;
 
+    /**
+     * Creates a printing that prints all units with the given printer.
+     * @param prettyPrinter  the printer for all units
+     */
     public ChangedTypePrinting(PrettyPrinter prettyPrinter) {
-        this.prettyPrinter = prettyPrinter;
+        this(() -> prettyPrinter);
     }
 
+    /**
+     * Creates a printing that prints all units of a call with one printer of the given creator.
+     * @param printerCreator  creates the printer, e.g. {@link spoon.compiler.Environment#createPrettyPrinter()}
+     */
+    public ChangedTypePrinting(Supplier<PrettyPrinter> printerCreator) {
+        this.printerCreator = printerCreator;
+    }
+
+    @Override
     public void printChangedTypes(ChangeListener listener, Iterable<CtType<?>> newTypes) {
+        PrettyPrinter printer = printerCreator.get();
+        getChangedUnits(listener, newTypes).forEach(unit -> print(printer, unit));
+    }
+
+    /**
+     * Collects the units of the changed types, each unit once and in the order of the types.
+     */
+    private Collection<CtCompilationUnit> getChangedUnits(ChangeListener listener, Iterable<CtType<?>> newTypes) {
+        Map<File, CtCompilationUnit> units = new LinkedHashMap<>();
         for (CtType<?> type : newTypes) {
             if (type.getPosition().getFile() == null || !listener.isChanged(type)) {
                 continue;
             }
-            try {
-                logger.atInfo().log("Writing file %s", type.getQualifiedName());
-                Files.writeString(type.getPosition().getFile().toPath(), prettyPrinter.printTypes(type));
-            } catch (Throwable e) {
-                logger.atSevere().withCause(e).log("Could not write file %s", type.getQualifiedName());
+            CtCompilationUnit unit = type.getPosition().getCompilationUnit();
+            units.putIfAbsent(unit.getFile(), unit);
+        }
+        return units.values();
+    }
+
+    private void print(PrettyPrinter printer, CtCompilationUnit unit) {
+        Path file = unit.getFile().toPath();
+        try {
+            write(unit, file, printer.printCompilationUnit(unit));
+        } catch (Throwable e) {
+            logger.atSevere().withCause(e).log("Could not write file %s", file);
+        }
+    }
+
+    /**
+     * Writes the printed content of a unit.
+     * @param unit  the printed unit
+     * @param file  the file of the unit
+     * @param content  the printed content of the unit
+     * @throws IOException  if the content could not be written
+     */
+    protected void write(CtCompilationUnit unit, Path file, String content) throws IOException {
+        logger.atInfo().log("Writing file %s", file);
+        writeAtomically(file, content);
+    }
+
+    private void writeAtomically(Path file, String content) throws IOException {
+        Path tempFile = Files.createTempFile(
+                file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            if (Files.exists(file)) {
+                copyPermissions(file, tempFile);
             }
+            Files.writeString(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Temporary files are only readable by their owner, the written file keeps the permissions of the original.
+     */
+    private void copyPermissions(Path source, Path target) throws IOException {
+        try {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        } catch (UnsupportedOperationException e) {
+            // not a posix file system, the temporary file has the default permissions
         }
     }
 }
@@ -11,7 +11,15 @@ public class EnvironmentOptions {
     }
 
     public static Environment setEnvironmentOptions(Launcher launcher) {
-        Environment environment = launcher.getEnvironment();
+        return setEnvironmentOptions(launcher.getEnvironment());
+    }
+
+    /**
+     * Sets the options of the transformations on an existing environment, e.g. of a model loaded from a snapshot.
+     * @param environment  the environment to change
+     * @return  the given environment
+     */
+    public static Environment setEnvironmentOptions(Environment environment) {
         environment.setIgnoreDuplicateDeclarations(true);
         environment.setIgnoreSyntaxErrors(true);
         environment.setNoClasspath(true);
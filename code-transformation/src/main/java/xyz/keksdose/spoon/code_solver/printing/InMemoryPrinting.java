@@ -0,0 +1,67 @@
+package xyz.keksdose.spoon.code_solver.printing;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.UnifiedDiffUtils;
+import com.github.difflib.patch.Patch;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.visitor.PrettyPrinter;
+
+/**
+ * A dry run of {@link ChangedTypePrinting}. The changed units are printed like before, but instead of writing them the
+ * printed content and a unified diff are kept in memory. The file system is never written.
+ * <p>
+ * Files whose printed content equals their original source are left out.
+ */
+public class InMemoryPrinting extends ChangedTypePrinting {
+
+    private static final int DIFF_CONTEXT_LINES = 3;
+
+    private final Path root;
+    private final Map<Path, PrintedFile> printedFiles = new HashMap<>();
+
+    /**
+     * Creates a dry run printing the units on the calling thread.
+     * @param printerCreator  creates the printer for all units of a call, e.g.
+     *     {@link spoon.compiler.Environment#createPrettyPrinter()}
+     * @param root  the root the file names in the diffs are relative to
+     */
+    public InMemoryPrinting(Supplier<PrettyPrinter> printerCreator, Path root) {
+        super(printerCreator);
+        this.root = root.toAbsolutePath();
+    }
+
+    @Override
+    protected void write(CtCompilationUnit unit, Path file, String content) {
+        String oldContent = unit.getOriginalSourceCode();
+        if (oldContent.equals(content)) {
+            return;
+        }
+        printedFiles.put(file, new PrintedFile(file, oldContent, content, createDiff(file, oldContent, content)));
+    }
+
+    /**
+     * Returns the printed files of all runs of this printing.
+     * @return  the printed files by the path of their compilation unit, sorted by path
+     */
+    public SortedMap<Path, PrintedFile> getPrintedFiles() {
+        return new TreeMap<>(printedFiles);
+    }
+
+    private String createDiff(Path file, String oldContent, String newContent) {
+        // the files of sources in memory have relative paths, they are used as they are
+        Path relativeFile = file.isAbsolute() && file.startsWith(root) ? root.relativize(file) : file;
+        String name = relativeFile.toString().replace('\\', '/');
+        List<String> oldLines = oldContent.lines().toList();
+        Patch<String> patch = DiffUtils.diff(oldLines, newContent.lines().toList());
+        List<String> diff =
+                UnifiedDiffUtils.generateUnifiedDiff("a/" + name, "b/" + name, oldLines, patch, DIFF_CONTEXT_LINES);
+        return String.join("\n", diff) + "\n";
+    }
+}
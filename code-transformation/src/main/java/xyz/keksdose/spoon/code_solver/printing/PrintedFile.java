@@ -0,0 +1,11 @@
+package xyz.keksdose.spoon.code_solver.printing;
+
+import java.nio.file.Path;
+
+/**
+ * The printed content of a changed file, without writing it.
+ * Old content is the source of the file the model was built from.
+ * New content is the printed content of the changed model.
+ * Diff is the unified diff from the old to the new content.
+ */
+public record PrintedFile(Path file, String oldContent, String newContent, String diff) {}
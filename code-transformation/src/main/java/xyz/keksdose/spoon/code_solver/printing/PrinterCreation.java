@@ -26,12 +26,13 @@ public class PrinterCreation {
     private static Supplier<PrettyPrinter> applyCommonPrinterOptions(
             Supplier<? extends DefaultJavaPrettyPrinter> prettyPrinterCreator, CtModel model) {
         Collection<CtTypeReference<?>> existingReferences = model.getElements(e -> true);
-        List<Processor<CtElement>> preprocessors = List.of( // new ImportCleaning()
-                new SelectiveForceImport(existingReferences), new ImportConflictDetector()
-                // new ImportGrouper(new SpoonStyle())
-                // )
-                );
         return () -> {
+            // the import processors keep the state of their current scan, so every printer needs its own
+            List<Processor<CtElement>> preprocessors = List.of( // new ImportCleaning()
+                    new SelectiveForceImport(existingReferences), new ImportConflictDetector()
+                    // new ImportGrouper(new SpoonStyle())
+                    // )
+                    );
             DefaultJavaPrettyPrinter printer = prettyPrinterCreator.get();
             printer.setIgnoreImplicit(false);
             printer.setPreprocessors(preprocessors);
@@ -0,0 +1,95 @@
+package xyz.keksdose.spoon.code_solver.spoon;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.Launcher;
+import spoon.reflect.cu.CompilationUnit;
+import spoon.reflect.factory.FactoryImpl;
+import spoon.support.DefaultCoreFactory;
+import spoon.support.StandardEnvironment;
+import spoon.support.compiler.VirtualFile;
+import spoon.support.reflect.cu.CompilationUnitImpl;
+
+/**
+ * Java sources held in memory, e.g. blobs read from a git object store or the payload of a webhook.
+ * <p>
+ * Spoon reads the original source of a compilation unit from its file, which does not exist for a
+ * {@link VirtualFile}. The units of a model built by {@link #createLauncher()} answer with the source in memory
+ * instead, so the model can be printed by the sniper printer without any file.
+ */
+public final class InMemorySources {
+
+    private final Map<String, String> sources;
+
+    private InMemorySources(Map<String, String> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Creates the sources from their contents.
+     * @param sources  the content of every java file by its path, e.g. {@code src/main/java/foo/A.java}
+     * @return  the sources, sorted by path
+     */
+    public static InMemorySources of(Map<String, ? extends CharSequence> sources) {
+        Map<String, String> normalizedSources = new TreeMap<>();
+        // the units know their file only as a File, so the paths are compared in the same form
+        sources.forEach((path, content) -> normalizedSources.put(new File(path).getPath(), content.toString()));
+        return new InMemorySources(normalizedSources);
+    }
+
+    /**
+     * Creates a launcher with all sources as input. The model is not built yet, so the environment can be changed.
+     * @return  a new launcher of the sources
+     */
+    public Launcher createLauncher() {
+        Launcher launcher = new Launcher(new FactoryImpl(new InMemoryCoreFactory(this), new StandardEnvironment()));
+        sources.forEach((path, content) -> launcher.addInputResource(new VirtualFile(content, path)));
+        return launcher;
+    }
+
+    /**
+     * @return  the number of sources
+     */
+    public int size() {
+        return sources.size();
+    }
+
+    private @Nullable String getSource(@Nullable File file) {
+        return file == null ? null : sources.get(file.getPath());
+    }
+
+    private static class InMemoryCoreFactory extends DefaultCoreFactory {
+
+        private static final long serialVersionUID = 1L;
+        private final InMemorySources sources;
+
+        InMemoryCoreFactory(InMemorySources sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public CompilationUnit createCompilationUnit() {
+            CompilationUnit unit = new InMemoryCompilationUnit(sources);
+            unit.setFactory(getMainFactory());
+            return unit;
+        }
+    }
+
+    private static class InMemoryCompilationUnit extends CompilationUnitImpl {
+
+        private static final long serialVersionUID = 1L;
+        private final InMemorySources sources;
+
+        InMemoryCompilationUnit(InMemorySources sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public String getOriginalSourceCode() {
+            String source = sources.getSource(getFile());
+            return source == null ? super.getOriginalSourceCode() : source;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package xyz.keksdose.spoon.code_solver.transformations;
+
+import com.google.errorprone.annotations.Var;
+import java.util.HashSet;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.declaration.CtCompilationUnit;
+
+/**
+ * A cheap summary of a compilation unit for {@link TransformationProcessor#isApplicable(CtCompilationUnit)}. It holds
+ * every identifier of the original source code, including the parts of qualified names, comments and strings. This
+ * is enough to rule out that a unit references a type or package without resolving anything.
+ * <p>
+ * The summary is computed once per unit and kept in its metadata. It describes the original source code, so a
+ * processor may only rule out a unit for identifiers no other transformation adds.
+ */
+public final class CompilationUnitSummary {
+
+    private static final String METADATA_KEY = CompilationUnitSummary.class.getName();
+
+    private final @Nullable Set<String> identifiers;
+
+    private CompilationUnitSummary(@Nullable Set<String> identifiers) {
+        this.identifiers = identifiers;
+    }
+
+    /**
+     * Returns the summary of the given compilation unit.
+     * @param unit  the compilation unit
+     * @return  the cached summary, or a new one if the unit was not summarized yet
+     */
+    public static CompilationUnitSummary of(CtCompilationUnit unit) {
+        if (unit.getMetadata(METADATA_KEY) instanceof CompilationUnitSummary summary) {
+            return summary;
+        }
+        CompilationUnitSummary summary = new CompilationUnitSummary(readIdentifiers(unit));
+        unit.putMetadata(METADATA_KEY, summary);
+        return summary;
+    }
+
+    /**
+     * Checks if the original source code contains the given identifier. Without source code, e.g. for units built from
+     * a virtual file, every identifier is assumed to be contained.
+     * @param identifier  a simple name or a single part of a qualified name, e.g. {@code junit}
+     * @return  false if the identifier is not in the source code, true if it is or the source code is unknown
+     */
+    public boolean containsIdentifier(String identifier) {
+        return identifiers == null || identifiers.contains(identifier);
+    }
+
+    private static @Nullable Set<String> readIdentifiers(CtCompilationUnit unit) {
+        String sourceCode;
+        try {
+            sourceCode = unit.getOriginalSourceCode();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (sourceCode == null) {
+            return null;
+        }
+        Set<String> identifiers = new HashSet<>();
+        int length = sourceCode.length();
+        @Var int i = 0;
+        while (i < length) {
+            if (Character.isJavaIdentifierStart(sourceCode.charAt(i))) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(sourceCode.charAt(i))) {
+                    i++;
+                }
+                identifiers.add(sourceCode.substring(start, i));
+            } else {
+                i++;
+            }
+        }
+        return identifiers;
+    }
+}
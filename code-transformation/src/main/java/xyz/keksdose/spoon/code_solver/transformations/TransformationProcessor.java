@@ -2,6 +2,7 @@ package xyz.keksdose.spoon.code_solver.transformations;
 
 import java.util.List;
 import spoon.processing.AbstractProcessor;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtType;
 import xyz.keksdose.spoon.code_solver.history.Change;
@@ -22,4 +23,15 @@ public abstract class TransformationProcessor<T extends CtElement> extends Abstr
     public List<BadSmell> getHandledBadSmells() {
         return List.of();
     }
+
+    /**
+     * Checks cheaply if this processor may change anything in the given compilation unit. The processing manager does
+     * not pass the types of a unit to this processor, if this returns false. Processors for specific libraries can
+     * check the identifiers of the unit with {@link CompilationUnitSummary}.
+     * @param unit  the compilation unit of the processed types
+     * @return  false if the processor can't change the unit, true by default
+     */
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return true;
+    }
 }
@@ -2,13 +2,25 @@ package xyz.keksdose.spoon.code_solver.transformations.junit;
 
 import java.util.Optional;
 import spoon.reflect.declaration.CtAnnotation;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.reference.CtTypeReference;
+import xyz.keksdose.spoon.code_solver.transformations.CompilationUnitSummary;
 
 public class JunitHelper {
 
+    /**
+     * Checks if the compilation unit can reference JUnit at all. JUnit types are either imported or used by their
+     * qualified name, so the source code of every unit using JUnit contains the identifier {@code junit}.
+     * @param unit  the compilation unit
+     * @return  false if the unit can't reference JUnit
+     */
+    public static boolean mayUseJunit(CtCompilationUnit unit) {
+        return CompilationUnitSummary.of(unit).containsIdentifier("junit");
+    }
+
     public static boolean isJunit4TestAnnotation(CtAnnotation<?> annotation) {
         return annotation.getAnnotationType().getQualifiedName().equals("org.junit.Test");
     }
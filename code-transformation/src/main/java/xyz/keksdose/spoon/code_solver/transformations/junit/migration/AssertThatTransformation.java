@@ -2,6 +2,7 @@ package xyz.keksdose.spoon.code_solver.transformations.junit.migration;
 
 import java.util.List;
 import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtExecutable;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.reference.CtExecutableReference;
@@ -11,6 +12,7 @@ import xyz.keksdose.spoon.code_solver.history.MarkdownString;
 import xyz.keksdose.spoon.code_solver.transformations.BadSmell;
 import xyz.keksdose.spoon.code_solver.transformations.ImportHelper;
 import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
+import xyz.keksdose.spoon.code_solver.transformations.junit.JunitHelper;
 
 public class AssertThatTransformation extends TransformationProcessor<CtInvocation<?>> {
 
@@ -34,6 +36,11 @@ public class AssertThatTransformation extends TransformationProcessor<CtInvocati
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return JunitHelper.mayUseJunit(unit);
+    }
+
     @Override
     public void process(CtInvocation<?> invocation) {
         CtExecutableReference<?> exec = invocation.getExecutable();
@@ -9,6 +9,7 @@ import spoon.experimental.CtUnresolvedImport;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtTypeAccess;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtImport;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
@@ -23,6 +24,7 @@ import xyz.keksdose.spoon.code_solver.history.ChangeListener;
 import xyz.keksdose.spoon.code_solver.history.MarkdownString;
 import xyz.keksdose.spoon.code_solver.transformations.BadSmell;
 import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
+import xyz.keksdose.spoon.code_solver.transformations.junit.JunitHelper;
 
 public class AssertionsTransformation extends TransformationProcessor<CtMethod<?>> {
 
@@ -44,6 +46,11 @@ public class AssertionsTransformation extends TransformationProcessor<CtMethod<?
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return JunitHelper.mayUseJunit(unit);
+    }
+
     @Override
     public void process(CtMethod<?> method) {
         List<CtInvocation<?>> junit4Asserts = getJunit4Asserts(method);
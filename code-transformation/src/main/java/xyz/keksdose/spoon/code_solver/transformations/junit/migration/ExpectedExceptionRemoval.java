@@ -48,6 +48,11 @@ public class ExpectedExceptionRemoval extends TransformationProcessor<CtMethod<?
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return JunitHelper.mayUseJunit(unit);
+    }
+
     @Override
     public void process(CtMethod<?> method) {
         Optional<CtAnnotation<?>> testAnnotation = JunitHelper.getJunit4TestAnnotation(method);
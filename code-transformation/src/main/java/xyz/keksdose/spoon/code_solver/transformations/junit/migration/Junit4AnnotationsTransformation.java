@@ -38,6 +38,11 @@ public class Junit4AnnotationsTransformation extends TransformationProcessor<CtM
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return JunitHelper.mayUseJunit(unit);
+    }
+
     @Override
     public void process(CtMethod<?> method) {
         refactorBeforeClass(method);
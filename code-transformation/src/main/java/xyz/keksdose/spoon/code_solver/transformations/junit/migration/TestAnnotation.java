@@ -9,6 +9,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import spoon.reflect.declaration.CtAnnotation;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtElement;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
@@ -49,6 +50,11 @@ public class TestAnnotation extends TransformationProcessor<CtAnnotation<?>> {
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return JunitHelper.mayUseJunit(unit);
+    }
+
     @Override
     public void process(CtAnnotation<?> annotation) {
         if (isJunit4TestAnnotation(annotation) && !hasExpectedValue(annotation)) {
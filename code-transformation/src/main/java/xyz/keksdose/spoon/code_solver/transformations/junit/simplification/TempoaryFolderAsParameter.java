@@ -4,6 +4,7 @@ import java.lang.annotation.Annotation;
 import java.util.List;
 import java.util.stream.Collectors;
 import spoon.reflect.declaration.CtAnnotation;
+import spoon.reflect.declaration.CtCompilationUnit;
 import spoon.reflect.declaration.CtField;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtParameter;
@@ -13,6 +14,7 @@ import xyz.keksdose.spoon.code_solver.history.Change;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
 import xyz.keksdose.spoon.code_solver.history.MarkdownString;
 import xyz.keksdose.spoon.code_solver.transformations.BadSmell;
+import xyz.keksdose.spoon.code_solver.transformations.CompilationUnitSummary;
 import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
 
 public class TempoaryFolderAsParameter extends TransformationProcessor<CtType<?>> {
@@ -35,6 +37,11 @@ public class TempoaryFolderAsParameter extends TransformationProcessor<CtType<?>
         super(listener);
     }
 
+    @Override
+    public boolean isApplicable(CtCompilationUnit unit) {
+        return CompilationUnitSummary.of(unit).containsIdentifier("TempDir");
+    }
+
     @Override
     public void process(CtType<?> type) {
         List<CtField<?>> tempoaryFolder = getFieldsWithTempoaryFolderAnnotation(type);
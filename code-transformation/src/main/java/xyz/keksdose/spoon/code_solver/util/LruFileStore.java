@@ -0,0 +1,222 @@
+package xyz.keksdose.spoon.code_solver.util;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * A directory of cache entries bounded by the total size of their files. Every entry is a file named by its key and a
+ * suffix. If the bound is exceeded, the least recently used entries are removed. Entries of an earlier run are reused,
+ * their last use is taken from the modification time of the file.
+ * <p>
+ * The store is thread-safe. Entries are written to a temporary file and then atomically moved into place, so a reader
+ * sees either the old or the new content. The bookkeeping of the sizes is shared by all keys, but it never waits for a
+ * file. An entry evicted while it is read makes the read fail, callers treat this like an unreadable entry.
+ */
+public class LruFileStore {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final String entrySuffix;
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+
+    /**
+     * Creates a new store in the given directory. Existing entries with the given suffix are reused.
+     * @param directory  the directory of the store, created if missing
+     * @param maxSizeInBytes  the maximum total size of all entries
+     * @param entrySuffix  the suffix of the entry files, e.g. {@code .results}
+     * @throws IOException  if the directory can't be created or read
+     */
+    public LruFileStore(Path directory, long maxSizeInBytes, String entrySuffix) throws IOException {
+        if (maxSizeInBytes < 0) {
+            throw new IllegalArgumentException("The maximum size must not be negative, but was " + maxSizeInBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.entrySuffix = entrySuffix;
+        loadExistingEntries();
+    }
+
+    /**
+     * Creates a key from the SHA-256 hash of the given parts. The parts are separated, so moving bytes from one part to
+     * the next changes the key.
+     * @param parts  the parts identifying an entry
+     * @return  the hex encoded hash
+     */
+    public static String createKey(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    digest.update((byte) 0);
+                }
+                digest.update(parts[i]);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Creates a key like {@link #createKey(byte[]...)} from strings, encoded as UTF-8.
+     * @param parts  the parts identifying an entry
+     * @return  the hex encoded hash
+     */
+    public static String createKey(String... parts) {
+        byte[][] bytes = new byte[parts.length][];
+        for (int i = 0; i < parts.length; i++) {
+            bytes[i] = parts[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return createKey(bytes);
+    }
+
+    /**
+     * Returns the file of the entry and marks it as recently used, also for later runs.
+     * @param key  the key of the entry
+     * @return  the file of the entry or empty if there is no entry for the key
+     */
+    public Optional<Path> find(String key) {
+        synchronized (this) {
+            // get instead of containsKey, because only get marks the entry as recently used
+            if (entrySizes.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+        Path entry = entryPath(key);
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry was evicted or is broken, the read of the caller fails and removes it
+            logger.atFine().withCause(e).log("Could not mark entry %s as used", entry);
+        }
+        return Optional.of(entry);
+    }
+
+    /**
+     * Writes an entry and removes the least recently used entries if the store grew too large. The content is streamed
+     * into a temporary file, so an entry is never held in memory as a whole.
+     * @param key  the key of the entry
+     * @param writer  writes the content of the entry, it may close the stream
+     * @throws IOException  if the entry could not be written, the old entry of the key is kept then
+     */
+    public void write(String key, EntryWriter writer) throws IOException {
+        Path tempFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                writer.write(out);
+            }
+            long size = Files.size(tempFile);
+            Files.move(tempFile, entryPath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            addEntry(key, size);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Removes the entry of the key, e.g. because it is unreadable.
+     * @param key  the key of the entry
+     */
+    public synchronized void remove(String key) {
+        Long size = entrySizes.remove(key);
+        if (size != null) {
+            sizeInBytes -= size;
+        }
+        deleteEntryFile(key);
+    }
+
+    /**
+     * @return the total size of all entries in bytes
+     */
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount() {
+        return entrySizes.size();
+    }
+
+    private synchronized void addEntry(String key, long size) {
+        Long oldSize = entrySizes.put(key, size);
+        sizeInBytes += size - (oldSize == null ? 0 : oldSize);
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            sizeInBytes -= eldest.getValue();
+            deleteEntryFile(eldest.getKey());
+        }
+    }
+
+    private void deleteEntryFile(String key) {
+        try {
+            Files.deleteIfExists(entryPath(key));
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Could not delete cache entry %s", key);
+        }
+    }
+
+    private void loadExistingEntries() throws IOException {
+        Map<Path, FileTime> lastUses = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(v -> v.getFileName().toString().endsWith(entrySuffix))
+                    .toList()) {
+                lastUses.put(file, Files.getLastModifiedTime(file));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        List<Path> entries = new ArrayList<>(lastUses.keySet());
+        entries.sort(Comparator.comparing(lastUses::get));
+        synchronized (this) {
+            for (Path entry : entries) {
+                String fileName = entry.getFileName().toString();
+                long size = Files.size(entry);
+                entrySizes.put(fileName.substring(0, fileName.length() - entrySuffix.length()), size);
+                sizeInBytes += size;
+            }
+            evict();
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + entrySuffix);
+    }
+
+    /**
+     * Writes the content of an entry.
+     */
+    @FunctionalInterface
+    public interface EntryWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
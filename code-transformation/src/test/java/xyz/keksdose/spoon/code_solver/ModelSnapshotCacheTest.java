@@ -0,0 +1,130 @@
+package xyz.keksdose.spoon.code_solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.keksdose.spoon.code_solver.analyzer.spoon.SpoonBasedAnalyzer;
+
+class ModelSnapshotCacheTest {
+
+    private static final String URL = "https://github.com/example/project";
+    private static final String CODE =
+            """
+        import java.util.List;
+        public class A {
+          int count;
+          boolean isEmpty(List<String> list) {
+            return list.size() == 0;
+          }
+        }
+        """;
+
+    @Test
+    void snapshotIsUsedForAnotherCheckoutOfTheSameCommit(@TempDir Path tempDir) throws IOException {
+        Path firstCheckout = createProject(tempDir.resolve("first"));
+        Path secondCheckout = createProject(tempDir.resolve("second"));
+        ModelSnapshotCache cache = new ModelSnapshotCache(tempDir.resolve("cache"), 64 * 1024 * 1024);
+
+        List<AnalyzerResult> builtResults =
+                Workspace.of(firstCheckout, cache, URL, "1").analyze(new SpoonBasedAnalyzer());
+        ModelSnapshotCache reopenedCache = new ModelSnapshotCache(tempDir.resolve("cache"), 64 * 1024 * 1024);
+        Workspace workspace = Workspace.of(secondCheckout, reopenedCache, URL, "1");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(reopenedCache.getHitCount()).isEqualTo(1);
+
+        assertThat(workspace.analyze(new SpoonBasedAnalyzer())).containsExactlyInAnyOrderElementsOf(builtResults);
+        workspace.transform(new TransformationEngine(List.of(RenameField::new)), "A");
+        Path secondFile = secondCheckout.resolve("src/main/java/A.java");
+        assertThat(Files.readString(secondFile)).contains("int size;").doesNotContain("int count;");
+        assertThat(Files.readString(firstCheckout.resolve("src/main/java/A.java")))
+                .isEqualTo(CODE);
+    }
+
+    @Test
+    void otherCommitsAreNotLoaded(@TempDir Path tempDir) throws IOException {
+        Path checkout = createProject(tempDir.resolve("project"));
+        ModelSnapshotCache cache = new ModelSnapshotCache(tempDir.resolve("cache"), 64 * 1024 * 1024);
+        Workspace.of(checkout, cache, URL, "1");
+
+        assertThat(cache.load(ModelSnapshotCache.createKey(URL, "1"), checkout)).isPresent();
+        assertThat(cache.load(ModelSnapshotCache.createKey(URL, "2"), checkout)).isEmpty();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    void leastRecentlyUsedSnapshotsAreEvicted(@TempDir Path tempDir) throws IOException {
+        Path checkout = createProject(tempDir.resolve("project"));
+        ModelSnapshotCache unbounded = new ModelSnapshotCache(tempDir.resolve("size"), Long.MAX_VALUE);
+        Workspace.of(checkout, unbounded, URL, "0");
+        long entrySize = unbounded.getSizeInBytes();
+
+        ModelSnapshotCache cache = new ModelSnapshotCache(tempDir.resolve("cache"), 2 * entrySize + entrySize / 2);
+        Workspace.of(checkout, cache, URL, "1");
+        Workspace.of(checkout, cache, URL, "2");
+        assertThat(cache.load(ModelSnapshotCache.createKey(URL, "1"), checkout)).isPresent();
+        Workspace.of(checkout, cache, URL, "3");
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.load(ModelSnapshotCache.createKey(URL, "2"), checkout)).isEmpty();
+        assertThat(cache.load(ModelSnapshotCache.createKey(URL, "1"), checkout)).isPresent();
+    }
+
+    @Test
+    void snapshotsOfDifferentCommitsAreStoredConcurrently(@TempDir Path tempDir) throws Exception {
+        List<Path> checkouts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            checkouts.add(createProject(tempDir.resolve("project" + i)));
+        }
+        ModelSnapshotCache cache = new ModelSnapshotCache(tempDir.resolve("cache"), 64 * 1024 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(checkouts.size());
+        try {
+            List<Future<Workspace>> workspaces = new ArrayList<>();
+            for (int i = 0; i < checkouts.size(); i++) {
+                Path checkout = checkouts.get(i);
+                String commitHash = Integer.toString(i);
+                workspaces.add(executor.submit(() -> Workspace.of(checkout, cache, URL, commitHash)));
+            }
+            for (Future<Workspace> workspace : workspaces) {
+                assertThat(workspace.get().getModel().getAllTypes()).hasSize(1);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(cache.getEntryCount()).isEqualTo(4);
+        for (int i = 0; i < checkouts.size(); i++) {
+            assertThat(cache.load(ModelSnapshotCache.createKey(URL, Integer.toString(i)), checkouts.get(i)))
+                    .isPresent();
+        }
+    }
+
+    @Test
+    void unreadableSnapshotsAreRemoved(@TempDir Path tempDir) throws IOException {
+        Path checkout = createProject(tempDir.resolve("project"));
+        String key = ModelSnapshotCache.createKey(URL, "1");
+        Files.createDirectories(tempDir.resolve("cache"));
+        Files.writeString(tempDir.resolve("cache").resolve(key + ".snapshot"), "not a snapshot");
+        ModelSnapshotCache cache = new ModelSnapshotCache(tempDir.resolve("cache"), 64 * 1024 * 1024);
+
+        assertThat(cache.load(key, checkout)).isEmpty();
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(Workspace.of(checkout, cache, URL, "1").getModel().getAllTypes())
+                .hasSize(1);
+    }
+
+    private static Path createProject(Path root) throws IOException {
+        Path sourceFolder = Files.createDirectories(root.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("A.java"), CODE);
+        return root;
+    }
+}
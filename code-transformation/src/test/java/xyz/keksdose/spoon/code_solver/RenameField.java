@@ -0,0 +1,48 @@
+package xyz.keksdose.spoon.code_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.history.Change;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
+
+/**
+ * A transformation for tests that renames fields and marks their declaring type as changed. The names of all processed
+ * fields are recorded in the order they were processed.
+ */
+public class RenameField extends TransformationProcessor<CtField<?>> {
+
+    private final String oldName;
+    private final String newName;
+    private final List<String> processedFields = new ArrayList<>();
+
+    /**
+     * Creates a transformation renaming fields {@code count} to {@code size}.
+     * @param listener  the listener receiving the changes
+     */
+    public RenameField(ChangeListener listener) {
+        this(listener, "count", "size");
+    }
+
+    public RenameField(ChangeListener listener, String oldName, String newName) {
+        super(listener);
+        this.oldName = oldName;
+        this.newName = newName;
+    }
+
+    @Override
+    public void process(CtField<?> field) {
+        processedFields.add(field.getSimpleName());
+        if (field.getSimpleName().equals(oldName)) {
+            field.setSimpleName(newName);
+            CtType<?> type = field.getDeclaringType();
+            setChanged(type, new Change("Renamed " + oldName, "rename", type));
+        }
+    }
+
+    public List<String> getProcessedFields() {
+        return processedFields;
+    }
+}
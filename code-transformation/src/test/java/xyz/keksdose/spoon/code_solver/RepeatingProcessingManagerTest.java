@@ -0,0 +1,123 @@
+package xyz.keksdose.spoon.code_solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spoon.Launcher;
+import spoon.processing.AbstractProcessor;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtCompilationUnit;
+import spoon.reflect.declaration.CtField;
+import spoon.reflect.declaration.CtType;
+import spoon.support.compiler.VirtualFile;
+import xyz.keksdose.spoon.code_solver.history.Change;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
+import xyz.keksdose.spoon.code_solver.transformations.junit.JunitHelper;
+
+class RepeatingProcessingManagerTest {
+
+    @Test
+    void onlyChangedTypesAreProcessedAgain() {
+        CtModel model = buildModel("class A { int a1; int a2; }", "class B { int b; }");
+        ChangeListener listener = new ChangeListener();
+        RepeatingProcessingManager manager =
+                new RepeatingProcessingManager(model.getUnnamedModule().getFactory(), listener);
+        RenameField renameField = new RenameField(listener, "a1", "a3");
+        manager.addProcessor(renameField);
+        manager.process(model.getAllTypes());
+        assertThat(renameField.getProcessedFields()).containsExactly("a1", "a2", "b", "a3", "a2");
+        assertThat(manager.getIterations())
+                .extracting(RepeatingProcessingManager.Iteration::elements)
+                .containsExactly(2, 1);
+        assertThat(manager.getIterations())
+                .extracting(RepeatingProcessingManager.Iteration::changedTypes)
+                .containsExactly(1, 0);
+    }
+
+    @Test
+    void iterationsAreCapped() {
+        CtModel model = buildModel("class A { int a; }");
+        ChangeListener listener = new ChangeListener();
+        RepeatingProcessingManager manager =
+                new RepeatingProcessingManager(model.getUnnamedModule().getFactory(), listener, 3);
+        RenameField renameField = new RenameField(listener, "a", "a");
+        manager.addProcessor(renameField);
+        manager.process(model.getAllTypes());
+        assertThat(manager.getIterations()).hasSize(3);
+        // the cap counts the iterations of one call
+        manager.process(model.getAllTypes());
+        assertThat(manager.getIterations()).hasSize(3);
+        assertThat(renameField.getProcessedFields()).hasSize(6);
+    }
+
+    @Test
+    void typesChangedWhileProcessingAnotherTypeAreProcessedAgain() {
+        CtModel model = buildModel("class A { int a; }", "class B { int b; }");
+        ChangeListener listener = new ChangeListener();
+        List<String> processedFields = new ArrayList<>();
+        RepeatingProcessingManager manager =
+                new RepeatingProcessingManager(model.getUnnamedModule().getFactory(), listener);
+        // processing A changes B, processing B again changes A
+        manager.addProcessor(new AbstractProcessor<CtField<?>>() {
+            @Override
+            public void process(CtField<?> field) {
+                processedFields.add(field.getSimpleName());
+                if (processedFields.size() == 1 || processedFields.size() == 3) {
+                    CtType<?> other =
+                            getFactory().Type().get(field.getSimpleName().equals("a") ? "B" : "A");
+                    listener.setChanged(other, new Change("Changed by " + field.getSimpleName(), "change", other));
+                }
+            }
+        });
+        manager.process(model.getAllTypes());
+        assertThat(processedFields).containsExactly("a", "b", "b", "a");
+        assertThat(manager.getIterations())
+                .extracting(RepeatingProcessingManager.Iteration::elements)
+                .containsExactly(2, 1, 1);
+    }
+
+    @Test
+    void processorsAreOnlyAppliedToApplicableUnits(@TempDir Path sourceFolder) throws IOException {
+        Files.writeString(sourceFolder.resolve("A.java"), "import org.junit.Test;\nclass A { int a; }");
+        Files.writeString(sourceFolder.resolve("B.java"), "class B { int b; }");
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.addInputResource(sourceFolder.toString());
+        CtModel model = launcher.buildModel();
+        ChangeListener listener = new ChangeListener();
+        List<String> processedFields = new ArrayList<>();
+        RepeatingProcessingManager manager = new RepeatingProcessingManager(launcher.getFactory(), listener);
+        manager.addProcessor(new TransformationProcessor<CtField<?>>(listener) {
+            @Override
+            public boolean isApplicable(CtCompilationUnit unit) {
+                return JunitHelper.mayUseJunit(unit);
+            }
+
+            @Override
+            public void process(CtField<?> field) {
+                processedFields.add(field.getSimpleName());
+            }
+        });
+        manager.process(model.getAllTypes());
+        assertThat(processedFields).containsExactly("a");
+        assertThat(manager.getIterations())
+                .extracting(RepeatingProcessingManager.Iteration::skippedPairs)
+                .containsExactly(1);
+    }
+
+    private static CtModel buildModel(String... sources) {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        for (int i = 0; i < sources.length; i++) {
+            launcher.addInputResource(new VirtualFile(sources[i], "T" + i + ".java"));
+        }
+        return launcher.buildModel();
+    }
+}
@@ -0,0 +1,104 @@
+package xyz.keksdose.spoon.code_solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.analyzer.spoon.SpoonBasedAnalyzer;
+import xyz.keksdose.spoon.code_solver.history.Change;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+import xyz.keksdose.spoon.code_solver.history.Changelog;
+import xyz.keksdose.spoon.code_solver.printing.PrintedFile;
+
+class WorkspaceTest {
+
+    @Test
+    void analysisAndTransformationShareOneModel(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Path file = Files.writeString(
+                sourceFolder.resolve("A.java"),
+                """
+                import java.util.List;
+                public class A {
+                  int count;
+                  boolean isEmpty(List<String> list) {
+                    return list.size() == 0;
+                  }
+                }
+                """);
+        Workspace workspace = Workspace.of(projectRoot);
+        CtType<?> type = workspace.getModel().getAllTypes().iterator().next();
+
+        List<AnalyzerResult> results = workspace.analyze(new SpoonBasedAnalyzer());
+        assertThat(results).extracting(AnalyzerResult::filePath).containsExactly("src/main/java/A.java");
+
+        TransformationEngine engine = new TransformationEngine(List.of(listener -> new RenameField(listener)));
+        Changelog changelog = workspace.transform(engine, "A");
+        assertThat(changelog.getChanges()).extracting(Change::getAffectedType).containsExactly(type);
+        assertThat(workspace.getModel().getAllTypes()).containsExactly(type);
+        assertThat(Files.readString(file)).contains("int size;").doesNotContain("int count;");
+    }
+
+    @Test
+    void sourcesInMemoryAreAnalyzedAndTransformedWithoutFiles() {
+        String source =
+                """
+                import java.util.List;
+                public class A {
+                  int count;
+                  boolean isEmpty(List<String> list) {
+                    return list.size() == 0;
+                  }
+                }
+                """;
+        Workspace workspace = Workspace.ofSources(Map.of("src/main/java/A.java", source));
+
+        List<AnalyzerResult> results = workspace.analyze(new SpoonBasedAnalyzer());
+        assertThat(results).extracting(AnalyzerResult::filePath).containsExactly("src/main/java/A.java");
+        assertThat(results).extracting(AnalyzerResult::snippet).allMatch(v -> v.contains("list.size() == 0"));
+
+        ChangeListener listener = new ChangeListener();
+        TransformationEngine engine = new TransformationEngine(List.of(v -> new RenameField(v)));
+        engine.setChangeListener(listener);
+        Map<Path, PrintedFile> printedFiles = engine.applyInMemory(workspace);
+
+        assertThat(listener.getChangelog().getChanges()).hasSize(1);
+        assertThat(printedFiles).containsOnlyKeys(Path.of("src/main/java/A.java"));
+        PrintedFile printedFile = printedFiles.get(Path.of("src/main/java/A.java"));
+        assertThat(printedFile.oldContent()).isEqualTo(source);
+        assertThat(printedFile.newContent()).isEqualTo(source.replace("int count;", "int size;"));
+        assertThat(printedFile.diff())
+                .startsWith("--- a/src/main/java/A.java\n+++ b/src/main/java/A.java\n")
+                .contains("\n-  int count;\n+  int size;\n");
+        assertThat(Path.of("src/main/java/A.java")).doesNotExist();
+    }
+
+    @Test
+    void snippetsOfSourcesInMemoryAreNotReadFromFilesWithTheSamePath() {
+        // the tests run in the module folder, so this relative path also names a file on disk
+        String path = "src/main/java/xyz/keksdose/spoon/code_solver/Workspace.java";
+        assertThat(Path.of(path)).exists();
+        String source =
+                """
+                package xyz.keksdose.spoon.code_solver;
+                import java.util.List;
+                public class Workspace {
+                  boolean isEmpty(List<String> list) {
+                    return list.size() == 0;
+                  }
+                }
+                """;
+        Workspace workspace = Workspace.ofSources(Map.of(path, source));
+
+        List<AnalyzerResult> results = workspace.analyze(new SpoonBasedAnalyzer());
+        assertThat(results).isNotEmpty();
+        assertThat(results).extracting(AnalyzerResult::snippet).allMatch(v -> v.contains("list.size() == 0"));
+    }
+}
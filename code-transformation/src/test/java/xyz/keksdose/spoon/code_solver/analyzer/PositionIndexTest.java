@@ -0,0 +1,97 @@
+package xyz.keksdose.spoon.code_solver.analyzer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.value.Position;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtBlock;
+import spoon.reflect.code.CtStatement;
+import spoon.reflect.cu.SourcePosition;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtMethod;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+import xyz.keksdose.spoon.code_solver.history.Change;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+
+class PositionIndexTest {
+
+    private static final String CODE =
+            """
+        import java.util.List;
+        public class A {
+          private int count;
+          boolean isEmpty(List<String> list) {
+            if (list.size() == 0) { return true; }
+            Runnable r = new Runnable() {
+              public void run() { System.out.println(count); }
+            };
+            return list.size() <= 0 || count
+                > 0;
+          }
+          static class B {
+            int size() { return 0; }
+          }
+        }
+        """;
+
+    @Test
+    void indexFindsTheElementsOfTheScanner() {
+        CtType<?> type = Launcher.parseClass(CODE);
+        // elements of a clone are not in the index, so the clone is searched by scanning
+        CtType<?> scannedType = type.clone();
+        for (CtElement element : type.getElements(new TypeFilter<>(CtElement.class))) {
+            SourcePosition sourcePosition = element.getPosition();
+            if (!sourcePosition.isValidPosition()) {
+                continue;
+            }
+            Position position = new Position(
+                    sourcePosition.getLine(),
+                    sourcePosition.getEndLine(),
+                    sourcePosition.getColumn(),
+                    sourcePosition.getEndColumn(),
+                    sourcePosition.getSourceStart(),
+                    sourcePosition.getSourceEnd());
+            Position startOnly = new Position(sourcePosition.getLine(), 0, sourcePosition.getColumn(), 0, 0, 0);
+            for (Position searched : List.of(position, startOnly)) {
+                assertThat(describe(PositionScanner.find(type, searched)))
+                        .isEqualTo(describe(PositionScanner.find(scannedType, searched)));
+                assertThat(describe(PositionScanner.findLineOnly(type, searched)))
+                        .isEqualTo(describe(PositionScanner.findLineOnly(scannedType, searched)));
+            }
+        }
+        CtType<?> nestedType = type.getNestedType("B");
+        Position nestedLines = new Position(2, 14, 0, 0, 0, 0);
+        assertThat(PositionScanner.findLineOnly(nestedType, nestedLines))
+                .isNotEmpty()
+                .allMatch(v -> v == nestedType || v.hasParent(nestedType));
+    }
+
+    @Test
+    void reportedChangesInvalidateTheIndex() {
+        CtType<?> type = Launcher.parseClass(CODE);
+        CtMethod<?> method = type.getMethodsByName("isEmpty").get(0);
+        CtBlock<?> body = method.getBody();
+        CtStatement ifStatement = body.getStatement(0);
+        Position ifLine = new Position(5, 5, 0, 0, 0, 0);
+        assertThat(PositionScanner.findLineOnly(type, ifLine)).anyMatch(v -> v == ifStatement);
+
+        CtStatement copy = ifStatement.clone();
+        ifStatement.delete();
+        body.addStatement(copy);
+        new ChangeListener().setChanged(type, new Change("Moved if", "move", type));
+        // a clone equals its original, so the matches are compared by identity
+        assertThat(PositionScanner.findLineOnly(type, ifLine))
+                .anyMatch(v -> v == copy)
+                .noneMatch(v -> v == ifStatement);
+    }
+
+    private static List<String> describe(List<CtElement> elements) {
+        return elements.stream()
+                .map(v -> v.getClass().getSimpleName() + "@" + v.getPosition().getSourceStart() + "-"
+                        + v.getPosition().getSourceEnd())
+                .toList();
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.keksdose.spoon.code_solver.analyzer.spoon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import io.github.martinwitt.laughing_train.domain.value.Position;
+import io.github.martinwitt.laughing_train.domain.value.RuleId;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalyzerResultCacheTest {
+
+    private static final String CODE =
+            """
+        import java.util.List;
+        public class A {
+          private final void foo(List<String> list) {
+            if (list.size() == 0) {
+              System.out.println(list);
+            }
+          }
+        }
+        """;
+
+    @Test
+    void storedResultsAreFoundByKey(@TempDir Path cacheDir) throws IOException {
+        AnalyzerResultCache cache = new AnalyzerResultCache(cacheDir, 1024 * 1024);
+        String key = AnalyzerResultCache.createKey(CODE.getBytes(StandardCharsets.UTF_8), "1");
+        assertThat(cache.get(key)).isEmpty();
+        cache.put(key, List.of(createResult("A.java")));
+        assertThat(cache.get(key)).hasValueSatisfying(v -> assertThat(v).containsExactly(createResult("A.java")));
+        assertThat(new AnalyzerResultCache(cacheDir, 1024 * 1024).get(key)).isPresent();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keyDependsOnAnalyzerSetVersion() {
+        byte[] content = CODE.getBytes(StandardCharsets.UTF_8);
+        assertThat(AnalyzerResultCache.createKey(content, "1"))
+                .isEqualTo(AnalyzerResultCache.createKey(content, "1"))
+                .isNotEqualTo(AnalyzerResultCache.createKey(content, "2"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted(@TempDir Path cacheDir) throws IOException {
+        AnalyzerResultCache unbounded = new AnalyzerResultCache(cacheDir.resolve("size"), Long.MAX_VALUE);
+        unbounded.put("size", List.of(createResult("A.java")));
+        long entrySize = unbounded.getSizeInBytes();
+
+        AnalyzerResultCache cache = new AnalyzerResultCache(cacheDir.resolve("cache"), 2 * entrySize);
+        cache.put("first", List.of(createResult("A.java")));
+        cache.put("second", List.of(createResult("A.java")));
+        assertThat(cache.get("first")).isPresent();
+        cache.put("third", List.of(createResult("A.java")));
+        assertThat(cache.getEntryCount()).isEqualTo(2);
+        assertThat(cache.get("second")).isEmpty();
+        assertThat(cache.get("first")).isPresent();
+        assertThat(cache.get("third")).isPresent();
+    }
+
+    @Test
+    void identicalFilesAreAnalyzedOnce(@TempDir Path tempDir) throws IOException {
+        Path firstProject = createProject(tempDir.resolve("first"));
+        Path secondProject = createProject(tempDir.resolve("second"));
+        AnalyzerResultCache cache = new AnalyzerResultCache(tempDir.resolve("cache"), 1024 * 1024);
+        SpoonBasedAnalyzer analyzer = new SpoonBasedAnalyzer(cache);
+
+        List<AnalyzerResult> uncachedResults = new SpoonBasedAnalyzer().analyze(firstProject);
+        List<AnalyzerResult> firstResults = analyzer.analyze(firstProject);
+        List<AnalyzerResult> secondResults = analyzer.analyze(secondProject);
+
+        assertThat(uncachedResults).isNotEmpty();
+        assertThat(firstResults).containsExactlyInAnyOrderElementsOf(uncachedResults);
+        assertThat(secondResults).containsExactlyInAnyOrderElementsOf(uncachedResults);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    private static Path createProject(Path root) throws IOException {
+        Path sourceFolder = Files.createDirectories(root.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("A.java"), CODE);
+        Files.writeString(sourceFolder.resolve("B.java"), "public class B {}");
+        return root;
+    }
+
+    private static SpoonAnalyzerResult createResult(String filePath) {
+        return new SpoonAnalyzerResult(
+                new RuleId("SizeReplaceableByIsEmpty"),
+                filePath,
+                new Position(4, 4, 9, 25, 80, 16),
+                "message",
+                "markdown",
+                "list.size() == 0");
+    }
+}
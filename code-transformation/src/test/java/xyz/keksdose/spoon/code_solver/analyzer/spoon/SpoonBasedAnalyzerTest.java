@@ -0,0 +1,150 @@
+package xyz.keksdose.spoon.code_solver.analyzer.spoon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpoonBasedAnalyzerTest {
+
+    @Test
+    void streamedResultsMatchCollectedResults(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(
+                    sourceFolder.resolve("A" + i + ".java"),
+                    """
+                public class A%d {
+                  private final boolean foo(String s) {
+                    return s.indexOf("a") != -1;
+                  }
+                }
+                """
+                            .formatted(i));
+        }
+        List<AnalyzerResult> collected = new SpoonBasedAnalyzer().analyze(projectRoot);
+        List<AnalyzerResult> streamed = new ArrayList<>();
+        new SpoonBasedAnalyzer().analyze(projectRoot, streamed::add);
+        List<AnalyzerResult> streamedWithCache = new ArrayList<>();
+        AnalyzerResultCache cache = new AnalyzerResultCache(projectRoot.resolve("cache"), 1024 * 1024);
+        new SpoonBasedAnalyzer(cache).analyze(projectRoot, streamedWithCache::add);
+
+        assertThat(collected).hasSize(20);
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(collected);
+        assertThat(streamedWithCache).containsExactlyInAnyOrderElementsOf(collected);
+    }
+
+    @Test
+    void cachedFilesDependingOnChangedFilesAreAnalyzedAgain(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("I.java"), "interface I {}");
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J {}");
+        Files.writeString(sourceFolder.resolve("B.java"), "class B implements J, I {}");
+        AnalyzerResultCache cache = new AnalyzerResultCache(projectRoot.resolve("cache"), 1024 * 1024);
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot)).isEmpty();
+
+        // B is cached, but J now makes I redundant
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J extends I {}");
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot))
+                .extracting(AnalyzerResult::filePath)
+                .containsExactly(Path.of("src/main/java/B.java").toString());
+        // B changed and needs the cached J to find the same result
+        Files.writeString(sourceFolder.resolve("B.java"), "class B implements J, I { }");
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot, List.of(Path.of("src/main/java/B.java"))))
+                .extracting(AnalyzerResult::filePath)
+                .containsExactly(Path.of("src/main/java/B.java").toString());
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot))
+                .extracting(AnalyzerResult::filePath)
+                .containsExactly(Path.of("src/main/java/B.java").toString());
+    }
+
+    @Test
+    void hierarchyDependentResultsAreNotCached(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("I.java"), "interface I {}");
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J {}");
+        Files.writeString(sourceFolder.resolve("K.java"), "interface K extends J {}");
+        Files.writeString(sourceFolder.resolve("B.java"), "class B implements K, I {}");
+        AnalyzerResultCache cache = new AnalyzerResultCache(projectRoot.resolve("cache"), 1024 * 1024);
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot)).isEmpty();
+
+        // B doesn't reference J, but J now makes I redundant through K
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J extends I {}");
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot))
+                .extracting(AnalyzerResult::filePath)
+                .containsExactly(Path.of("src/main/java/B.java").toString());
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J {}");
+        assertThat(new SpoonBasedAnalyzer(cache).analyze(projectRoot)).isEmpty();
+    }
+
+    @Test
+    void changedFilesAreAnalyzedInTheWholeProject(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("I.java"), "interface I {}");
+        Files.writeString(sourceFolder.resolve("J.java"), "interface J extends I {}");
+        Files.writeString(sourceFolder.resolve("B.java"), "class B implements J, I {}");
+        Files.writeString(sourceFolder.resolve("K.java"), "interface K extends J {}");
+        Files.writeString(sourceFolder.resolve("E.java"), "class E implements K, I {}");
+        List<AnalyzerResult> results = new ArrayList<>();
+        Set<Path> analyzedFiles = new SpoonBasedAnalyzer()
+                .analyzeChangedFiles(
+                        projectRoot,
+                        List.of(Path.of("src/main/java")),
+                        List.of(Path.of("src/main/java/J.java")),
+                        results::add);
+
+        // E depends on J only through K, its results of the earlier analysis are kept
+        assertThat(analyzedFiles)
+                .containsExactlyInAnyOrder(
+                        Path.of("src/main/java/J.java"),
+                        Path.of("src/main/java/B.java"),
+                        Path.of("src/main/java/K.java"));
+        assertThat(results)
+                .extracting(AnalyzerResult::filePath)
+                .containsExactly(Path.of("src/main/java/B.java").toString());
+    }
+
+    @Test
+    void snippetsAreCutFromTheSourceFile(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Files.writeString(
+                sourceFolder.resolve("A.java"),
+                """
+            public class A implements I, Comparable<A> {
+              public boolean foo(String s) {
+                int unused = 0;
+                return s.indexOf("a") != -1;
+              }
+              public int compareTo(A other) {
+                return 0;
+              }
+            }
+            interface I {}
+            interface J extends I {}
+            class B implements J, I {}
+            """);
+        List<AnalyzerResult> results = new SpoonBasedAnalyzer().analyze(projectRoot);
+
+        assertThat(results)
+                .filteredOn(v -> v.ruleID().id().equals("IndexOfReplaceableByContains"))
+                .extracting(AnalyzerResult::snippet)
+                .containsExactly(String.join(
+                        "\n",
+                        "  public boolean foo(String s) {",
+                        "    int unused = 0;",
+                        "    return s.indexOf(\"a\") != -1;",
+                        "  }",
+                        "  public int compareTo(A other) {"));
+        assertThat(results)
+                .filteredOn(v -> v.ruleID().id().equals("UnnecessaryImplements"))
+                .extracting(AnalyzerResult::snippet)
+                .containsExactly("class B implements J, I {}");
+    }
+}
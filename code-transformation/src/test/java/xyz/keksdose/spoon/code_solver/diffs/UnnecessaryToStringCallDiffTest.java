@@ -1,7 +1,10 @@
 package xyz.keksdose.spoon.code_solver.diffs;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import io.github.martinwitt.laughing_train.domain.value.Position;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.function.UnaryOperator;
@@ -36,6 +39,36 @@ public class UnnecessaryToStringCallDiffTest {
         new DiffCleaner().clean(git.getRepository().getWorkTree().toPath(), change);
     }
 
+    @Test
+    void whiteSpaceIsRemovedWithoutCommits() throws IllegalStateException, IOException, GitAPIException {
+        UnaryOperator<String> removeToString = s -> s.replace(".toString()", "");
+        Path path = Path.of("src/test/resources/projects/diffs/WhiteSpaceAfterToString.java");
+        Git git = DiffTestHelper.createTempGitRepo(path, removeToString);
+        Path workTree = git.getRepository().getWorkTree().toPath();
+        TestAnalyzerResult result = new TestAnalyzerResult(
+                "UnnecessaryToStringCall",
+                "WhiteSpaceAfterToString.java",
+                new Position(8, 0, 0, 0, 0, 0),
+                "unnecessary toString call");
+        CtType<?> type = getFirstType(workTree);
+        List<Change> changes = List.of(
+                new Change(
+                        new UnusedLabel(null).getHandledBadSmells().get(0),
+                        null,
+                        type,
+                        result,
+                        List.of(DiffCleanModes.NO_WHITESPACE_ADD)),
+                new Change("another change", "issue", type));
+
+        new DiffCleaner().clean(workTree, changes);
+
+        assertThat(Files.readString(workTree.resolve("WhiteSpaceAfterToString.java")))
+                .contains("script.getAbsolutePath() + \", error: \" + e);")
+                .doesNotContain("e )");
+        assertThat(git.log().call()).hasSize(1);
+        assertThat(git.status().call().getModified()).containsExactly("WhiteSpaceAfterToString.java");
+    }
+
     private CtType<?> getFirstType(Path path) {
         Launcher launcher = new Launcher();
         launcher.addInputResource(path.toString());
@@ -0,0 +1,94 @@
+package xyz.keksdose.spoon.code_solver.history;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import io.github.martinwitt.laughing_train.domain.value.Position;
+import io.github.martinwitt.laughing_train.domain.value.RuleId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaAnalyzerResult;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.rules.SizeReplaceableByIsEmpty;
+import xyz.keksdose.spoon.code_solver.analyzer.qodana.rules.UnnecessaryReturn;
+import xyz.keksdose.spoon.code_solver.transformations.BadSmell;
+
+class ChangelogTest {
+
+    private final CtType<?> type = Launcher.parseClass("class A { class B {} }");
+    private final CtType<?> otherType = Launcher.parseClass("class C {}");
+
+    @Test
+    void changesAreFoundByResultTypeAndBadSmell() {
+        AnalyzerResult result = createResult("SizeReplaceableByIsEmpty", 3);
+        BadSmell sizeCheck =
+                new SizeReplaceableByIsEmpty(result).getHandledBadSmells().get(0);
+        BadSmell unnecessaryReturn =
+                new UnnecessaryReturn(result).getHandledBadSmells().get(0);
+        Change nestedChange = createChange(sizeCheck, type.getNestedType("B"), result);
+        Change otherChange = createChange(unnecessaryReturn, otherType, createResult("UnnecessaryReturn", 5));
+        Changelog changelog = new Changelog();
+        changelog.addChange(nestedChange);
+        changelog.addChange(otherChange);
+
+        assertThat(changelog.isFixed(createResult("SizeReplaceableByIsEmpty", 3)))
+                .isTrue();
+        assertThat(changelog.isFixed(createResult("SizeReplaceableByIsEmpty", 4)))
+                .isFalse();
+        assertThat(changelog.getChangesForType(type.getNestedType("B"))).containsExactly(nestedChange);
+        assertThat(changelog.getChangesForType(type)).containsExactly(nestedChange);
+        assertThat(changelog.getChangesForBadSmell(unnecessaryReturn)).containsExactly(otherChange);
+
+        changelog.getChanges().remove(nestedChange);
+        assertThat(changelog.isFixed(result)).isFalse();
+        assertThat(changelog.getChangesForType(type)).isEmpty();
+        assertThat(changelog.getChangesForBadSmell(sizeCheck)).isEmpty();
+    }
+
+    @Test
+    void indexesFollowChangesOfTheList() {
+        BadSmell badSmell = BadSmell.emptyRule();
+        Changelog changelog = new Changelog();
+        List<Change> changes = IntStream.range(0, 20)
+                .mapToObj(i -> createChange(badSmell, i % 2 == 0 ? type : otherType, createResult("Rule", i)))
+                .toList();
+        changes.forEach(changelog::addChange);
+        changelog.getChanges().add(changes.get(1));
+
+        Collections.shuffle(changelog.getChanges(), new Random(42));
+        changelog.getChanges().removeIf(v -> v.getAffectedType() == type);
+
+        assertThat(changelog.getChanges()).hasSize(11).allMatch(v -> v.getAffectedType() == otherType);
+        assertThat(changelog.getChangesForType(type)).isEmpty();
+        assertThat(changelog.getChangesForType(otherType)).containsExactlyInAnyOrderElementsOf(changelog.getChanges());
+        assertThat(changelog.getChangesForBadSmell(badSmell)).hasSize(11);
+        assertThat(changelog.isFixed(createResult("Rule", 0))).isFalse();
+        assertThat(changelog.isFixed(createResult("Rule", 1))).isTrue();
+    }
+
+    @Test
+    void changesCanBeAddedFromManyThreads() {
+        ChangeListener listener = new ChangeListener();
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            Change change = createChange(BadSmell.emptyRule(), type, createResult("Rule", i));
+            listener.setChanged(type, change);
+        });
+
+        assertThat(listener.getChangelog().getChanges()).hasSize(1000);
+        assertThat(listener.getChangelog().getChangesForType(type)).hasSize(1000);
+        assertThat(IntStream.range(0, 1000)).allMatch(i -> listener.isFixed(createResult("Rule", i)));
+    }
+
+    private static Change createChange(BadSmell badSmell, CtType<?> affectedType, AnalyzerResult result) {
+        return new Change(badSmell, MarkdownString.fromRaw("changed"), affectedType, result);
+    }
+
+    private static AnalyzerResult createResult(String rule, int line) {
+        return new QodanaAnalyzerResult(
+                new RuleId(rule), "A.java", new Position(line, line, 1, 2, 0, 1), "message", "markdown", "snippet");
+    }
+}
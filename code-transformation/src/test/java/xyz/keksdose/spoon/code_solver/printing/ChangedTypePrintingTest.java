@@ -0,0 +1,81 @@
+package xyz.keksdose.spoon.code_solver.printing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.keksdose.spoon.code_solver.RenameField;
+import xyz.keksdose.spoon.code_solver.TransformationEngine;
+import xyz.keksdose.spoon.code_solver.Workspace;
+import xyz.keksdose.spoon.code_solver.history.ChangeListener;
+
+class ChangedTypePrintingTest {
+
+    @Test
+    void changedUnitsArePrintedOnce(@TempDir Path projectRoot) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            files.add(Files.writeString(
+                    projectRoot.resolve("A" + i + ".java"),
+                    """
+                    public class A%1$s {
+                      int count;
+                    }
+                    class Other%1$s {
+                      int count;
+                    }
+                    """
+                            .formatted(i)));
+        }
+        Path unchanged = Files.writeString(projectRoot.resolve("B.java"), "public class B {   int other; }\n");
+        Files.setPosixFilePermissions(files.get(0), PosixFilePermissions.fromString("rw-r--r--"));
+        Workspace workspace = Workspace.of(projectRoot);
+
+        TransformationEngine engine = new TransformationEngine(List.of(listener -> new RenameField(listener)))
+                .setPrinting(new ChangedTypePrinting(workspace.getEnvironment()::createPrettyPrinter));
+        workspace.transform(engine);
+
+        for (Path file : files) {
+            assertThat(Files.readString(file))
+                    .contains("public class A", "class Other", "int size;")
+                    .doesNotContain("int count;");
+        }
+        assertThat(Files.readString(unchanged)).isEqualTo("public class B {   int other; }\n");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(files.get(0))))
+                .isEqualTo("rw-r--r--");
+        try (var entries = Files.list(projectRoot)) {
+            assertThat(entries).noneMatch(v -> v.toString().endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void dryRunPrintsChangedFilesInMemory(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src"));
+        String oldContent = "public class A {\n  int count;\n}\n";
+        Path file = Files.writeString(sourceFolder.resolve("A.java"), oldContent);
+        Files.writeString(sourceFolder.resolve("B.java"), "public class B {}\n");
+        Workspace workspace = Workspace.of(projectRoot);
+        ChangeListener listener = new ChangeListener();
+        TransformationEngine engine = new TransformationEngine(List.of(v -> new RenameField(v)));
+        engine.setChangeListener(listener);
+
+        Map<Path, PrintedFile> printedFiles = engine.applyInMemory(workspace);
+
+        assertThat(listener.getChangelog().getChanges()).hasSize(1);
+        assertThat(Files.readString(file)).isEqualTo(oldContent);
+        assertThat(printedFiles).containsOnlyKeys(file.toAbsolutePath());
+        PrintedFile printedFile = printedFiles.get(file.toAbsolutePath());
+        assertThat(printedFile.oldContent()).isEqualTo(oldContent);
+        assertThat(printedFile.newContent()).contains("int size;").doesNotContain("int count;");
+        assertThat(printedFile.diff())
+                .startsWith("--- a/src/A.java\n+++ b/src/A.java\n@@ -1,3 +1,3 @@\n")
+                .contains("\n-  int count;\n", "\n+  int size;\n");
+    }
+}
@@ -65,6 +65,13 @@ public class AnalyzerStatus implements Serializable {
         this.status = status;
     }
 
+    /**
+     * @return true if the analyzer finished successfully
+     */
+    public boolean hasSucceeded() {
+        return status == Status.SUCCESS;
+    }
+
     /**
      * @return the numberOfIssues
      */
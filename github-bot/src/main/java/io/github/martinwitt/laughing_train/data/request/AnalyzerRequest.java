@@ -6,4 +6,11 @@ import java.io.Serializable;
 public sealed interface AnalyzerRequest extends Serializable {
 
     record WithProject(Project project) implements AnalyzerRequest {}
+
+    /**
+     * Analyzes only the files changed since the given commit and reuses the results of that commit for all other files.
+     * @param project  the checked out project
+     * @param baseCommitHash  the last successfully analyzed commit of the project
+     */
+    record Incremental(Project project, String baseCommitHash) implements AnalyzerRequest {}
 }
@@ -9,5 +9,12 @@ public interface CodeAnalyzerResult extends Serializable {
 
     record Success(List<AnalyzerResult> results, Project project) implements CodeAnalyzerResult {}
 
+    /**
+     * A successful analysis whose results were already persisted while the analysis was running.
+     * @param numberOfResults  the number of results found by the analyzer
+     * @param project  the analyzed project
+     */
+    record Persisted(int numberOfResults, Project project) implements CodeAnalyzerResult {}
+
     record Failure(String message) implements CodeAnalyzerResult {}
 }
@@ -32,6 +32,7 @@ import org.kohsuke.github.GHRef;
 import org.kohsuke.github.GHRepository;
 import spoon.reflect.declaration.CtType;
 import xyz.keksdose.spoon.code_solver.TransformationEngine;
+import xyz.keksdose.spoon.code_solver.Workspace;
 import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaRefactor;
 import xyz.keksdose.spoon.code_solver.history.Change;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
@@ -179,7 +180,7 @@ public class App {
             TransformationEngine transformationEngine = new TransformationEngine(List.of(function));
             transformationEngine.setChangeListener(changeListener);
             System.out.println("refactorRepo: " + dir + "/" + config.getSrcFolder());
-            transformationEngine.applyToGivenPath(dir + "/" + config.getSrcFolder());
+            Workspace.of(Path.of(dir + "/" + config.getSrcFolder())).transform(transformationEngine);
         } catch (Exception e) {
             logger.atSevere().withCause(e).log("Failed to refactor repo");
         }
@@ -39,7 +39,7 @@ public class AnalyzerResultsPersistence extends AbstractVerticle {
         if (result instanceof CodeAnalyzerResult.Failure failure) {
             logger.atInfo().log("Analyzer %s failed for project %s", storeResults.analyzerName(), project.name());
 
-        } else if (result instanceof CodeAnalyzerResult.Success success) {
+        } else if (result instanceof CodeAnalyzerResult.Success || result instanceof CodeAnalyzerResult.Persisted) {
             logger.atInfo().log("Analyzer %s succeeded for project %s", storeResults.analyzerName(), project.name());
         }
     }
@@ -48,6 +48,8 @@ public class AnalyzerResultsPersistence extends AbstractVerticle {
         AnalyzerStatus analyzerStatus = null;
         if (spoonResult instanceof CodeAnalyzerResult.Success success) {
             analyzerStatus = AnalyzerStatus.success(name, success.results().size(), commitHash);
+        } else if (spoonResult instanceof CodeAnalyzerResult.Persisted persisted) {
+            analyzerStatus = AnalyzerStatus.success(name, persisted.numberOfResults(), commitHash);
         } else if (spoonResult instanceof CodeAnalyzerResult.Failure failure) {
             analyzerStatus = AnalyzerStatus.failure(name, 0, commitHash);
         }
@@ -1,13 +1,18 @@
 package io.github.martinwitt.laughing_train.mining;
 
 import com.google.common.flogger.FluentLogger;
+import io.github.martinwitt.laughing_train.data.Project;
 import io.github.martinwitt.laughing_train.data.ProjectResult;
 import io.github.martinwitt.laughing_train.data.ProjectResult.Success;
 import io.github.martinwitt.laughing_train.data.request.AnalyzerRequest;
 import io.github.martinwitt.laughing_train.data.result.CodeAnalyzerResult;
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerStatus;
+import io.github.martinwitt.laughing_train.domain.entity.GitHubCommit;
+import io.github.martinwitt.laughing_train.domain.entity.RemoteProject;
 import io.github.martinwitt.laughing_train.mining.requests.GetProject;
 import io.github.martinwitt.laughing_train.mining.requests.MineNextProject;
 import io.github.martinwitt.laughing_train.mining.requests.StoreResults;
+import io.github.martinwitt.laughing_train.persistence.repository.ProjectRepository;
 import io.github.martinwitt.laughing_train.services.SpoonAnalyzerService;
 import io.quarkus.arc.Unremovable;
 import io.vertx.core.AbstractVerticle;
@@ -17,6 +22,8 @@ import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 
@@ -28,19 +35,51 @@ public class SpoonPeriodicMiner extends AbstractVerticle {
     public static final String ANALYZER_NAME = "spoon-analyzer";
     final Vertx vertx;
     final SpoonAnalyzerService spoonAnalyzerService;
+    final ProjectRepository projectRepository;
 
-    public SpoonPeriodicMiner(Vertx vertx, SpoonAnalyzerService spoonAnalyzerService) {
+    public SpoonPeriodicMiner(
+            Vertx vertx, SpoonAnalyzerService spoonAnalyzerService, ProjectRepository projectRepository) {
         this.vertx = vertx;
         this.spoonAnalyzerService = spoonAnalyzerService;
+        this.projectRepository = projectRepository;
     }
 
     private CodeAnalyzerResult analyzeProjectWithSpoon(Success success) {
         logger.atInfo().log("Analyzing project %s with spoon", success.project());
-        CodeAnalyzerResult analyze = spoonAnalyzerService.analyze(new AnalyzerRequest.WithProject(success.project()));
+        CodeAnalyzerResult analyze = spoonAnalyzerService.analyze(createAnalyzerRequest(success.project()));
         logger.atInfo().log("Successfully analyzed project %s with spoon", success.project());
         return analyze;
     }
 
+    /**
+     * Creates an incremental request if the project was already analyzed successfully at an older commit.
+     */
+    private AnalyzerRequest createAnalyzerRequest(Project project) {
+        return findLastAnalyzedCommit(project)
+                .<AnalyzerRequest>map(v -> new AnalyzerRequest.Incremental(project, v))
+                .orElseGet(() -> new AnalyzerRequest.WithProject(project));
+    }
+
+    private Optional<String> findLastAnalyzedCommit(Project project) {
+        List<RemoteProject> remoteProjects = projectRepository.findByProjectUrl(project.url());
+        if (remoteProjects.isEmpty()) {
+            return Optional.empty();
+        }
+        List<GitHubCommit> commits = remoteProjects.get(0).getCommits();
+        for (int i = commits.size() - 1; i >= 0; i--) {
+            GitHubCommit commit = commits.get(i);
+            if (commit.getCommitHash().equals(project.commitHash())) {
+                continue;
+            }
+            List<AnalyzerStatus> statuses = commit.getAnalyzerStatuses();
+            if (statuses != null
+                    && statuses.stream().anyMatch(v -> v.getAnalyzerName().equals(ANALYZER_NAME) && v.hasSucceeded())) {
+                return Optional.of(commit.getCommitHash());
+            }
+        }
+        return Optional.empty();
+    }
+
     private void tryDeleteProject(ProjectResult.Success project) {
         try {
             FileUtils.deleteDirectory(project.project().folder());
@@ -68,8 +107,8 @@ public class SpoonPeriodicMiner extends AbstractVerticle {
         request.onSuccess(v -> {
                     if (v.body() instanceof ProjectResult.Success success) {
                         var spoonResult = analyzeProjectWithSpoon(success);
-                        if (spoonResult instanceof CodeAnalyzerResult.Success spoonSuccess) {
-                            storeSuccess(success, spoonSuccess);
+                        if (spoonResult instanceof CodeAnalyzerResult.Persisted persisted) {
+                            storeSuccess(success, persisted);
                         } else {
                             if (spoonResult instanceof CodeAnalyzerResult.Failure error) {
                                 storeFailure(success, error);
@@ -92,12 +131,12 @@ public class SpoonPeriodicMiner extends AbstractVerticle {
         vertx.eventBus().publish(AnalyzerResultsPersistence.SERVICE_NAME, storeResults);
     }
 
-    private void storeSuccess(ProjectResult.Success success, CodeAnalyzerResult.Success spoonSuccess) {
+    private void storeSuccess(ProjectResult.Success success, CodeAnalyzerResult.Persisted persisted) {
         logger.atInfo().log("Successfully analyzed project %s with spoon", success.project());
         tryDeleteProject(success);
         StoreResults storeResults = new StoreResults(
                 success.project(),
-                new CodeAnalyzerResult.Success(spoonSuccess.results(), success.project()),
+                new CodeAnalyzerResult.Persisted(persisted.numberOfResults(), success.project()),
                 ANALYZER_NAME);
         vertx.eventBus().publish(AnalyzerResultsPersistence.SERVICE_NAME, storeResults);
     }
@@ -4,11 +4,14 @@ import com.google.common.flogger.FluentLogger;
 import io.github.martinwitt.laughing_train.data.Project;
 import io.github.martinwitt.laughing_train.data.QodanaResult;
 import io.github.martinwitt.laughing_train.data.result.CodeAnalyzerResult;
+import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
 import io.github.martinwitt.laughing_train.persistence.BadSmell;
 import io.github.martinwitt.laughing_train.persistence.repository.BadSmellRepository;
 import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.util.concurrent.Flow;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -42,18 +45,30 @@ public class AnalyzerResultPersistenceService {
                     "Persisting %s results for project %s",
                     success.results().size(), success.project().name());
             Project project = success.project();
-            Multi.createFrom()
-                    .iterable(success.results())
-                    .map(badSmell -> new BadSmell(badSmell, project.name(), project.url(), project.commitHash()))
-                    .filter(v -> badSmellRepository
-                            .findByIdentifier(v.getIdentifier())
-                            .isEmpty())
-                    .map(badSmellRepository::save)
-                    .collect()
-                    .with(Collectors.counting())
+            persist(project, Multi.createFrom().iterable(success.results()))
                     .subscribe()
                     .with(badSmell ->
                             logger.atInfo().log("Persisted %d bad smells for project %s", badSmell, project.name()));
         }
     }
+
+    /**
+     * Persists results while they are still produced. The results are persisted on the threads of the publisher, so a
+     * bounded publisher slows down the producer if the database can't keep up.
+     * @param project  the project the results belong to
+     * @param results  the results to persist
+     * @return  the number of newly persisted results, available after the publisher completed
+     */
+    Uni<Long> persistResults(Project project, Flow.Publisher<AnalyzerResult> results) {
+        return persist(project, Multi.createFrom().publisher(results));
+    }
+
+    private Uni<Long> persist(Project project, Multi<AnalyzerResult> results) {
+        return results.map(badSmell -> new BadSmell(badSmell, project.name(), project.url(), project.commitHash()))
+                .filter(v ->
+                        badSmellRepository.findByIdentifier(v.getIdentifier()).isEmpty())
+                .map(badSmellRepository::save)
+                .collect()
+                .with(Collectors.counting());
+    }
 }
@@ -0,0 +1,80 @@
+package io.github.martinwitt.laughing_train.services;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+
+/**
+ * The files changed between two commits of a repository. All paths are relative to the repository root.
+ * @param changed  the files of the new commit that were added or modified
+ * @param outdated  the files of the old commit that were modified or deleted
+ */
+record ChangedFiles(Set<Path> changed, Set<Path> outdated) {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+    /**
+     * Computes the changed files between two commits of a local repository.
+     * @param repository  the folder of the repository
+     * @param oldCommitHash  the commit to compare against
+     * @param newCommitHash  the current commit
+     * @return  the changed files or empty if one of the commits is not part of the repository
+     */
+    static Optional<ChangedFiles> between(File repository, String oldCommitHash, String newCommitHash) {
+        try (Git git = Git.open(repository);
+                ObjectReader reader = git.getRepository().newObjectReader()) {
+            Repository repo = git.getRepository();
+            ObjectId oldTree = repo.resolve(oldCommitHash + "^{tree}");
+            ObjectId newTree = repo.resolve(newCommitHash + "^{tree}");
+            if (oldTree == null || newTree == null) {
+                logger.atInfo().log("Could not resolve %s or %s in %s", oldCommitHash, newCommitHash, repository);
+                return Optional.empty();
+            }
+            CanonicalTreeParser oldTreeParser = new CanonicalTreeParser();
+            oldTreeParser.reset(reader, oldTree);
+            CanonicalTreeParser newTreeParser = new CanonicalTreeParser();
+            newTreeParser.reset(reader, newTree);
+            Set<Path> changed = new HashSet<>();
+            Set<Path> outdated = new HashSet<>();
+            for (DiffEntry entry : git.diff()
+                    .setOldTree(oldTreeParser)
+                    .setNewTree(newTreeParser)
+                    .setShowNameAndStatusOnly(true)
+                    .call()) {
+                if (entry.getChangeType() != ChangeType.DELETE) {
+                    changed.add(Path.of(entry.getNewPath()));
+                }
+                if (entry.getChangeType() != ChangeType.ADD && entry.getChangeType() != ChangeType.COPY) {
+                    outdated.add(Path.of(entry.getOldPath()));
+                }
+            }
+            return Optional.of(new ChangedFiles(changed, outdated));
+        } catch (IOException | GitAPIException | RevisionSyntaxException e) {
+            logger.atWarning().withCause(e).log("Could not compute changed files in %s", repository);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks if results of the old commit for the given file must be computed again.
+     * @param filePath  the file path of a result, relative to the repository root
+     * @return  true if the file was changed between the commits
+     */
+    boolean invalidates(String filePath) {
+        Path path = Path.of(filePath).normalize();
+        return changed.contains(path) || outdated.contains(path);
+    }
+}
@@ -16,33 +16,40 @@ import io.smallrye.mutiny.Uni;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.eclipse.microprofile.health.Readiness;
 import org.kohsuke.github.GHRef;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import spoon.reflect.declaration.CtType;
+import xyz.keksdose.spoon.code_solver.ModelSnapshotCache;
 import xyz.keksdose.spoon.code_solver.TransformationEngine;
+import xyz.keksdose.spoon.code_solver.Workspace;
 import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaRefactor;
 import xyz.keksdose.spoon.code_solver.analyzer.qodana.QodanaRules;
 import xyz.keksdose.spoon.code_solver.diffs.DiffCleaner;
 import xyz.keksdose.spoon.code_solver.history.Change;
 import xyz.keksdose.spoon.code_solver.history.ChangeListener;
 import xyz.keksdose.spoon.code_solver.history.Changelog;
+import xyz.keksdose.spoon.code_solver.printing.PrintedFile;
 import xyz.keksdose.spoon.code_solver.transformations.TransformationProcessor;
 
 @ApplicationScoped
@@ -72,12 +79,33 @@ public class RefactorService {
     @Inject
     ProjectService projectService;
 
+    @ConfigProperty(name = "spoon.snapshot.cache.directory")
+    String snapshotCacheDirectory;
+
+    @ConfigProperty(name = "spoon.snapshot.cache.max-size-mb")
+    long snapshotCacheMaxSizeInMb;
+
     DiffCleaner diffCleaner;
+    private @Nullable ModelSnapshotCache snapshotCache;
 
     public RefactorService() {
         diffCleaner = new DiffCleaner();
     }
 
+    /**
+     * Creates the cache for the models of refactored commits. Without a usable cache directory, every project is
+     * parsed again.
+     */
+    @PostConstruct
+    void createSnapshotCache() {
+        try {
+            snapshotCache =
+                    new ModelSnapshotCache(Path.of(snapshotCacheDirectory), snapshotCacheMaxSizeInMb * 1024 * 1024);
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Could not create snapshot cache in %s", snapshotCacheDirectory);
+        }
+    }
+
     public Uni<String> refactor(Collection<? extends BadSmell> badSmells) {
         logger.atInfo().log("Refactoring %d bad smells", badSmells.size());
         var badSmellByAnalyzer = badSmells.stream().collect(Collectors.groupingBy(BadSmell::getAnalyzer));
@@ -128,15 +156,17 @@ public class RefactorService {
             Function<ChangeListener, TransformationProcessor<?>> function = (v -> refactor);
             TransformationEngine transformationEngine = new TransformationEngine(List.of(function));
             transformationEngine.setChangeListener(listener);
-            Changelog log = transformationEngine.applyToGivenPath(refactorPath);
-            log.getChanges()
-                    .forEach(change ->
-                            diffCleaner.clean(success.project().folder().toPath(), change));
+            // the changed files are only printed in memory, the pull request is created from their contents
+            Map<Path, PrintedFile> printedFiles =
+                    transformationEngine.applyInMemory(createWorkspace(success, config, Path.of(refactorPath)));
+            Changelog log = listener.getChangelog();
+            Map<Path, String> contents = cleanPrintedFiles(printedFiles, log.getChanges());
             try {
                 GitHub github = GitHub.connectUsingOAuth(System.getenv("GITHUB_TOKEN"));
                 GHRepository repository = createForkIfMissing(success, github);
                 GitHubUtils.createLabelIfMissing(repository);
-                createSinglePullRequest(repository, success.project().folder().toPath(), log.getChanges(), badSmells);
+                createSinglePullRequest(
+                        repository, success.project().folder().toPath(), log.getChanges(), contents, badSmells);
             } catch (Exception e) {
                 logger.atSevere().withCause(e).log("Failed to create pull request");
                 FileUtils.deleteQuietly(success.project().folder());
@@ -145,6 +175,36 @@ public class RefactorService {
         return Promise.promise();
     }
 
+    /**
+     * Cleans the diffs of the printed files, e.g. from added whitespace.
+     * @return  the cleaned content of every printed file
+     */
+    private Map<Path, String> cleanPrintedFiles(Map<Path, PrintedFile> printedFiles, List<Change> changes) {
+        Map<Path, List<Change>> changesByFile = changes.stream()
+                .collect(Collectors.groupingBy(
+                        v -> getFileForType(v.getAffectedType()).toAbsolutePath()));
+        Map<Path, String> contents = new LinkedHashMap<>();
+        printedFiles.forEach((file, printedFile) -> contents.put(
+                file,
+                diffCleaner.clean(
+                        printedFile.oldContent(),
+                        printedFile.newContent(),
+                        changesByFile.getOrDefault(file.toAbsolutePath(), List.of()))));
+        return contents;
+    }
+
+    private Workspace createWorkspace(ProjectResult.Success success, ProjectConfig config, Path refactorPath) {
+        if (snapshotCache == null) {
+            return Workspace.of(refactorPath);
+        }
+        // only the source folder is built, so different source folders of a project need different snapshots
+        return Workspace.of(
+                refactorPath,
+                snapshotCache,
+                success.project().url() + "/" + config.getSourceFolder(),
+                success.project().commitHash());
+    }
+
     private GHRepository createForkIfMissing(ProjectResult.Success success, GitHub github) throws IOException {
         logger.atInfo().log("Creating fork for %s", success.project().getOwnerRepoName());
         @Var GHRepository repository = github.getRepository(success.project().getOwnerRepoName());
@@ -159,7 +219,11 @@ public class RefactorService {
     }
 
     private void createSinglePullRequest(
-            GHRepository repo, Path dir, List<? extends Change> changes, List<? extends BadSmell> badSmells)
+            GHRepository repo,
+            Path dir,
+            List<? extends Change> changes,
+            Map<Path, String> contents,
+            List<? extends BadSmell> badSmells)
             throws IOException {
         GHRef mainRef = repo.getRef("heads/" + repo.getDefaultBranch());
         logger.atInfo().log("Found changes for %s types", changes.size());
@@ -169,7 +233,7 @@ public class RefactorService {
         StringBuilder body = new StringBuilder();
         body.append(changelogPrinter.printRepairedIssues(changes));
         body.append(changelogPrinter.printBadSmellFingerPrints(badSmells));
-        createCommit(repo, dir, changes, ref);
+        createCommit(repo, dir, changes, contents, ref);
         body.append(changelogPrinter.printChangeLogShort(changes));
         createPullRequest(repo, branchName, body.toString(), createPullRequestTitle(changes));
     }
@@ -188,15 +252,12 @@ public class RefactorService {
         }
     }
 
-    private void createCommit(GHRepository repo, Path dir, List<? extends Change> changes, GHRef ref)
+    private void createCommit(
+            GHRepository repo, Path dir, List<? extends Change> changes, Map<Path, String> contents, GHRef ref)
             throws IOException {
-        List<CtType<?>> types = changes.stream().map(Change::getAffectedType).collect(Collectors.toList());
         var treeBuilder = repo.createTree().baseTree(ref.getObject().getSha());
-        for (CtType<?> ctType : types) {
-            treeBuilder.add(
-                    relativize(dir, getFileForType(ctType)),
-                    Files.readString(getFileForType(ctType)).replace("\r\n", "\n"),
-                    false);
+        for (Map.Entry<Path, String> entry : contents.entrySet()) {
+            treeBuilder.add(relativize(dir, entry.getKey()), entry.getValue().replace("\r\n", "\n"), false);
         }
         var tree = treeBuilder.create();
         String commitMessage = createCommitMessage(changes);
@@ -0,0 +1,108 @@
+package io.github.martinwitt.laughing_train.services;
+
+import io.github.martinwitt.spoon_analyzer.AnalysisListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exports the performance data of the spoon analyzer to micrometer. The time of every phase and every rule is
+ * recorded, so slow rules and the share of model building, analysis, conversion and persistence can be seen per run.
+ */
+@ApplicationScoped
+public class SpoonAnalyzerMetrics implements AnalysisListener {
+
+    /** The phase of writing the results to the database, reported by {@link SpoonAnalyzerService}. */
+    public static final String PHASE_PERSISTENCE = "persistence";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary typesPerProject;
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> ruleTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> ruleResultCounters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> resultsPerProject = new ConcurrentHashMap<>();
+    private final Map<String, Counter> typeTimeouts = new ConcurrentHashMap<>();
+    private final Counter projectTimeouts;
+
+    SpoonAnalyzerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.typesPerProject = DistributionSummary.builder("spoon.analyzer.project.types")
+                .description("Number of types in an analyzed project")
+                .baseUnit("types")
+                .register(meterRegistry);
+        this.projectTimeouts = Counter.builder("spoon.analyzer.timeouts")
+                .description("Analyses that exceeded their time budget")
+                .tag("scope", "project")
+                .tag("rule", "")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void phaseFinished(String phase, Duration duration) {
+        phaseTimers
+                .computeIfAbsent(phase, v -> Timer.builder("spoon.analyzer.phase")
+                        .description("Time spent in a phase of the spoon analysis")
+                        .tag("phase", v)
+                        .register(meterRegistry))
+                .record(duration);
+    }
+
+    @Override
+    public void modelBuilt(int numberOfTypes) {
+        typesPerProject.record(numberOfTypes);
+    }
+
+    @Override
+    public void analyzerFinished(String ruleId, Duration duration, int numberOfResults) {
+        ruleTimers
+                .computeIfAbsent(ruleId, v -> Timer.builder("spoon.analyzer.rule")
+                        .description("Time spent in the analyzer of a rule")
+                        .tag("rule", v)
+                        .register(meterRegistry))
+                .record(duration);
+        if (numberOfResults > 0) {
+            ruleResultCounters
+                    .computeIfAbsent(ruleId, v -> Counter.builder("spoon.analyzer.rule.results")
+                            .description("Results found by the analyzer of a rule")
+                            .tag("rule", v)
+                            .register(meterRegistry))
+                    .increment(numberOfResults);
+        }
+    }
+
+    @Override
+    public void typeTimedOut(String qualifiedName, String ruleId, Duration budget) {
+        typeTimeouts
+                .computeIfAbsent(ruleId, v -> Counter.builder("spoon.analyzer.timeouts")
+                        .description("Analyses that exceeded their time budget")
+                        .tag("scope", "type")
+                        .tag("rule", v)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Override
+    public void projectTimedOut(Duration budget, int skippedTypes, int skippedBatches) {
+        projectTimeouts.increment();
+    }
+
+    /**
+     * Records the number of results per rule of one analyzed project. Rules without results in the project are not
+     * recorded.
+     * @param resultsPerRule  the number of results by rule id
+     */
+    public void projectAnalyzed(Map<String, Integer> resultsPerRule) {
+        resultsPerRule.forEach((ruleId, numberOfResults) -> resultsPerProject
+                .computeIfAbsent(ruleId, v -> DistributionSummary.builder("spoon.analyzer.project.results")
+                        .description("Number of results of a rule in an analyzed project")
+                        .baseUnit("results")
+                        .tag("rule", v)
+                        .register(meterRegistry))
+                .record(numberOfResults));
+    }
+}
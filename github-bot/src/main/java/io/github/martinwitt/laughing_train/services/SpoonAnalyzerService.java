@@ -2,13 +2,36 @@ package io.github.martinwitt.laughing_train.services;
 
 import com.google.common.base.Strings;
 import com.google.common.flogger.FluentLogger;
+import io.github.martinwitt.laughing_train.data.Project;
 import io.github.martinwitt.laughing_train.data.request.AnalyzerRequest;
 import io.github.martinwitt.laughing_train.data.result.CodeAnalyzerResult;
 import io.github.martinwitt.laughing_train.domain.entity.AnalyzerResult;
+import io.github.martinwitt.laughing_train.persistence.repository.BadSmellRepository;
+import io.github.martinwitt.spoon_analyzer.AnalysisBudget;
+import io.github.martinwitt.spoon_analyzer.SourceRootFinder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import jakarta.enterprise.context.ApplicationScoped;
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import xyz.keksdose.spoon.code_solver.analyzer.spoon.AnalyzerResultCache;
+import xyz.keksdose.spoon.code_solver.analyzer.spoon.SpoonAnalyzerResult;
 import xyz.keksdose.spoon.code_solver.analyzer.spoon.SpoonBasedAnalyzer;
 
 @ApplicationScoped
@@ -16,32 +39,74 @@ public class SpoonAnalyzerService {
 
     final AnalyzerResultPersistenceService analyzerResultPersistenceService;
     final ProjectConfigService projectConfigService;
+    final BadSmellRepository badSmellRepository;
+    final SpoonAnalyzerMetrics metrics;
+    private final @Nullable AnalyzerResultCache resultCache;
+    private final int maxFilesPerBatch;
+    private final AnalysisBudget budget;
+    private final SourceRootFinder sourceRootFinder = new SourceRootFinder();
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final int RESULT_BUFFER_SIZE = 256;
 
     SpoonAnalyzerService(
             AnalyzerResultPersistenceService analyzerResultPersistenceService,
-            ProjectConfigService projectConfigService) {
+            ProjectConfigService projectConfigService,
+            BadSmellRepository badSmellRepository,
+            SpoonAnalyzerMetrics metrics,
+            MeterRegistry meterRegistry,
+            @ConfigProperty(name = "spoon.analyzer.cache.directory") String cacheDirectory,
+            @ConfigProperty(name = "spoon.analyzer.cache.max-size-mb") long cacheMaxSizeInMb,
+            @ConfigProperty(name = "spoon.analyzer.batch.max-files") int maxFilesPerBatch,
+            @ConfigProperty(name = "spoon.analyzer.budget.per-type") Duration typeBudget,
+            @ConfigProperty(name = "spoon.analyzer.budget.per-project") Duration projectBudget) {
         this.analyzerResultPersistenceService = analyzerResultPersistenceService;
         this.projectConfigService = projectConfigService;
+        this.badSmellRepository = badSmellRepository;
+        this.metrics = metrics;
+        this.resultCache = createResultCache(Path.of(cacheDirectory), cacheMaxSizeInMb * 1024 * 1024, meterRegistry);
+        this.maxFilesPerBatch = maxFilesPerBatch;
+        this.budget = new AnalysisBudget(typeBudget, projectBudget);
+    }
+
+    /**
+     * Creates the cache for the results of single files and exports its hit and miss counts.
+     * Without a usable cache directory, every file is analyzed again.
+     */
+    private static @Nullable AnalyzerResultCache createResultCache(
+            Path directory, long maxSizeInBytes, MeterRegistry meterRegistry) {
+        try {
+            AnalyzerResultCache cache = new AnalyzerResultCache(directory, maxSizeInBytes);
+            FunctionCounter.builder("spoon.analyzer.cache.lookups", cache, AnalyzerResultCache::getHitCount)
+                    .description("Lookups in the spoon analyzer result cache")
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            FunctionCounter.builder("spoon.analyzer.cache.lookups", cache, AnalyzerResultCache::getMissCount)
+                    .description("Lookups in the spoon analyzer result cache")
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+            Gauge.builder("spoon.analyzer.cache.size", cache, AnalyzerResultCache::getSizeInBytes)
+                    .description("Size of the spoon analyzer result cache")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(meterRegistry);
+            return cache;
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Could not create result cache in %s", directory);
+            return null;
+        }
     }
 
     public CodeAnalyzerResult analyze(AnalyzerRequest request) {
         logger.atInfo().log("Received request %s", request);
         try {
             if (request instanceof AnalyzerRequest.WithProject project) {
-                File folder = project.project().folder();
-                SpoonBasedAnalyzer analyzer = new SpoonBasedAnalyzer();
-                List<AnalyzerResult> analyze = analyzer.analyze(folder.toPath());
-                logger.atInfo().log(
-                        "Spoon found %s results with the following rules: %s",
-                        analyze.size(),
-                        analyze.stream()
-                                .map(v -> v.ruleID().toString())
-                                .distinct()
-                                .collect(Collectors.joining(",")));
-                CodeAnalyzerResult.Success success = new CodeAnalyzerResult.Success(analyze, project.project());
-                analyzerResultPersistenceService.persistResults(success);
-                return success;
+                Path folder = project.project().folder().toPath();
+                List<Path> sourceRoots =
+                        sourceRootFinder.findSourceRoots(project.project().url(), folder);
+                SpoonBasedAnalyzer analyzer = new SpoonBasedAnalyzer(resultCache, metrics, maxFilesPerBatch, budget);
+                return analyzeAndPersist(
+                        project.project(), sink -> analyzer.analyzeSourceRoots(folder, sourceRoots, sink));
+            } else if (request instanceof AnalyzerRequest.Incremental incremental) {
+                return analyzeIncremental(incremental);
             } else {
                 return new CodeAnalyzerResult.Failure("Unknown request type");
             }
@@ -50,4 +115,77 @@ public class SpoonAnalyzerService {
             return new CodeAnalyzerResult.Failure(Strings.nullToEmpty(e.getMessage()));
         }
     }
+
+    /**
+     * Analyzes only the files changed since the base commit, in the model of the whole project. Files referencing a
+     * type of a changed file are analyzed again too. Results of the base commit for all other files are carried over to
+     * the new commit. Files that only indirectly depend on a changed file, e.g. through a supertype, or that referenced
+     * a type of a deleted file keep their results of the base commit. If the changed files can't be computed, the whole
+     * project is analyzed.
+     */
+    private CodeAnalyzerResult analyzeIncremental(AnalyzerRequest.Incremental request) {
+        Project project = request.project();
+        Optional<ChangedFiles> changedFiles =
+                ChangedFiles.between(project.folder(), request.baseCommitHash(), project.commitHash());
+        if (changedFiles.isEmpty()) {
+            logger.atInfo().log("Falling back to a full analysis of %s", project.name());
+            return analyze(new AnalyzerRequest.WithProject(project));
+        }
+        ChangedFiles changes = changedFiles.get();
+        logger.atInfo().log(
+                "Analyzing %s changed files of %s since %s",
+                changes.changed().size(), project.name(), request.baseCommitHash());
+        Path folder = project.folder().toPath();
+        List<Path> sourceRoots = sourceRootFinder.findSourceRoots(project.url(), folder);
+        // the results of dependent files change without a change of their content, so they can't be cached
+        SpoonBasedAnalyzer analyzer = new SpoonBasedAnalyzer(null, metrics, maxFilesPerBatch, budget);
+        return analyzeAndPersist(project, sink -> {
+            Set<Path> analyzedFiles = analyzer.analyzeChangedFiles(folder, sourceRoots, changes.changed(), sink);
+            badSmellRepository.findByCommitHash(request.baseCommitHash(), SpoonAnalyzerResult.ANALYZER_NAME).stream()
+                    .filter(v -> !changes.invalidates(v.filePath())
+                            && !analyzedFiles.contains(Path.of(v.filePath()).normalize()))
+                    .forEach(sink);
+        });
+    }
+
+    /**
+     * Runs the analysis and persists its results while the analysis is still running. At most
+     * {@link #RESULT_BUFFER_SIZE} results wait for the database. If the buffer is full, the analysis blocks until the
+     * database caught up.
+     * @param project  the analyzed project
+     * @param analysis  the analysis, it passes every result to the given sink
+     * @return  the result of the analysis
+     */
+    private CodeAnalyzerResult analyzeAndPersist(Project project, Consumer<Consumer<AnalyzerResult>> analysis) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SubmissionPublisher<AnalyzerResult> publisher = new SubmissionPublisher<>(executor, RESULT_BUFFER_SIZE);
+        try {
+            CompletableFuture<Long> persisted = analyzerResultPersistenceService
+                    .persistResults(project, publisher)
+                    .subscribeAsCompletionStage();
+            AtomicInteger numberOfResults = new AtomicInteger();
+            Map<String, Integer> resultsPerRule = new ConcurrentHashMap<>();
+            analysis.accept(result -> {
+                numberOfResults.incrementAndGet();
+                resultsPerRule.merge(result.ruleID().id(), 1, Integer::sum);
+                publisher.submit(result);
+            });
+            publisher.close();
+            metrics.projectAnalyzed(resultsPerRule);
+            logger.atInfo().log(
+                    "Spoon found %s results with the following rules: %s",
+                    numberOfResults.get(), String.join(",", resultsPerRule.keySet()));
+            long start = System.nanoTime();
+            long persistedResults = persisted.join();
+            // only the time the persistence lags behind the analysis, the rest overlaps with the analysis
+            metrics.phaseFinished(SpoonAnalyzerMetrics.PHASE_PERSISTENCE, Duration.ofNanos(System.nanoTime() - start));
+            logger.atInfo().log("Persisted %d bad smells for project %s", persistedResults, project.name());
+            return new CodeAnalyzerResult.Persisted(numberOfResults.get(), project);
+        } catch (RuntimeException e) {
+            publisher.closeExceptionally(e);
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package io.github.martinwitt.laughing_train.spoonutils;
+
+import java.util.List;
+import spoon.reflect.code.CtExpression;
+
+/**
+ * Matches the arguments of a call against expected parameter types, shared by {@link InvocationMatcher} and
+ * {@link ConstructorMatcher}.
+ */
+final class ArgumentTypes {
+
+    private ArgumentTypes() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Checks if every argument is a subtype of the expected type at the same position. The types are looked up by
+     * name in the {@link TypeHierarchyIndex}, so no type reference is created per call.
+     * @param arguments  the arguments of the call, must have as many elements as the expected types
+     * @param expectedTypes  the fully qualified names of the expected types
+     * @return  true if all arguments have a known type that matches
+     */
+    static boolean match(List<CtExpression<?>> arguments, String[] expectedTypes) {
+        for (CtExpression<?> argument : arguments) {
+            if (argument.getType() == null) {
+                return false;
+            }
+        }
+        TypeHierarchyIndex index = TypeHierarchyIndex.of(arguments.get(0).getFactory());
+        for (int i = 0; i < expectedTypes.length; i++) {
+            if (!index.isSubtypeOf(arguments.get(i).getType(), expectedTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
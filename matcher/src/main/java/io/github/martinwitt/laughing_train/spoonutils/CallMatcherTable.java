@@ -0,0 +1,95 @@
+package io.github.martinwitt.laughing_train.spoonutils;
+
+import com.google.errorprone.annotations.Var;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.reference.CtExecutableReference;
+import spoon.reflect.visitor.Filter;
+
+/**
+ * A set of {@link InvocationMatcher}s and {@link ConstructorMatcher}s compiled into a lookup table. The kind of the
+ * call and the method name or created type select the candidate matchers, so a call is only checked against the
+ * matchers that can match it instead of all of them.
+ */
+public final class CallMatcherTable implements Filter<CtAbstractInvocation<?>> {
+
+    private final Map<String, List<InvocationMatcher>> invocationMatchers = new HashMap<>();
+    private final Map<String, List<ConstructorMatcher>> constructorMatchers = new HashMap<>();
+
+    /**
+     * Creates a new table of the given matchers. The matchers for the same name keep their given order.
+     * @param invocationMatchers  the matchers for method invocations
+     * @param constructorMatchers  the matchers for constructor calls
+     */
+    public CallMatcherTable(
+            Collection<InvocationMatcher> invocationMatchers, Collection<ConstructorMatcher> constructorMatchers) {
+        for (InvocationMatcher matcher : invocationMatchers) {
+            this.invocationMatchers
+                    .computeIfAbsent(matcher.getMethodName(), v -> new ArrayList<>())
+                    .add(matcher);
+        }
+        for (ConstructorMatcher matcher : constructorMatchers) {
+            this.constructorMatchers
+                    .computeIfAbsent(matcher.getTargetType(), v -> new ArrayList<>())
+                    .add(matcher);
+        }
+    }
+
+    /**
+     * Returns the number of matchers matching the given call.
+     * @param element  the invocation or constructor call
+     * @return  the number of matching matchers, 0 if none matches
+     */
+    public int countMatches(CtAbstractInvocation<?> element) {
+        @Var int count = 0;
+        if (element instanceof CtInvocation<?> invocation) {
+            CtExecutableReference<?> executable = invocation.getExecutable();
+            if (executable == null) {
+                return 0;
+            }
+            for (InvocationMatcher matcher : invocationMatchers.getOrDefault(executable.getSimpleName(), List.of())) {
+                if (matcher.matches(invocation)) {
+                    count++;
+                }
+            }
+        } else if (element instanceof CtConstructorCall<?> constructorCall && constructorCall.getType() != null) {
+            for (ConstructorMatcher matcher :
+                    constructorMatchers.getOrDefault(constructorCall.getType().getQualifiedName(), List.of())) {
+                if (matcher.matches(constructorCall)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if at least one matcher matches the given call.
+     * @param element  the invocation or constructor call
+     * @return  true if a matcher matches
+     */
+    @Override
+    public boolean matches(CtAbstractInvocation<?> element) {
+        return countMatches(element) > 0;
+    }
+
+    /**
+     * @return the simple names of all matched methods
+     */
+    public Collection<String> getMethodNames() {
+        return invocationMatchers.keySet();
+    }
+
+    /**
+     * @return the qualified names of all types created by matched constructor calls
+     */
+    public Collection<String> getConstructorTypes() {
+        return constructorMatchers.keySet();
+    }
+}
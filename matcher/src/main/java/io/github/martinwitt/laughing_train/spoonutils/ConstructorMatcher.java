@@ -1,11 +1,6 @@
 package io.github.martinwitt.laughing_train.spoonutils;
 
-import java.util.ArrayList;
-import java.util.List;
-import org.apache.commons.lang3.tuple.Pair;
 import spoon.reflect.code.CtConstructorCall;
-import spoon.reflect.code.CtExpression;
-import spoon.reflect.reference.CtTypeReference;
 import spoon.reflect.visitor.Filter;
 
 /**
@@ -27,6 +22,15 @@ public class ConstructorMatcher implements Filter<CtConstructorCall<?>> {
         this.argsFQN = argsFQN;
     }
 
+    /**
+     * Returns the fully-qualified name of the type created by matching constructor calls.
+     *
+     * @return the fully-qualified name of the target type
+     */
+    public String getTargetType() {
+        return fqTargetType;
+    }
+
     /**
      * Determines whether the given constructor call matches the target type and argument types.
      *
@@ -39,7 +43,7 @@ public class ConstructorMatcher implements Filter<CtConstructorCall<?>> {
             return false;
         }
 
-        if (!element.getType().getQualifiedName().equals(fqTargetType)) {
+        if (element.getType() == null || !element.getType().getQualifiedName().equals(fqTargetType)) {
             return false;
         }
         if (argsFQN == null || argsFQN.length == 0) {
@@ -48,15 +52,6 @@ public class ConstructorMatcher implements Filter<CtConstructorCall<?>> {
         if (element.getArguments().size() != argsFQN.length) {
             return false;
         }
-        if (element.getArguments().stream().anyMatch(arg -> arg.getType() == null)) {
-            return false;
-        }
-        List<Pair<CtTypeReference<?>, CtExpression<?>>> zipped = new ArrayList<>();
-        for (int i = 0; i < argsFQN.length && i < element.getArguments().size(); i++) {
-            zipped.add(Pair.of(
-                    element.getFactory().createReference(argsFQN[i]),
-                    element.getArguments().get(i)));
-        }
-        return zipped.stream().allMatch(pair -> pair.getRight().getType().isSubtypeOf(pair.getLeft()));
+        return ArgumentTypes.match(element.getArguments(), argsFQN);
     }
 }
@@ -95,12 +95,9 @@ public class ImplicitToStringMatcher implements Filter<CtInvocation<?>> {
         if (type == null) {
             return false;
         }
-        CtTypeReference<PrintStream> printStreamRef =
-                type.getFactory().createReference(PrintStream.class.getCanonicalName());
-        CtTypeReference<PrintWriter> printWriterRef =
-                type.getFactory().createReference(PrintWriter.class.getCanonicalName());
-        return type.isSubtypeOf(printStreamRef)
-                || type.isSubtypeOf(printWriterRef)
+        TypeHierarchyIndex index = TypeHierarchyIndex.of(type.getFactory());
+        return index.isSubtypeOf(type, PrintStream.class.getCanonicalName())
+                || index.isSubtypeOf(type, PrintWriter.class.getCanonicalName())
                 || qualifiedName.equals(Formatter.class.getCanonicalName());
     }
 }
@@ -0,0 +1,222 @@
+package io.github.martinwitt.laughing_train.spoonutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.code.CtNewClass;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * An index of all method invocations and constructor calls in a model. Invocations are keyed by the simple name of the
+ * invoked method, constructor calls by the qualified name of the created type. Analyses that only look at a few
+ * methods or constructors can go straight to the candidates and skip types without any of them.
+ * <p>
+ * The index is built in one scan of the model, see {@link #of(CtModel)}. Calls are grouped by their top-level type and
+ * kept in the order of a {@link CtScanner} traversal of that type. Like the {@link TypeHierarchyIndex}, it is meant
+ * for analyses that only read the model and is built again with {@link #rebuild(CtModel)} after a change. All methods
+ * are thread-safe.
+ */
+public final class InvocationIndex {
+
+    private static final String METADATA_KEY = InvocationIndex.class.getName();
+
+    private final Map<CtType<?>, TypeCalls> callsPerType = new IdentityHashMap<>();
+    private final Map<String, List<CtInvocation<?>>> invocations = new HashMap<>();
+    private final Map<String, List<CtConstructorCall<?>>> constructorCalls = new HashMap<>();
+
+    private InvocationIndex(CtModel model) {
+        for (CtType<?> type : model.getAllTypes()) {
+            TypeCalls typeCalls = new TypeCalls();
+            new CtScanner() {
+                @Override
+                public <T> void visitCtInvocation(CtInvocation<T> invocation) {
+                    if (invocation.getExecutable() != null) {
+                        String name = invocation.getExecutable().getSimpleName();
+                        typeCalls.add(invocationKey(name), invocation);
+                        invocations
+                                .computeIfAbsent(name, v -> new ArrayList<>())
+                                .add(invocation);
+                    }
+                    super.visitCtInvocation(invocation);
+                }
+
+                @Override
+                public <T> void visitCtConstructorCall(CtConstructorCall<T> constructorCall) {
+                    addConstructorCall(constructorCall);
+                    super.visitCtConstructorCall(constructorCall);
+                }
+
+                @Override
+                public <T> void visitCtNewClass(CtNewClass<T> newClass) {
+                    addConstructorCall(newClass);
+                    super.visitCtNewClass(newClass);
+                }
+
+                private void addConstructorCall(CtConstructorCall<?> constructorCall) {
+                    if (constructorCall.getType() == null) {
+                        return;
+                    }
+                    String typeName = constructorCall.getType().getQualifiedName();
+                    typeCalls.add(constructorKey(typeName), constructorCall);
+                    constructorCalls
+                            .computeIfAbsent(typeName, v -> new ArrayList<>())
+                            .add(constructorCall);
+                }
+            }.scan(type);
+            callsPerType.put(type, typeCalls);
+        }
+    }
+
+    /**
+     * Returns the index of the given model. The index is built on the first call and stored in the model, so later
+     * calls for the same model return the same index.
+     * @param model  the model to index
+     * @return  the index of the model
+     */
+    public static InvocationIndex of(CtModel model) {
+        CtPackage rootPackage = model.getRootPackage();
+        synchronized (rootPackage) {
+            Object index = rootPackage.getMetadata(METADATA_KEY);
+            if (index instanceof InvocationIndex invocationIndex) {
+                return invocationIndex;
+            }
+            return rebuild(model);
+        }
+    }
+
+    /**
+     * Builds a new index of the given model and stores it in place of the current one. Call this after the model was
+     * changed, e.g. by a transformation, so later calls of {@link #of(CtModel)} don't return the outdated index.
+     * @param model  the model to index
+     * @return  the new index of the model
+     */
+    public static InvocationIndex rebuild(CtModel model) {
+        CtPackage rootPackage = model.getRootPackage();
+        synchronized (rootPackage) {
+            InvocationIndex newIndex = new InvocationIndex(model);
+            rootPackage.putMetadata(METADATA_KEY, newIndex);
+            return newIndex;
+        }
+    }
+
+    /**
+     * Returns the index of the model of the given factory, see {@link #of(CtModel)}.
+     * @param factory  the factory of the model
+     * @return  the index of the model
+     */
+    public static InvocationIndex of(Factory factory) {
+        return of(factory.getModel());
+    }
+
+    /**
+     * Returns all invocations of methods with the given simple name in the model.
+     * @param methodName  the simple name of the invoked method
+     * @return  the invocations, empty if there are none
+     */
+    public List<CtInvocation<?>> getInvocations(String methodName) {
+        return invocations.getOrDefault(methodName, List.of());
+    }
+
+    /**
+     * Returns all constructor calls of the given type in the model, including anonymous classes.
+     * @param qualifiedTypeName  the qualified name of the created type
+     * @return  the constructor calls, empty if there are none
+     */
+    public List<CtConstructorCall<?>> getConstructorCalls(String qualifiedTypeName) {
+        return constructorCalls.getOrDefault(qualifiedTypeName, List.of());
+    }
+
+    /**
+     * Returns the calls inside a top-level type of the model, including its nested types.
+     * @param type  the type
+     * @return  the calls of the type, or null if it is no top-level type of the indexed model
+     */
+    public @Nullable TypeCalls getCalls(CtType<?> type) {
+        return callsPerType.get(type);
+    }
+
+    private static String invocationKey(String methodName) {
+        return "m:" + methodName;
+    }
+
+    private static String constructorKey(String qualifiedTypeName) {
+        return "c:" + qualifiedTypeName;
+    }
+
+    /**
+     * The invocations and constructor calls inside a single top-level type.
+     */
+    public static final class TypeCalls {
+
+        private final Map<String, List<Call>> callsByKey = new HashMap<>();
+        private int size;
+
+        private TypeCalls() {}
+
+        private void add(String key, CtAbstractInvocation<?> call) {
+            callsByKey.computeIfAbsent(key, v -> new ArrayList<>()).add(new Call(size++, call));
+        }
+
+        /**
+         * Checks if the type invokes a method with the given simple name.
+         * @param methodName  the simple name of the method
+         * @return  true if there is at least one invocation
+         */
+        public boolean containsInvocation(String methodName) {
+            return callsByKey.containsKey(invocationKey(methodName));
+        }
+
+        /**
+         * Checks if the type calls a constructor of the given type.
+         * @param qualifiedTypeName  the qualified name of the created type
+         * @return  true if there is at least one constructor call
+         */
+        public boolean containsConstructorCall(String qualifiedTypeName) {
+            return callsByKey.containsKey(constructorKey(qualifiedTypeName));
+        }
+
+        /**
+         * Checks if the type contains any of the given calls.
+         * @param methodNames  the simple names of the methods
+         * @param qualifiedTypeNames  the qualified names of the created types
+         * @return  true if there is at least one matching invocation or constructor call
+         */
+        public boolean containsAny(Collection<String> methodNames, Collection<String> qualifiedTypeNames) {
+            return methodNames.stream().anyMatch(this::containsInvocation)
+                    || qualifiedTypeNames.stream().anyMatch(this::containsConstructorCall);
+        }
+
+        /**
+         * Returns the matching calls in traversal order of the type.
+         * @param methodNames  the simple names of the methods
+         * @param qualifiedTypeNames  the qualified names of the created types
+         * @return  the matching invocations and constructor calls
+         */
+        public List<CtAbstractInvocation<?>> getCalls(
+                Collection<String> methodNames, Collection<String> qualifiedTypeNames) {
+            List<Call> calls = new ArrayList<>();
+            for (String methodName : methodNames) {
+                calls.addAll(callsByKey.getOrDefault(invocationKey(methodName), List.of()));
+            }
+            for (String qualifiedTypeName : qualifiedTypeNames) {
+                calls.addAll(callsByKey.getOrDefault(constructorKey(qualifiedTypeName), List.of()));
+            }
+            calls.sort(Comparator.comparingInt(Call::position));
+            return calls.stream().<CtAbstractInvocation<?>>map(Call::element).toList();
+        }
+    }
+
+    private record Call(int position, CtAbstractInvocation<?> element) {}
+}
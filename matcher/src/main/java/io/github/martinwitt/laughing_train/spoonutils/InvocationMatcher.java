@@ -1,13 +1,10 @@
 package io.github.martinwitt.laughing_train.spoonutils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import org.apache.commons.lang3.tuple.Pair;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtTypeAccess;
-import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.declaration.CtExecutable;
+import spoon.reflect.reference.CtExecutableReference;
 import spoon.reflect.visitor.Filter;
 
 /**
@@ -30,8 +27,18 @@ public class InvocationMatcher implements Filter<CtInvocation<?>> {
         this.argsFQN = argsFQN;
     }
 
+    /**
+     * Returns the simple name of the method of matching invocations.
+     * @return the method name
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
     /**
      * Checks if the specified {@link CtInvocation} object matches the target type, method name, and argument types of this {@link InvocationMatcher}.
+     * The checks run cheapest-first: the method name and the number of arguments are compared before any type or
+     * declaration is resolved.
      * @param element the {@link CtInvocation} object to check
      * @return true if the invocation matches, false otherwise
      */
@@ -40,6 +47,16 @@ public class InvocationMatcher implements Filter<CtInvocation<?>> {
             return false;
         }
 
+        // Check if the method name and the number of arguments match
+        CtExecutableReference<?> executable = element.getExecutable();
+        if (executable == null || !methodName.equals(executable.getSimpleName())) {
+            return false;
+        }
+        boolean checksArguments = argsFQN != null && argsFQN.length != 0;
+        if (checksArguments && element.getArguments().size() != argsFQN.length) {
+            return false;
+        }
+
         // Check if the target type matches
         CtExpression<?> target = element.getTarget();
         if (target == null || target.getType() == null) {
@@ -55,30 +72,16 @@ public class InvocationMatcher implements Filter<CtInvocation<?>> {
             }
         }
 
-        // Check if the method name matches
-        if (Optional.ofNullable(element.getExecutable())
-                .map(v -> v.getExecutableDeclaration())
-                .filter(v -> v.getSimpleName().equals(methodName))
-                .isEmpty()) {
+        // Check if the invoked method can be resolved
+        CtExecutable<?> declaration = executable.getExecutableDeclaration();
+        if (declaration == null || !declaration.getSimpleName().equals(methodName)) {
             return false;
         }
 
         // Check if the argument types match
-        if (argsFQN == null || argsFQN.length == 0) {
+        if (!checksArguments) {
             return true;
         }
-        if (element.getArguments().size() != argsFQN.length) {
-            return false;
-        }
-        if (element.getArguments().stream().anyMatch(arg -> arg.getType() == null)) {
-            return false;
-        }
-        List<Pair<CtTypeReference<?>, CtExpression<?>>> zipped = new ArrayList<>();
-        for (int i = 0; i < argsFQN.length && i < element.getArguments().size(); i++) {
-            zipped.add(Pair.of(
-                    element.getFactory().createReference(argsFQN[i]),
-                    element.getArguments().get(i)));
-        }
-        return zipped.stream().allMatch(pair -> pair.getRight().getType().isSubtypeOf(pair.getLeft()));
+        return ArgumentTypes.match(element.getArguments(), argsFQN);
     }
 }
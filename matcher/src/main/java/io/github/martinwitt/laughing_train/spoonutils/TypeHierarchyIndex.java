@@ -0,0 +1,240 @@
+package io.github.martinwitt.laughing_train.spoonutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.SpoonException;
+import spoon.reflect.CtModel;
+import spoon.reflect.declaration.CtPackage;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.declaration.CtTypeParameter;
+import spoon.reflect.factory.Factory;
+import spoon.reflect.reference.CtArrayTypeReference;
+import spoon.reflect.reference.CtTypeParameterReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+/**
+ * An index of the transitive supertypes and subtypes of all types in a model, keyed by their qualified names.
+ * Queries are answered by a lookup instead of walking the hierarchy like {@link CtTypeReference#isSubtypeOf}.
+ * <p>
+ * The index is built once per model, see {@link #of(CtModel)}. Types outside the model, e.g. of the JDK, are added
+ * when a type of the model or a query references them. Changes of the hierarchy after the index was built are not
+ * seen, so the index is meant for analyses that only read the model. A changed model needs a new index, see
+ * {@link #rebuild(CtModel)}. All methods are thread-safe.
+ */
+public final class TypeHierarchyIndex {
+
+    private static final String METADATA_KEY = TypeHierarchyIndex.class.getName();
+    private static final String OBJECT = "java.lang.Object";
+
+    private final Map<String, Set<String>> supertypes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> subtypes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> implementedInterfaces = new ConcurrentHashMap<>();
+    private final Set<String> interfaces = ConcurrentHashMap.newKeySet();
+    private final Map<String, CtTypeReference<?>> references = new ConcurrentHashMap<>();
+    private final Factory factory;
+
+    private TypeHierarchyIndex(CtModel model) {
+        this.factory = model.getRootPackage().getFactory();
+        for (CtType<?> type : model.getElements(new TypeFilter<CtType<?>>(CtType.class))) {
+            if (!(type instanceof CtTypeParameter)) {
+                computeSupertypes(type.getQualifiedName(), type, new HashSet<>());
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given model. The index is built on the first call and stored in the model, so later
+     * calls for the same model return the same index.
+     * @param model  the model to index
+     * @return  the index of the model
+     */
+    public static TypeHierarchyIndex of(CtModel model) {
+        CtPackage rootPackage = model.getRootPackage();
+        synchronized (rootPackage) {
+            Object index = rootPackage.getMetadata(METADATA_KEY);
+            if (index instanceof TypeHierarchyIndex typeHierarchyIndex) {
+                return typeHierarchyIndex;
+            }
+            return rebuild(model);
+        }
+    }
+
+    /**
+     * Builds a new index of the given model and stores it in place of the current one. Call this after the model was
+     * changed, e.g. by a transformation, so later calls of {@link #of(CtModel)} don't return the outdated index.
+     * @param model  the model to index
+     * @return  the new index of the model
+     */
+    public static TypeHierarchyIndex rebuild(CtModel model) {
+        CtPackage rootPackage = model.getRootPackage();
+        synchronized (rootPackage) {
+            TypeHierarchyIndex newIndex = new TypeHierarchyIndex(model);
+            rootPackage.putMetadata(METADATA_KEY, newIndex);
+            return newIndex;
+        }
+    }
+
+    /**
+     * Returns the index of the model of the given factory, see {@link #of(CtModel)}.
+     * @param factory  the factory of the model
+     * @return  the index of the model
+     */
+    public static TypeHierarchyIndex of(Factory factory) {
+        return of(factory.getModel());
+    }
+
+    /**
+     * Checks if a type is a subtype of another type. Like {@link CtTypeReference#isSubtypeOf}, a type is a subtype of
+     * itself and every indexed type is a subtype of {@code java.lang.Object}.
+     * @param qualifiedName  the qualified name of the possible subtype
+     * @param superTypeName  the qualified name of the possible supertype
+     * @return  true if the type is a subtype, false if not or if the type is unknown to the index
+     */
+    public boolean isSubtypeOf(String qualifiedName, String superTypeName) {
+        if (qualifiedName.equals(superTypeName)) {
+            return true;
+        }
+        Set<String> knownSupertypes = supertypes.get(qualifiedName);
+        if (knownSupertypes == null) {
+            return false;
+        }
+        return superTypeName.equals(OBJECT) || knownSupertypes.contains(superTypeName);
+    }
+
+    /**
+     * Checks if a referenced type is a subtype of another type. Types unknown to the index are added to it. Arrays and
+     * type parameters are not indexed, for them the check falls back to {@link CtTypeReference#isSubtypeOf}.
+     * @param type  the possible subtype
+     * @param superTypeName  the qualified name of the possible supertype
+     * @return  true if the type is a subtype
+     */
+    public boolean isSubtypeOf(CtTypeReference<?> type, String superTypeName) {
+        if (type instanceof CtArrayTypeReference || type instanceof CtTypeParameterReference) {
+            return type.isSubtypeOf(getReference(superTypeName));
+        }
+        if (type.isPrimitive()) {
+            return type.getQualifiedName().equals(superTypeName);
+        }
+        String qualifiedName = type.getQualifiedName();
+        if (!supertypes.containsKey(qualifiedName)) {
+            computeSupertypes(qualifiedName, resolve(type), new HashSet<>());
+        }
+        return isSubtypeOf(qualifiedName, superTypeName);
+    }
+
+    /**
+     * Checks if a referenced type is a subtype of another referenced type, see
+     * {@link #isSubtypeOf(CtTypeReference, String)}.
+     * @param type  the possible subtype
+     * @param superType  the possible supertype
+     * @return  true if the type is a subtype
+     */
+    public boolean isSubtypeOf(CtTypeReference<?> type, CtTypeReference<?> superType) {
+        if (superType instanceof CtArrayTypeReference || superType instanceof CtTypeParameterReference) {
+            return type.isSubtypeOf(superType);
+        }
+        return isSubtypeOf(type, superType.getQualifiedName());
+    }
+
+    /**
+     * Returns the transitive supertypes of a type, without the type itself and {@code java.lang.Object}.
+     * @param qualifiedName  the qualified name of the type
+     * @return  the qualified names of the supertypes, empty if the type is unknown to the index
+     */
+    public Set<String> getSupertypes(String qualifiedName) {
+        return supertypes.getOrDefault(qualifiedName, Set.of());
+    }
+
+    /**
+     * Returns the transitive subtypes of a type, without the type itself. Only subtypes known to the index are
+     * returned, these are the types of the model and the types added by queries.
+     * @param qualifiedName  the qualified name of the type
+     * @return  the qualified names of the subtypes
+     */
+    public Set<String> getSubtypes(String qualifiedName) {
+        return Collections.unmodifiableSet(subtypes.getOrDefault(qualifiedName, Set.of()));
+    }
+
+    /**
+     * Returns all interfaces a type implements, directly or by one of its supertypes.
+     * @param qualifiedName  the qualified name of the type
+     * @return  the qualified names of the interfaces, empty if the type is unknown to the index
+     */
+    public Set<String> getImplementedInterfaces(String qualifiedName) {
+        return implementedInterfaces.getOrDefault(qualifiedName, Set.of());
+    }
+
+    /**
+     * Returns a reference to a type, created once per name and model. The reference has no parent and must not be
+     * added to the model, it is only meant for comparisons.
+     * @param qualifiedName  the qualified name of the type, e.g. {@code java.lang.String} or {@code byte[]}
+     * @return  the shared reference
+     */
+    public CtTypeReference<?> getReference(String qualifiedName) {
+        return references.computeIfAbsent(qualifiedName, factory.Type()::createReference);
+    }
+
+    /**
+     * Computes the supertypes of a type and all its supertypes. Types in a cyclic hierarchy, which only exists in
+     * broken code, get the supertypes found until the cycle was detected.
+     */
+    private Set<String> computeSupertypes(String qualifiedName, @Nullable CtType<?> declaration, Set<String> visited) {
+        Set<String> known = supertypes.get(qualifiedName);
+        if (known != null) {
+            return known;
+        }
+        if (!visited.add(qualifiedName)) {
+            return Set.of();
+        }
+        Set<String> result = new HashSet<>();
+        if (declaration != null) {
+            if (declaration.isInterface()) {
+                interfaces.add(qualifiedName);
+            }
+            for (CtTypeReference<?> directSupertype : getDirectSupertypes(declaration)) {
+                String name = directSupertype.getQualifiedName();
+                result.add(name);
+                result.addAll(computeSupertypes(name, resolve(directSupertype), visited));
+            }
+        }
+        result.remove(OBJECT);
+        Set<String> computed = Set.copyOf(result);
+        // the supertypes were computed before, so it is known which of them are interfaces
+        implementedInterfaces.putIfAbsent(
+                qualifiedName, computed.stream().filter(interfaces::contains).collect(Collectors.toUnmodifiableSet()));
+        supertypes.putIfAbsent(qualifiedName, computed);
+        for (String supertype : computed) {
+            subtypes.computeIfAbsent(supertype, v -> ConcurrentHashMap.newKeySet())
+                    .add(qualifiedName);
+        }
+        return computed;
+    }
+
+    private static List<CtTypeReference<?>> getDirectSupertypes(CtType<?> declaration) {
+        List<CtTypeReference<?>> result = new ArrayList<>(declaration.getSuperInterfaces());
+        CtTypeReference<?> superclass = declaration.getSuperclass();
+        if (superclass != null) {
+            result.add(superclass);
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the declaration of a type. In noclasspath mode, types of missing libraries can't be resolved.
+     */
+    private static @Nullable CtType<?> resolve(CtTypeReference<?> type) {
+        try {
+            return type.getTypeDeclaration();
+        } catch (SpoonException e) {
+            return null;
+        }
+    }
+}
@@ -15,4 +15,28 @@ public interface Matcher<T> {
      * @return true if the element matches the criteria, false otherwise
      */
     boolean matches(T element);
+
+    /**
+     * Returns the relative cost of this matcher. {@link Matchers#allOf} checks cheaper matchers first, so expensive
+     * checks only run for elements that passed all cheap ones.
+     *
+     * @return the cost of this matcher, {@link Cost#UNKNOWN} for matchers that don't declare one
+     */
+    default Cost cost() {
+        return Cost.UNKNOWN;
+    }
+
+    /**
+     * The relative cost of a matcher, from cheapest to most expensive.
+     */
+    enum Cost {
+        /** Checks the kind of an element, a flag or a modifier. */
+        STRUCTURE,
+        /** Compares a name or a literal value. */
+        NAME,
+        /** Resolves a type or walks the type hierarchy. */
+        TYPE,
+        /** Arbitrary checks, e.g. lambdas. They are ordered last. */
+        UNKNOWN
+    }
 }
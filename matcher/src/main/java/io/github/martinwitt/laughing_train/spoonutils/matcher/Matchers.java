@@ -1,5 +1,10 @@
 package io.github.martinwitt.laughing_train.spoonutils.matcher;
 
+import io.github.martinwitt.laughing_train.spoonutils.TypeHierarchyIndex;
+import io.github.martinwitt.laughing_train.spoonutils.matcher.Matcher.Cost;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtLiteral;
 import spoon.reflect.declaration.CtModifiable;
@@ -10,6 +15,9 @@ import spoon.reflect.factory.Factory;
 
 /**
  * A utility class for creating matchers for Spoon elements.
+ * <p>
+ * Every matcher declares its {@link Matcher#cost()}. {@link #allOf} compiles a matcher tree into a flat list of checks
+ * ordered cheapest-first, so type resolution only happens for elements that passed the cheap structural checks.
  */
 public final class Matchers {
 
@@ -19,7 +27,7 @@ public final class Matchers {
      * @return a matcher that matches elements that are public
      */
     public static Matcher<CtModifiable> isPublic() {
-        return v -> v.getModifiers().contains(ModifierKind.PUBLIC);
+        return withCost(Cost.STRUCTURE, v -> v.getModifiers().contains(ModifierKind.PUBLIC));
     }
 
     /**
@@ -28,7 +36,7 @@ public final class Matchers {
      * @return a matcher that matches elements that are private
      */
     public static Matcher<CtModifiable> isPrivate() {
-        return v -> v.getModifiers().contains(ModifierKind.PRIVATE);
+        return withCost(Cost.STRUCTURE, v -> v.getModifiers().contains(ModifierKind.PRIVATE));
     }
 
     /**
@@ -37,7 +45,7 @@ public final class Matchers {
      * @return a matcher that matches elements that are enums
      */
     public static Matcher<CtType<?>> isEnum() {
-        return v -> v.isEnum();
+        return withCost(Cost.STRUCTURE, v -> v.isEnum());
     }
 
     /**
@@ -47,9 +55,11 @@ public final class Matchers {
      * @return a matcher that matches elements that are integer literals with the given value
      */
     public static Matcher<CtExpression<?>> isLiteral(int literal) {
-        return v -> v instanceof CtLiteral
-                && ((CtLiteral<?>) v).getValue() instanceof Integer value
-                && value.equals(literal);
+        return withCost(
+                Cost.NAME,
+                v -> v instanceof CtLiteral
+                        && ((CtLiteral<?>) v).getValue() instanceof Integer value
+                        && value.equals(literal));
     }
 
     /**
@@ -58,7 +68,7 @@ public final class Matchers {
      * @return a matcher that matches elements that are final
      */
     public static Matcher<CtModifiable> isFinal() {
-        return v -> v.getModifiers().contains(ModifierKind.FINAL);
+        return withCost(Cost.STRUCTURE, v -> v.getModifiers().contains(ModifierKind.FINAL));
     }
 
     /**
@@ -67,18 +77,19 @@ public final class Matchers {
      * @return a matcher that matches elements that are static
      */
     public static Matcher<CtModifiable> isStatic() {
-        return v -> v.isStatic();
+        return withCost(Cost.STRUCTURE, v -> v.isStatic());
     }
 
     /**
      * Returns a matcher that matches elements that are subtypes of the given class.
+     * The hierarchy is looked up in the {@link TypeHierarchyIndex} of the model of the factory.
      * @param fqClassname  fully qualified classname of the class to match e.g. java.lang.String
-     * @param factory    spoon factory to create a reference to the class
+     * @param factory    spoon factory of the model containing the matched elements
      * @return  a matcher that matches elements that are subtypes of the given class
      */
     public static Matcher<CtTypedElement<?>> isSubtypeOf(String fqClassname, Factory factory) {
-        return v ->
-                v.getType() != null && v.getType().isSubtypeOf(factory.Type().createReference(fqClassname));
+        TypeHierarchyIndex index = TypeHierarchyIndex.of(factory);
+        return withCost(Cost.TYPE, v -> v.getType() != null && index.isSubtypeOf(v.getType(), fqClassname));
     }
 
     /**
@@ -88,26 +99,74 @@ public final class Matchers {
      * @return  a matcher that matches elements that are the same type as the matched element
      */
     public static Matcher<CtTypedElement<?>> isType(String fqClassname, Factory factory) {
-        return v -> v.getType() != null && v.getType().getQualifiedName().equals(fqClassname);
+        return withCost(
+                Cost.NAME,
+                v -> v.getType() != null && v.getType().getQualifiedName().equals(fqClassname));
     }
 
     /**
      * Returns a matcher that matches elements that match all of the given matchers.
+     * Nested {@code allOf} matchers are flattened and all checks are ordered by their {@link Matcher#cost()}, keeping
+     * the given order for checks of the same cost. The first failing check stops the evaluation.
      *
-     * @param matchers the matchers to match
+     * @param matchers the matchers to match, they may accept any supertype of the matched elements
      * @param <T>      the type of elements to match
      * @return a matcher that matches elements that match all of the given matchers
      */
     @SafeVarargs
-    public static <T> Matcher<T> allOf(Matcher<T>... matchers) {
-        return v -> {
-            for (Matcher<T> matcher : matchers) {
-                if (!matcher.matches(v)) {
+    @SuppressWarnings("unchecked")
+    public static <T> Matcher<T> allOf(Matcher<? super T>... matchers) {
+        List<Matcher<? super T>> checks = new ArrayList<>();
+        for (Matcher<? super T> matcher : matchers) {
+            if (matcher instanceof AllOf<?> allOf) {
+                // the checks of a matcher for a supertype of T accept T too
+                checks.addAll(List.of((Matcher<? super T>[]) allOf.checks));
+            } else {
+                checks.add(matcher);
+            }
+        }
+        // List.sort is stable, checks of the same cost keep their order
+        checks.sort(Comparator.comparing(Matcher::cost));
+        return new AllOf<>(checks.toArray(new Matcher[0]));
+    }
+
+    private static <T> Matcher<T> withCost(Cost cost, Matcher<T> matcher) {
+        return new CostedMatcher<>(cost, matcher);
+    }
+
+    private record CostedMatcher<T>(Cost cost, Matcher<T> delegate) implements Matcher<T> {
+
+        @Override
+        public boolean matches(T element) {
+            return delegate.matches(element);
+        }
+    }
+
+    /**
+     * A compiled conjunction, its checks are already flattened and sorted.
+     */
+    private static final class AllOf<T> implements Matcher<T> {
+
+        private final Matcher<? super T>[] checks;
+
+        private AllOf(Matcher<? super T>[] checks) {
+            this.checks = checks;
+        }
+
+        @Override
+        public boolean matches(T element) {
+            for (Matcher<? super T> check : checks) {
+                if (!check.matches(element)) {
                     return false;
                 }
             }
             return true;
-        };
+        }
+
+        @Override
+        public Cost cost() {
+            return checks.length == 0 ? Cost.STRUCTURE : checks[checks.length - 1].cost();
+        }
     }
 
     private Matchers() {
@@ -0,0 +1,110 @@
+package io.github.martinwitt.laughing_train.spoonutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtConstructorCall;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+class CallMatcherTableTest {
+
+    private static final String CODE =
+            """
+        import java.util.ArrayList;
+        import java.util.List;
+        public class A {
+          void foo(List<String> list, String s) {
+            list.size();
+            s.length();
+            s.isEmpty();
+            new ArrayList<String>();
+            new StringBuilder();
+          }
+        }
+        """;
+
+    @Test
+    void invocationsAreOnlyCheckedByMatchersOfTheirName() {
+        CtModel model = buildModel();
+        List<String> checkedNames = new ArrayList<>();
+        CallMatcherTable table = new CallMatcherTable(
+                List.of(
+                        recording("java.util.List", "size", checkedNames),
+                        recording("java.lang.String", "length", checkedNames),
+                        recording("java.lang.StringBuilder", "length", checkedNames)),
+                List.of());
+
+        assertThat(table.countMatches(invocation(model, "size"))).isEqualTo(1);
+        assertThat(checkedNames).containsExactly("size");
+        checkedNames.clear();
+        assertThat(table.countMatches(invocation(model, "length"))).isEqualTo(1);
+        assertThat(checkedNames).containsExactly("length", "length");
+        checkedNames.clear();
+        assertThat(table.matches(invocation(model, "isEmpty"))).isFalse();
+        assertThat(checkedNames).isEmpty();
+    }
+
+    @Test
+    void allMatchersOfANameAreCounted() {
+        CtModel model = buildModel();
+        CallMatcherTable table = new CallMatcherTable(
+                List.of(
+                        new InvocationMatcher("java.lang.String", "length"),
+                        new InvocationMatcher("java.lang.String", "length")),
+                List.of());
+
+        assertThat(table.countMatches(invocation(model, "length"))).isEqualTo(2);
+        assertThat(table.getMethodNames()).containsExactly("length");
+    }
+
+    @Test
+    void constructorCallsAreDispatchedByTheirType() {
+        CtModel model = buildModel();
+        CallMatcherTable table = new CallMatcherTable(
+                List.of(new InvocationMatcher("java.util.ArrayList", "ArrayList")),
+                List.of(new ConstructorMatcher("java.util.ArrayList")));
+
+        assertThat(table.countMatches(constructorCall(model, "java.util.ArrayList")))
+                .isEqualTo(1);
+        assertThat(table.matches(constructorCall(model, "java.lang.StringBuilder")))
+                .isFalse();
+        assertThat(table.getConstructorTypes()).containsExactly("java.util.ArrayList");
+    }
+
+    private static InvocationMatcher recording(String targetType, String methodName, List<String> checkedNames) {
+        return new InvocationMatcher(targetType, methodName) {
+            @Override
+            public boolean matches(CtInvocation<?> element) {
+                checkedNames.add(methodName);
+                return super.matches(element);
+            }
+        };
+    }
+
+    private static CtModel buildModel() {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.addInputResource(new VirtualFile(CODE, "A.java"));
+        return launcher.buildModel();
+    }
+
+    private static CtInvocation<?> invocation(CtModel model, String methodName) {
+        return model.getElements(new TypeFilter<CtInvocation<?>>(CtInvocation.class)).stream()
+                .filter(v -> v.getExecutable().getSimpleName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static CtConstructorCall<?> constructorCall(CtModel model, String typeName) {
+        return model.getElements(new TypeFilter<CtConstructorCall<?>>(CtConstructorCall.class)).stream()
+                .filter(v -> v.getType().getQualifiedName().equals(typeName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
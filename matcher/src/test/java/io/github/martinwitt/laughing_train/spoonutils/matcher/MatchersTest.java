@@ -0,0 +1,85 @@
+package io.github.martinwitt.laughing_train.spoonutils.matcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.laughing_train.spoonutils.matcher.Matcher.Cost;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MatchersTest {
+
+    @Test
+    void checksAreOrderedByCost() {
+        List<String> calls = new ArrayList<>();
+        Matcher<Object> matcher = Matchers.allOf(
+                check("unknown", Cost.UNKNOWN, true, calls),
+                check("type", Cost.TYPE, true, calls),
+                check("name", Cost.NAME, true, calls),
+                check("structure", Cost.STRUCTURE, true, calls));
+
+        assertThat(matcher.matches(new Object())).isTrue();
+        assertThat(calls).containsExactly("structure", "name", "type", "unknown");
+        assertThat(matcher.cost()).isEqualTo(Cost.UNKNOWN);
+    }
+
+    @Test
+    void nestedMatchersAreFlattened() {
+        List<String> calls = new ArrayList<>();
+        Matcher<Object> inner =
+                Matchers.allOf(check("type", Cost.TYPE, true, calls), check("structure", Cost.STRUCTURE, true, calls));
+        Matcher<Object> matcher = Matchers.allOf(inner, check("name", Cost.NAME, true, calls));
+
+        // without flattening, the inner matcher would be ordered by its most expensive check
+        assertThat(matcher.matches(new Object())).isTrue();
+        assertThat(calls).containsExactly("structure", "name", "type");
+    }
+
+    @Test
+    void checksOfTheSameCostKeepTheirOrder() {
+        List<String> calls = new ArrayList<>();
+        Matcher<Object> matcher = Matchers.allOf(
+                check("first", Cost.NAME, true, calls),
+                check("second", Cost.NAME, true, calls),
+                check("lambda", Cost.UNKNOWN, true, calls),
+                check("third", Cost.NAME, true, calls));
+
+        assertThat(matcher.matches(new Object())).isTrue();
+        assertThat(calls).containsExactly("first", "second", "third", "lambda");
+    }
+
+    @Test
+    void firstFailingCheckStopsTheEvaluation() {
+        List<String> calls = new ArrayList<>();
+        Matcher<Object> matcher = Matchers.allOf(
+                check("type", Cost.TYPE, true, calls),
+                check("name", Cost.NAME, false, calls),
+                check("structure", Cost.STRUCTURE, true, calls));
+
+        assertThat(matcher.matches(new Object())).isFalse();
+        assertThat(calls).containsExactly("structure", "name");
+    }
+
+    @Test
+    void emptyMatcherMatchesEverything() {
+        Matcher<Object> matcher = Matchers.allOf();
+
+        assertThat(matcher.matches(new Object())).isTrue();
+        assertThat(matcher.cost()).isEqualTo(Cost.STRUCTURE);
+    }
+
+    private static Matcher<Object> check(String name, Cost cost, boolean result, List<String> calls) {
+        return new Matcher<>() {
+            @Override
+            public boolean matches(Object element) {
+                calls.add(name);
+                return result;
+            }
+
+            @Override
+            public Cost cost() {
+                return cost;
+            }
+        };
+    }
+}
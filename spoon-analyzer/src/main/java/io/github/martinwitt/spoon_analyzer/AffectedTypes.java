@@ -0,0 +1,80 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+/**
+ * Selects the types of a model whose bad smells may change if some of its files change.
+ * <p>
+ * These are the types of the changed files and the types of every file that references a type declared in a changed
+ * file, e.g. by extending it or calling its methods. Only direct references count: a type extending a subtype of a
+ * changed type is not affected, even if an analyzer looks at the whole hierarchy. Types that referenced a type of a
+ * deleted file can't be found, because the deleted type is no longer part of the model.
+ */
+final class AffectedTypes {
+
+    private AffectedTypes() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Returns the types affected by the changed files, in the order of the given types. All types of a file are
+     * selected together, so the results of the selected files are complete.
+     * @param types  the top level types of the model
+     * @param changedFiles  the absolute and normalized paths of the changed files
+     * @return  the affected types
+     */
+    static List<CtType<?>> select(List<CtType<?>> types, Set<Path> changedFiles) {
+        Set<String> changedTypeNames = new HashSet<>();
+        for (CtType<?> type : types) {
+            if (isDeclaredIn(type, changedFiles)) {
+                for (CtType<?> declaredType : type.getElements(new TypeFilter<CtType<?>>(CtType.class))) {
+                    changedTypeNames.add(declaredType.getQualifiedName());
+                }
+            }
+        }
+        Set<Path> affectedFiles = new HashSet<>(changedFiles);
+        for (CtType<?> type : types) {
+            Path file = fileOf(type);
+            if (file != null && !affectedFiles.contains(file) && references(type, changedTypeNames)) {
+                affectedFiles.add(file);
+            }
+        }
+        List<CtType<?>> affectedTypes = new ArrayList<>();
+        for (CtType<?> type : types) {
+            if (isDeclaredIn(type, affectedFiles)) {
+                affectedTypes.add(type);
+            }
+        }
+        return affectedTypes;
+    }
+
+    /**
+     * Returns the absolute and normalized path of the file declaring the type or null if the type has no file.
+     */
+    static @Nullable Path fileOf(CtType<?> type) {
+        File file = type.getPosition().getFile();
+        return file == null ? null : file.toPath().toAbsolutePath().normalize();
+    }
+
+    private static boolean isDeclaredIn(CtType<?> type, Set<Path> files) {
+        Path file = fileOf(type);
+        return file != null && files.contains(file);
+    }
+
+    private static boolean references(CtType<?> type, Set<String> typeNames) {
+        if (typeNames.isEmpty()) {
+            return false;
+        }
+        return type.getElements(new TypeFilter<CtTypeReference<?>>(CtTypeReference.class)).stream()
+                .anyMatch(v -> typeNames.contains(v.getQualifiedName()));
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The time an analysis may spend on a single type and on a whole project. The budgets are checked cooperatively:
+ * a type is abandoned while its elements are scanned, a project stops before analyzing its next type or batch.
+ * Exceeded budgets are reported to {@link AnalysisListener#typeTimedOut} and {@link AnalysisListener#projectTimedOut}.
+ *
+ * @param perType  the time all analyzers together may spend on a single type
+ * @param perProject  the time the analysis of a project may take, including building the models
+ */
+public record AnalysisBudget(Duration perType, Duration perProject) {
+
+    /**
+     * A budget without any limit.
+     */
+    public static final AnalysisBudget UNLIMITED =
+            new AnalysisBudget(ChronoUnit.FOREVER.getDuration(), ChronoUnit.FOREVER.getDuration());
+
+    public AnalysisBudget {
+        if (perType.isNegative() || perType.isZero()) {
+            throw new IllegalArgumentException("The budget per type must be positive, but was " + perType);
+        }
+        if (perProject.isNegative() || perProject.isZero()) {
+            throw new IllegalArgumentException("The budget per project must be positive, but was " + perProject);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.time.Duration;
+
+/**
+ * Receives performance data of an analysis, e.g. to export it as metrics. All methods may be called concurrently from
+ * different threads and should return quickly.
+ */
+public interface AnalysisListener {
+
+    /**
+     * A listener that ignores all events. Analyzers skip measuring the time if this listener is used.
+     */
+    AnalysisListener NONE = new AnalysisListener() {};
+
+    /**
+     * Phase name for building the spoon model.
+     */
+    String PHASE_MODEL_BUILD = "model-build";
+    /**
+     * Phase name for running the analyzers on all types.
+     */
+    String PHASE_ANALYSIS = "analysis";
+    /**
+     * Phase name for converting bad smells into analyzer results.
+     */
+    String PHASE_CONVERSION = "conversion";
+
+    /**
+     * Called after a phase of an analysis finished.
+     * @param phase  the name of the phase, e.g. {@link #PHASE_MODEL_BUILD}
+     * @param duration  the time spent in the phase
+     */
+    default void phaseFinished(String phase, Duration duration) {}
+
+    /**
+     * Called after the model of a project was built.
+     * @param numberOfTypes  the number of types in the model
+     */
+    default void modelBuilt(int numberOfTypes) {}
+
+    /**
+     * Called after an analyzer analyzed a single type.
+     * @param ruleId  the rule of the analyzer, see {@link LocalAnalyzer#getRuleId()}
+     * @param duration  the time the analyzer spent on the type
+     * @param numberOfResults  the number of bad smells the analyzer found in the type
+     */
+    default void analyzerFinished(String ruleId, Duration duration, int numberOfResults) {}
+
+    /**
+     * Called if the analyzers exceeded the time budget of a type. The results of the analyzers that scan the elements
+     * of the type are dropped, the type counts as analyzed.
+     * @param qualifiedName  the qualified name of the type
+     * @param ruleId  the rule that spent the most time on the type
+     * @param budget  the exceeded budget per type
+     */
+    default void typeTimedOut(String qualifiedName, String ruleId, Duration budget) {}
+
+    /**
+     * Called if the analysis of a project exceeded its time budget. The types and batches not analyzed before the
+     * budget was exceeded are skipped.
+     * @param budget  the exceeded budget per project
+     * @param skippedTypes  the number of types in built models that were not analyzed
+     * @param skippedBatches  the number of batches whose model was not built
+     */
+    default void projectTimedOut(Duration budget, int skippedTypes, int skippedBatches) {}
+}
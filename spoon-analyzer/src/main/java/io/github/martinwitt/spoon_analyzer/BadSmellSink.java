@@ -0,0 +1,21 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.util.List;
+
+/**
+ * Receives bad smells while the analysis is still running. This allows to process the results of a large project
+ * without keeping all of them in memory.
+ * <p>
+ * The sink is called with all bad smells of one type at once. Calls never overlap, but they may come from different
+ * threads. A sink may block, e.g. if a bounded buffer is full. This slows down the analysis until the consumer
+ * caught up.
+ */
+@FunctionalInterface
+public interface BadSmellSink {
+
+    /**
+     * Accepts the bad smells found in a single type.
+     * @param badSmells  the bad smells of the type, never empty
+     */
+    void accept(List<BadSmell> badSmells);
+}
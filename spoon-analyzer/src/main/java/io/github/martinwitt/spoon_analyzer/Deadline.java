@@ -0,0 +1,50 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.time.Duration;
+
+/**
+ * A point in time after which an analysis should stop, based on {@link System#nanoTime()}.
+ */
+final class Deadline {
+
+    /**
+     * Durations longer than this never expire, which also avoids overflows of the nano time.
+     */
+    private static final long MAX_NANOS = Long.MAX_VALUE / 4;
+
+    static final Deadline NONE = new Deadline(0, false);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Creates a deadline the given duration from now.
+     * @param duration  the time until the deadline
+     * @return  the deadline, {@link #NONE} for very long durations
+     */
+    static Deadline after(Duration duration) {
+        if (duration.compareTo(Duration.ofNanos(MAX_NANOS)) >= 0) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + duration.toNanos(), true);
+    }
+
+    /**
+     * @return true if this deadline can expire
+     */
+    boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return true if the deadline has passed
+     */
+    boolean isExceeded() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+}
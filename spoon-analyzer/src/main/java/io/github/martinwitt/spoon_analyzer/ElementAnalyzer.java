@@ -0,0 +1,47 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.util.List;
+import java.util.Optional;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+
+/**
+ * A {@link LocalAnalyzer} that only looks at a single kind of element inside a type.
+ * Instead of scanning the type by itself, it is called by a {@link FusedAnalyzer} for every matching element.
+ * This allows many analyzers to share one traversal of the model.
+ *
+ * @param <T> the kind of element this analyzer is interested in
+ */
+public interface ElementAnalyzer<T extends CtElement> extends LocalAnalyzer {
+
+    /**
+     * Returns the kind of element this analyzer is interested in. Every element that is an instance of this class is
+     * passed to {@link #analyzeElement(CtType, CtElement)}. The raw class literal is enough, e.g.
+     * {@code CtInvocation.class}.
+     * @return the element class, never null
+     */
+    Class<? super T> getElementType();
+
+    /**
+     * Analyzes a single element of the given type.
+     * @param clazz  the type that is currently analyzed, the element is part of its subtree
+     * @param element  the element to analyze
+     * @return  the bad smells found for this element. Never null.
+     */
+    List<BadSmell> analyzeElement(CtType<?> clazz, T element);
+
+    /**
+     * Returns the calls this analyzer needs in a type to find a bad smell. An analyzer returning them promises to find
+     * nothing in types without any of these calls and, if it analyzes invocations or constructor calls, nothing in
+     * other calls. The {@link FusedAnalyzer} uses this to skip the analyzer or to pass it only the matching calls.
+     * @return  the required calls, or empty if the analyzer must see every element of its kind
+     */
+    default Optional<RequiredCalls> getRequiredCalls() {
+        return Optional.empty();
+    }
+
+    @Override
+    default List<BadSmell> analyze(CtType<?> clazz) {
+        return new FusedAnalyzer(List.of(this)).analyze(clazz);
+    }
+}
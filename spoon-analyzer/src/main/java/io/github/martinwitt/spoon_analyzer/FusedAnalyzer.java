@@ -0,0 +1,303 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.errorprone.annotations.Var;
+import io.github.martinwitt.laughing_train.spoonutils.InvocationIndex;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.CtScanner;
+
+/**
+ * Combines multiple {@link LocalAnalyzer}s into one analyzer that visits every type only once.
+ * <p>
+ * All {@link ElementAnalyzer}s share a single {@link CtScanner} pass over the type. Each visited element is dispatched
+ * to the analyzers that declared interest in its kind. All other analyzers are called once per type as before.
+ * Element analyzers with {@link ElementAnalyzer#getRequiredCalls() required calls} are skipped for types without these
+ * calls, or only called for the matching calls, see {@link InvocationIndex}. A type is not scanned at all if no
+ * analyzer needs the scan.
+ * The results are grouped in the order of the given analyzers and contain the same set of results as calling each
+ * analyzer one after another. Within the results of one element analyzer the order follows the visited elements, so it
+ * can differ from the analyzer's own traversal.
+ */
+public class FusedAnalyzer implements LocalAnalyzer {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private final List<LocalAnalyzer> analyzers;
+    private final List<String> ruleIds;
+    private final AnalysisListener listener;
+    private final Duration typeBudget;
+    private final List<Optional<RequiredCalls>> requiredCalls;
+    private final boolean[] analyzesCalls;
+    private final boolean usesIndex;
+    private final ClassValue<int[]> dispatchTable = new ClassValue<>() {
+        @Override
+        protected int[] computeValue(Class<?> elementClass) {
+            return IntStream.range(0, analyzers.size())
+                    .filter(i -> analyzers.get(i) instanceof ElementAnalyzer<?> elementAnalyzer
+                            && elementAnalyzer.getElementType().isAssignableFrom(elementClass))
+                    .toArray();
+        }
+    };
+
+    /**
+     * Creates a new fused analyzer.
+     * @param analyzers  the analyzers to combine. The order defines the order of the results.
+     */
+    public FusedAnalyzer(List<? extends LocalAnalyzer> analyzers) {
+        this(analyzers, AnalysisListener.NONE);
+    }
+
+    /**
+     * Creates a new fused analyzer that reports the time every analyzer spends on a type to the listener.
+     * @param analyzers  the analyzers to combine. The order defines the order of the results.
+     * @param listener  the listener receiving the time and number of results per analyzer and type
+     */
+    public FusedAnalyzer(List<? extends LocalAnalyzer> analyzers, AnalysisListener listener) {
+        this(analyzers, listener, AnalysisBudget.UNLIMITED.perType());
+    }
+
+    /**
+     * Creates a new fused analyzer that stops analyzing a type after the given time. The deadline is checked before
+     * every analyzer and while scanning the elements of the type. If it is exceeded, the results of the element
+     * analyzers are dropped and the timeout is reported to the listener.
+     * @param analyzers  the analyzers to combine. The order defines the order of the results.
+     * @param listener  the listener receiving the time and number of results per analyzer and type
+     * @param typeBudget  the time all analyzers together may spend on a single type
+     */
+    public FusedAnalyzer(List<? extends LocalAnalyzer> analyzers, AnalysisListener listener, Duration typeBudget) {
+        this.analyzers = List.copyOf(analyzers);
+        this.ruleIds = this.analyzers.stream().map(LocalAnalyzer::getRuleId).toList();
+        this.listener = listener;
+        this.typeBudget = typeBudget;
+        this.requiredCalls = this.analyzers.stream()
+                .map(v -> v instanceof ElementAnalyzer<?> elementAnalyzer
+                        ? elementAnalyzer.getRequiredCalls()
+                        : Optional.<RequiredCalls>empty())
+                .toList();
+        this.analyzesCalls = new boolean[this.analyzers.size()];
+        for (int i = 0; i < this.analyzers.size(); i++) {
+            analyzesCalls[i] = requiredCalls.get(i).isPresent()
+                    && CtAbstractInvocation.class.isAssignableFrom(
+                            ((ElementAnalyzer<?>) this.analyzers.get(i)).getElementType());
+        }
+        this.usesIndex = requiredCalls.stream().anyMatch(Optional::isPresent);
+    }
+
+    @Override
+    public List<BadSmell> analyze(CtType<?> clazz) {
+        Deadline deadline = Deadline.after(typeBudget);
+        List<List<BadSmell>> resultsPerAnalyzer = new ArrayList<>(analyzers.size());
+        boolean reported = listener != AnalysisListener.NONE;
+        boolean timed = reported || deadline.isBounded();
+        long[] nanosPerAnalyzer = new long[analyzers.size()];
+        // types that are no top-level types of their model are not indexed, all their analyzers scan the type
+        InvocationIndex.@Nullable TypeCalls calls =
+                usesIndex ? InvocationIndex.of(clazz.getFactory()).getCalls(clazz) : null;
+        boolean[] scanned = new boolean[analyzers.size()];
+        List<Integer> callAnalyzers = new ArrayList<>();
+        @Var boolean needsScan = false;
+        @Var boolean timedOut = false;
+        for (int i = 0; i < analyzers.size(); i++) {
+            LocalAnalyzer analyzer = analyzers.get(i);
+            if (analyzer instanceof ElementAnalyzer) {
+                resultsPerAnalyzer.add(new ArrayList<>());
+                Optional<RequiredCalls> required = requiredCalls.get(i);
+                if (calls == null || required.isEmpty()) {
+                    scanned[i] = true;
+                    needsScan = true;
+                } else if (calls.containsAny(
+                        required.get().methodNames(), required.get().constructorTypes())) {
+                    // analyzers without any required call in the type are neither scanned nor called
+                    if (analyzesCalls[i]) {
+                        callAnalyzers.add(i);
+                    } else {
+                        scanned[i] = true;
+                        needsScan = true;
+                    }
+                }
+            } else if (deadline.isExceeded()) {
+                resultsPerAnalyzer.add(List.of());
+                timedOut = true;
+            } else {
+                long start = timed ? System.nanoTime() : 0;
+                List<BadSmell> badSmells = analyzer.analyze(clazz);
+                nanosPerAnalyzer[i] += timed ? System.nanoTime() - start : 0;
+                resultsPerAnalyzer.add(badSmells == null ? List.of() : badSmells);
+            }
+        }
+        if ((needsScan || !callAnalyzers.isEmpty()) && !timedOut) {
+            try {
+                for (int index : callAnalyzers) {
+                    // only filled if the type has indexed calls
+                    analyzeCalls(
+                            index,
+                            clazz,
+                            Objects.requireNonNull(calls),
+                            resultsPerAnalyzer,
+                            timed ? nanosPerAnalyzer : null,
+                            deadline);
+                }
+                if (needsScan) {
+                    new DispatchingScanner(
+                                    clazz, scanned, resultsPerAnalyzer, timed ? nanosPerAnalyzer : null, deadline)
+                            .scan(clazz);
+                }
+            } catch (TypeTimeoutException e) {
+                timedOut = true;
+            }
+        }
+        if (timedOut) {
+            // the scan stopped somewhere in the type, partial results of the element analyzers are dropped
+            for (int i = 0; i < analyzers.size(); i++) {
+                if (analyzers.get(i) instanceof ElementAnalyzer) {
+                    resultsPerAnalyzer.set(i, List.of());
+                }
+            }
+            String slowestRule = ruleIds.get(indexOfMax(nanosPerAnalyzer));
+            logger.atWarning().log(
+                    "Analysis of %s exceeded the budget of %s, mostly spent in %s",
+                    clazz.getQualifiedName(), typeBudget, slowestRule);
+            listener.typeTimedOut(clazz.getQualifiedName(), slowestRule, typeBudget);
+        }
+        List<BadSmell> badSmells = new ArrayList<>();
+        for (int i = 0; i < analyzers.size(); i++) {
+            badSmells.addAll(resultsPerAnalyzer.get(i));
+            if (reported) {
+                listener.analyzerFinished(
+                        ruleIds.get(i),
+                        Duration.ofNanos(nanosPerAnalyzer[i]),
+                        resultsPerAnalyzer.get(i).size());
+            }
+        }
+        return badSmells;
+    }
+
+    private static int indexOfMax(long[] values) {
+        @Var int index = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the combined analyzers in their result order.
+     * @return an unmodifiable list of the analyzers
+     */
+    public List<LocalAnalyzer> getAnalyzers() {
+        return analyzers;
+    }
+
+    /**
+     * The combined analyzer is type-local only if all its analyzers are.
+     */
+    @Override
+    public boolean isTypeLocal() {
+        return analyzers.stream().allMatch(LocalAnalyzer::isTypeLocal);
+    }
+
+    /**
+     * Passes the matching calls of a type to an analyzer of invocations or constructor calls.
+     */
+    private void analyzeCalls(
+            int index,
+            CtType<?> clazz,
+            InvocationIndex.TypeCalls calls,
+            List<List<BadSmell>> resultsPerAnalyzer,
+            long @Nullable [] nanosPerAnalyzer,
+            Deadline deadline) {
+        ElementAnalyzer<?> analyzer = (ElementAnalyzer<?>) analyzers.get(index);
+        RequiredCalls required = requiredCalls.get(index).orElseThrow();
+        for (CtAbstractInvocation<?> call : calls.getCalls(required.methodNames(), required.constructorTypes())) {
+            if (deadline.isExceeded()) {
+                throw new TypeTimeoutException();
+            }
+            if (!analyzer.getElementType().isInstance(call)) {
+                continue;
+            }
+            long start = nanosPerAnalyzer == null ? 0 : System.nanoTime();
+            resultsPerAnalyzer.get(index).addAll(analyzeElement(analyzer, clazz, call));
+            if (nanosPerAnalyzer != null) {
+                nanosPerAnalyzer[index] += System.nanoTime() - start;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends CtElement> List<BadSmell> analyzeElement(
+            ElementAnalyzer<T> analyzer, CtType<?> clazz, CtElement element) {
+        return analyzer.analyzeElement(clazz, (T) element);
+    }
+
+    /**
+     * Scans the subtree of a type once and calls every interested {@link ElementAnalyzer} for each element.
+     */
+    private final class DispatchingScanner extends CtScanner {
+
+        private final CtType<?> clazz;
+        private final boolean[] scanned;
+        private final List<List<BadSmell>> resultsPerAnalyzer;
+        private final long @Nullable [] nanosPerAnalyzer;
+        private final Deadline deadline;
+
+        /**
+         * @param scanned  the analyzers that need the scan, the others are skipped
+         * @param nanosPerAnalyzer  if not null, the time spent in each analyzer is added to it
+         * @param deadline  the scan throws a {@link TypeTimeoutException} at the first element after the deadline
+         */
+        private DispatchingScanner(
+                CtType<?> clazz,
+                boolean[] scanned,
+                List<List<BadSmell>> resultsPerAnalyzer,
+                long @Nullable [] nanosPerAnalyzer,
+                Deadline deadline) {
+            this.clazz = clazz;
+            this.scanned = scanned;
+            this.resultsPerAnalyzer = resultsPerAnalyzer;
+            this.nanosPerAnalyzer = nanosPerAnalyzer;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void enter(CtElement element) {
+            if (deadline.isExceeded()) {
+                throw new TypeTimeoutException();
+            }
+            for (int index : dispatchTable.get(element.getClass())) {
+                if (!scanned[index]) {
+                    continue;
+                }
+                ElementAnalyzer<?> analyzer = (ElementAnalyzer<?>) analyzers.get(index);
+                if (nanosPerAnalyzer == null) {
+                    resultsPerAnalyzer.get(index).addAll(analyzeElement(analyzer, clazz, element));
+                } else {
+                    long start = System.nanoTime();
+                    resultsPerAnalyzer.get(index).addAll(analyzeElement(analyzer, clazz, element));
+                    nanosPerAnalyzer[index] += System.nanoTime() - start;
+                }
+            }
+        }
+    }
+
+    /**
+     * Aborts the scan of a type that exceeded its budget. It carries no stack trace, because it is always caught.
+     */
+    private static final class TypeTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private TypeTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -5,4 +5,24 @@ import spoon.reflect.declaration.CtType;
 
 public interface LocalAnalyzer {
     List<BadSmell> analyze(CtType<?> clazz);
+
+    /**
+     * Returns the id of the rule checked by this analyzer. By default, this is the class name without the
+     * {@code Analyzer} suffix, which is the {@link BadSmell#getName()} of the found bad smells.
+     * @return the rule id
+     */
+    default String getRuleId() {
+        return getClass().getSimpleName().replaceFirst("Analyzer$", "");
+    }
+
+    /**
+     * Returns whether the bad smells of a type only depend on the file declaring it and on the types it references
+     * directly. Analyzers looking further, e.g. at the whole type hierarchy, must return false, because their bad
+     * smells can change without a change of these files. By default, an analyzer is type-local.
+     * @return true if the bad smells of a type can be reused while its file and the files of its references are
+     *     unchanged
+     */
+    default boolean isTypeLocal() {
+        return true;
+    }
 }
@@ -41,6 +41,23 @@ public class PathUtils {
         return paths.stream().filter(path -> filterNonSourcePath(path)).collect(Collectors.toList());
     }
 
+    /**
+     * Checks if a path is a java file inside a source or test directory. These are the files analyzed for a project.
+     * @param path the path to check
+     * @return true if the path is an analyzed java file
+     */
+    public static boolean isSourceFile(Path path) {
+        if (!path.toString().endsWith(".java")) {
+            return false;
+        }
+        for (Path parent = path.getParent(); parent != null; parent = parent.getParent()) {
+            if (filterNonSourcePath(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean filterNonSourcePath(Path path) {
         return isSourceDirectory(path) || isTestDirectory(path);
     }
@@ -0,0 +1,29 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.util.Set;
+
+/**
+ * The method invocations and constructor calls an {@link ElementAnalyzer} needs to find anything in a type. A
+ * {@link FusedAnalyzer} looks them up in the {@link io.github.martinwitt.laughing_train.spoonutils.InvocationIndex}
+ * of the model and skips the analyzer for types without any of them. Analyzers of invocations or constructor calls
+ * are only called for the matching calls instead of every element of the type.
+ *
+ * @param methodNames  the simple names of the invoked methods
+ * @param constructorTypes  the qualified names of the types created by constructor calls
+ */
+public record RequiredCalls(Set<String> methodNames, Set<String> constructorTypes) {
+
+    public RequiredCalls(Set<String> methodNames, Set<String> constructorTypes) {
+        this.methodNames = Set.copyOf(methodNames);
+        this.constructorTypes = Set.copyOf(constructorTypes);
+    }
+
+    /**
+     * Creates the required calls of an analyzer that only needs invocations of the given methods.
+     * @param methodNames  the simple names of the invoked methods
+     * @return  the required calls
+     */
+    public static RequiredCalls invocationsOf(String... methodNames) {
+        return new RequiredCalls(Set.of(methodNames), Set.of());
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import java.util.HashSet;
+import java.util.Set;
+import spoon.SpoonException;
+import spoon.reflect.CtModel;
+import spoon.reflect.reference.CtTypeParameterReference;
+import spoon.reflect.reference.CtTypeReference;
+import spoon.reflect.visitor.filter.TypeFilter;
+
+/**
+ * Creates the shadow types of a model before it is analyzed by several threads.
+ * <p>
+ * Resolving a reference to a type outside the model, e.g. of the JDK, builds a shadow type by reflection and adds it
+ * to the shadow model of the factory. Only the cache of the shadow types is thread-safe, building them is not.
+ * Resolving every referenced type once on the calling thread means the analyzers only find existing shadow types
+ * later.
+ */
+final class ShadowTypes {
+
+    private ShadowTypes() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Resolves the declaration of every type referenced in the model, each qualified name once.
+     * @param model  the model to prepare for a parallel analysis
+     */
+    static void resolveReferencedTypes(CtModel model) {
+        Set<String> resolved = new HashSet<>();
+        for (CtTypeReference<?> reference :
+                model.getElements(new TypeFilter<CtTypeReference<?>>(CtTypeReference.class))) {
+            if (reference instanceof CtTypeParameterReference || !resolved.add(reference.getQualifiedName())) {
+                continue;
+            }
+            try {
+                reference.getTypeDeclaration();
+            } catch (SpoonException e) {
+                // types of missing libraries can't be resolved in noclasspath mode, the analyzers skip them too
+            }
+        }
+    }
+}
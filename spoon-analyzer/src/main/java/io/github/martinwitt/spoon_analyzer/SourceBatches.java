@@ -0,0 +1,110 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Splits the input of a model into batches with a bounded number of java files. Every batch is built and analyzed
+ * on its own, so only the model of one batch is in memory at a time.
+ * <p>
+ * The source folders of a module ({@code src/main/java} and {@code src/test/java} of the same parent) stay in one
+ * batch, several small modules share a batch. Only modules with more files than the budget are split by file.
+ */
+final class SourceBatches {
+
+    /**
+     * A budget that puts all inputs into a single batch.
+     */
+    static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private SourceBatches() {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Partitions source folders into batches.
+     * @param sourceFolders  the source and test folders of a project
+     * @param maxFilesPerBatch  the maximum number of java files per batch
+     * @return  the batches, each a list of source folders or single files
+     */
+    static List<List<Path>> ofSourceFolders(List<Path> sourceFolders, int maxFilesPerBatch) {
+        if (maxFilesPerBatch == UNBOUNDED || sourceFolders.isEmpty()) {
+            return sourceFolders.isEmpty() ? List.of() : List.of(sourceFolders);
+        }
+        Map<Path, List<Path>> foldersByModule = new LinkedHashMap<>();
+        for (Path folder : sourceFolders) {
+            foldersByModule
+                    .computeIfAbsent(getModule(folder), v -> new ArrayList<>())
+                    .add(folder);
+        }
+        List<List<Path>> batches = new ArrayList<>();
+        @Var List<Path> currentBatch = new ArrayList<>();
+        @Var long filesInCurrentBatch = 0;
+        for (List<Path> moduleFolders : foldersByModule.values()) {
+            List<Path> moduleFiles = findJavaFiles(moduleFolders);
+            if (moduleFiles.size() > maxFilesPerBatch) {
+                batches.addAll(ofFiles(moduleFiles, maxFilesPerBatch));
+                continue;
+            }
+            if (filesInCurrentBatch + moduleFiles.size() > maxFilesPerBatch) {
+                batches.add(currentBatch);
+                currentBatch = new ArrayList<>();
+                filesInCurrentBatch = 0;
+            }
+            currentBatch.addAll(moduleFolders);
+            filesInCurrentBatch += moduleFiles.size();
+        }
+        if (!currentBatch.isEmpty()) {
+            batches.add(currentBatch);
+        }
+        return batches;
+    }
+
+    /**
+     * Partitions single files into batches, keeping their order.
+     * @param files  the java files to partition, as paths or as sources in memory
+     * @param maxFilesPerBatch  the maximum number of files per batch
+     * @return  the batches of files
+     */
+    static <T> List<List<T>> ofFiles(List<T> files, int maxFilesPerBatch) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int start = 0; start < files.size(); start += maxFilesPerBatch) {
+            batches.add(files.subList(start, (int) Math.min((long) start + maxFilesPerBatch, files.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the module of a source folder, the folder containing its {@code src} folder.
+     */
+    private static Path getModule(Path sourceFolder) {
+        @Var Path module = sourceFolder.getParent();
+        for (int i = 0; i < 2 && module != null; i++) {
+            module = module.getParent();
+        }
+        return module == null ? sourceFolder : module;
+    }
+
+    private static List<Path> findJavaFiles(Collection<Path> folders) {
+        List<Path> files = new ArrayList<>();
+        for (Path folder : folders) {
+            try (Stream<Path> stream = Files.walk(folder)) {
+                stream.filter(v -> v.toString().endsWith(".java") && Files.isRegularFile(v))
+                        .sorted()
+                        .forEach(files::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return files;
+    }
+}
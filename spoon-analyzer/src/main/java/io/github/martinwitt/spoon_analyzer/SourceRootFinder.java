@@ -0,0 +1,323 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.errorprone.annotations.Var;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the source and test folders ({@code src/main/java} and {@code src/test/java}) of a project.
+ * <p>
+ * The modules declared in {@code settings.gradle}, {@code settings.gradle.kts} and {@code pom.xml} files are checked
+ * directly, for Gradle together with the implicit {@code buildSrc} module. Only if a project has no build file, or its
+ * settings compute the modules or move them with {@code projectDir}, the project is walked in parallel. The walk
+ * skips hidden folders, build output and dependency folders like {@code node_modules}, and never descends into a
+ * found source folder.
+ * <p>
+ * Layouts read from build files can be cached per project, see {@link #findSourceRoots(String, Path)}. A cached layout
+ * is used as long as the build files are unchanged and all its folders still exist.
+ */
+public class SourceRootFinder {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final List<String> SOURCE_FOLDERS = List.of("src/main/java", "src/test/java");
+    private static final Set<String> SKIPPED_FOLDERS =
+            Set.of("node_modules", "bower_components", "build", "target", "out", "bin", "dist");
+    private static final List<String> GRADLE_SETTINGS = List.of("settings.gradle", "settings.gradle.kts");
+    private static final String MAVEN_POM = "pom.xml";
+    private static final Pattern GRADLE_INCLUDE = Pattern.compile("\\binclude\\b");
+    /**
+     * Settings that place modules outside of the folder named by their path, which is not read from the settings.
+     */
+    private static final Pattern GRADLE_MOVED_MODULES = Pattern.compile("\\b(?:projectDir|includeFlat)\\b");
+
+    private static final Path GRADLE_BUILD_SRC = Path.of("buildSrc");
+    private static final Pattern GRADLE_LITERAL_INCLUDE =
+            Pattern.compile("\\binclude\\s*\\(?((?:\\s*['\"][^'\"\\n]+['\"]\\s*,?)+)");
+    private static final Pattern QUOTED = Pattern.compile("['\"]([^'\"\\n]+)['\"]");
+    private static final Pattern MAVEN_MODULE = Pattern.compile("<module>\\s*([^<]+?)\\s*</module>");
+    private static final int MAX_CACHED_PROJECTS = 256;
+
+    private final Map<String, Layout> layouts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+            return size() > MAX_CACHED_PROJECTS;
+        }
+    };
+
+    /**
+     * Finds the source and test folders of a project.
+     * @param projectRoot  the root folder of the project, or a source folder itself
+     * @return  the existing source and test folders, sorted
+     */
+    public List<Path> findSourceRoots(Path projectRoot) {
+        if (isSourceRoot(projectRoot)) {
+            return List.of(projectRoot);
+        }
+        return readBuildFiles(projectRoot).map(v -> v.resolve(projectRoot)).orElseGet(() -> walk(projectRoot));
+    }
+
+    /**
+     * Finds the source and test folders of a project like {@link #findSourceRoots(Path)} and caches the layout for the
+     * given key. Later calls with the same key, e.g. for another checkout of the same repository, reuse the layout
+     * if the build files have the same content.
+     * @param projectKey  the key of the project, e.g. its url
+     * @param projectRoot  the root folder of the project
+     * @return  the existing source and test folders, sorted
+     */
+    public List<Path> findSourceRoots(String projectKey, Path projectRoot) {
+        Layout cached;
+        synchronized (layouts) {
+            cached = layouts.get(projectKey);
+        }
+        if (cached != null && cached.isValid(projectRoot)) {
+            return cached.resolve(projectRoot);
+        }
+        if (isSourceRoot(projectRoot)) {
+            return List.of(projectRoot);
+        }
+        Optional<Layout> layout = readBuildFiles(projectRoot);
+        if (layout.isEmpty()) {
+            return walk(projectRoot);
+        }
+        synchronized (layouts) {
+            layouts.put(projectKey, layout.get());
+        }
+        return layout.get().resolve(projectRoot);
+    }
+
+    /**
+     * Reads the modules of a project from its build files.
+     * @return  the layout, or empty if there are no build files, the modules are computed or no source folder exists
+     */
+    private static Optional<Layout> readBuildFiles(Path projectRoot) {
+        Set<Path> modules = new TreeSet<>();
+        modules.add(Path.of(""));
+        Map<Path, byte[]> buildFiles = new LinkedHashMap<>();
+        for (String settings : GRADLE_SETTINGS) {
+            Path settingsFile = projectRoot.resolve(settings);
+            if (Files.isRegularFile(settingsFile)) {
+                String content = read(settingsFile, buildFiles);
+                Optional<List<Path>> gradleModules = readGradleModules(content);
+                if (gradleModules.isEmpty()) {
+                    logger.atFine().log("Modules of %s are computed or moved, walking the project", settingsFile);
+                    return Optional.empty();
+                }
+                modules.addAll(gradleModules.get());
+                // gradle builds buildSrc without an include
+                modules.add(GRADLE_BUILD_SRC);
+            }
+        }
+        readMavenModules(projectRoot, Path.of(""), modules, buildFiles, new HashSet<>());
+        if (buildFiles.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Path> roots = new ArrayList<>();
+        for (Path module : modules) {
+            for (String sourceFolder : SOURCE_FOLDERS) {
+                Path root = module.resolve(sourceFolder);
+                if (Files.isDirectory(projectRoot.resolve(root))) {
+                    roots.add(root);
+                }
+            }
+        }
+        if (roots.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Layout(roots, new ArrayList<>(buildFiles.keySet()), fingerprintOf(buildFiles.values())));
+    }
+
+    /**
+     * Returns the module folders of literal {@code include} statements, or empty if any include is not a literal or the
+     * settings change the folder of a module.
+     */
+    private static Optional<List<Path>> readGradleModules(String settings) {
+        if (GRADLE_MOVED_MODULES.matcher(settings).find()) {
+            return Optional.empty();
+        }
+        int includes = countMatches(GRADLE_INCLUDE.matcher(settings));
+        @Var int literalIncludes = 0;
+        List<Path> modules = new ArrayList<>();
+        Matcher include = GRADLE_LITERAL_INCLUDE.matcher(settings);
+        while (include.find()) {
+            literalIncludes++;
+            Matcher name = QUOTED.matcher(include.group(1));
+            while (name.find()) {
+                if (name.group(1).contains("$")) {
+                    // an interpolated project path is computed by the script
+                    return Optional.empty();
+                }
+                String projectPath = name.group(1).replaceAll("^:+", "");
+                modules.add(Path.of(projectPath.replace(':', '/')));
+            }
+        }
+        if (includes != literalIncludes) {
+            return Optional.empty();
+        }
+        return Optional.of(modules);
+    }
+
+    private static void readMavenModules(
+            Path projectRoot, Path module, Set<Path> modules, Map<Path, byte[]> buildFiles, Set<Path> visited) {
+        Path pom = module.resolve(MAVEN_POM);
+        if (!visited.add(pom) || !Files.isRegularFile(projectRoot.resolve(pom))) {
+            return;
+        }
+        Matcher moduleMatcher = MAVEN_MODULE.matcher(read(projectRoot.resolve(pom), buildFiles, pom));
+        while (moduleMatcher.find()) {
+            @Var Path child = module.resolve(moduleMatcher.group(1)).normalize();
+            if (child.endsWith(MAVEN_POM)) {
+                child = child.getParent() == null ? Path.of("") : child.getParent();
+            }
+            // modules outside of the project are not part of its checkout
+            if (child.startsWith("..")) {
+                continue;
+            }
+            modules.add(child);
+            readMavenModules(projectRoot, child, modules, buildFiles, visited);
+        }
+    }
+
+    private static String read(Path settingsFile, Map<Path, byte[]> buildFiles) {
+        return read(settingsFile, buildFiles, settingsFile.getFileName());
+    }
+
+    private static String read(Path file, Map<Path, byte[]> buildFiles, Path relativePath) {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            buildFiles.put(relativePath, content);
+            return new String(content, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.atWarning().withCause(e).log("Could not read build file %s", file);
+            buildFiles.put(relativePath, new byte[0]);
+            return "";
+        }
+    }
+
+    private static int countMatches(Matcher matcher) {
+        @Var int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int fingerprintOf(Iterable<byte[]> contents) {
+        @Var int hash = 1;
+        for (byte[] content : contents) {
+            hash = 31 * hash + Arrays.hashCode(content);
+        }
+        return hash;
+    }
+
+    private static List<Path> walk(Path projectRoot) {
+        if (!Files.isDirectory(projectRoot)) {
+            return List.of();
+        }
+        List<Path> roots = new ArrayList<>(new FolderScan(projectRoot).invoke());
+        roots.sort(null);
+        return roots;
+    }
+
+    private static boolean isSourceRoot(Path folder) {
+        return SOURCE_FOLDERS.stream().anyMatch(v -> folder.endsWith(v));
+    }
+
+    private static boolean isSkipped(Path folder) {
+        String name = folder.getFileName().toString();
+        return name.startsWith(".") || SKIPPED_FOLDERS.contains(name);
+    }
+
+    /**
+     * The source folders of a project relative to its root and the build files they were read from.
+     */
+    private record Layout(List<Path> roots, List<Path> buildFiles, int fingerprint) {
+
+        List<Path> resolve(Path projectRoot) {
+            return roots.stream().map(projectRoot::resolve).toList();
+        }
+
+        boolean isValid(Path projectRoot) {
+            Map<Path, byte[]> contents = new LinkedHashMap<>();
+            for (Path buildFile : buildFiles) {
+                try {
+                    contents.put(buildFile, Files.readAllBytes(projectRoot.resolve(buildFile)));
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            return fingerprintOf(contents.values()) == fingerprint
+                    && GRADLE_SETTINGS.stream()
+                            .allMatch(v -> buildFiles.contains(Path.of(v)) == Files.exists(projectRoot.resolve(v)))
+                    && buildFiles.contains(Path.of(MAVEN_POM)) == Files.exists(projectRoot.resolve(MAVEN_POM))
+                    && roots.stream().allMatch(v -> Files.isDirectory(projectRoot.resolve(v)))
+                    && hasSameBuildSrc(projectRoot);
+        }
+
+        /**
+         * Checks that no source folder of {@code buildSrc} was added, it is a module without a build file entry.
+         */
+        private boolean hasSameBuildSrc(Path projectRoot) {
+            if (GRADLE_SETTINGS.stream().noneMatch(v -> buildFiles.contains(Path.of(v)))) {
+                return true;
+            }
+            return SOURCE_FOLDERS.stream()
+                    .map(GRADLE_BUILD_SRC::resolve)
+                    .allMatch(v -> roots.contains(v) == Files.isDirectory(projectRoot.resolve(v)));
+        }
+    }
+
+    /**
+     * Lists the subfolders of a folder and scans each of them in its own task.
+     */
+    private static final class FolderScan extends RecursiveTask<List<Path>> {
+
+        private static final long serialVersionUID = 1L;
+        private final transient Path folder;
+
+        private FolderScan(Path folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> roots = new ArrayList<>();
+            List<FolderScan> subfolders = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(folder)) {
+                for (Path child : children) {
+                    if (!Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS) || isSkipped(child)) {
+                        continue;
+                    }
+                    if (isSourceRoot(child)) {
+                        roots.add(child);
+                    } else {
+                        subfolders.add(new FolderScan(child));
+                    }
+                }
+            } catch (IOException e) {
+                logger.atWarning().withCause(e).log("Could not list %s", folder);
+                return roots;
+            }
+            for (FolderScan subfolder : invokeAll(subfolders)) {
+                roots.addAll(subfolder.join());
+            }
+            return roots;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.github.martinwitt.spoon_analyzer;
 
 import com.google.common.flogger.FluentLogger;
+import io.github.martinwitt.laughing_train.spoonutils.InvocationIndex;
+import io.github.martinwitt.laughing_train.spoonutils.TypeHierarchyIndex;
 import io.github.martinwitt.spoon_analyzer.badsmells.Index_off_replaceable_by_contains.IndexOfReplaceableByContainsAnalyzer;
 import io.github.martinwitt.spoon_analyzer.badsmells.access_static_via_instance.AccessStaticViaInstanceAnalyzer;
 import io.github.martinwitt.spoon_analyzer.badsmells.array_can_be_replaced_with_enum_values.ArrayCanBeReplacedWithEnumValuesAnalyzer;
@@ -13,17 +15,113 @@ import io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_implements.Unne
 import io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_tostring.UnnecessaryTostringAnalyzer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import spoon.Launcher;
+import spoon.reflect.CtModel;
 import spoon.reflect.declaration.CtType;
+import spoon.support.compiler.VirtualFile;
 
 public class SpoonAnalyzer {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final int TYPES_PER_TASK = 4;
+    /**
+     * Increase this whenever the behavior of an analyzer changes, so cached results are computed again.
+     */
+    private static final int ANALYZER_SET_REVISION = 2;
+
     private final List<LocalAnalyzer> localAnalyzers;
+    private final FusedAnalyzer fusedAnalyzer;
+    private final FusedAnalyzer nonLocalAnalyzer;
+    private final int parallelism;
+    private final AnalysisListener listener;
+    private final int maxFilesPerBatch;
+    private final AnalysisBudget budget;
 
+    /**
+     * Creates a new analyzer that analyzes the types in parallel using all available processors.
+     */
     public SpoonAnalyzer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new analyzer that analyzes the types with the given parallelism.
+     * The analyzers only read the model, so the types can be analyzed independently of each other. The types referenced
+     * in the model are resolved before the threads start, so no thread creates shadow types in the shared factory.
+     * @param parallelism  the number of threads used for the analysis. A value of 1 analyzes all types sequentially.
+     */
+    public SpoonAnalyzer(int parallelism) {
+        this(parallelism, AnalysisListener.NONE);
+    }
+
+    /**
+     * Creates a new analyzer that analyzes the types in parallel using all available processors and reports the time
+     * spent in every phase and analyzer to the listener.
+     * @param listener  the listener receiving the performance data
+     */
+    public SpoonAnalyzer(AnalysisListener listener) {
+        this(Runtime.getRuntime().availableProcessors(), listener);
+    }
+
+    /**
+     * Creates a new analyzer that analyzes the types with the given parallelism and reports the time spent in every
+     * phase and analyzer to the listener.
+     * @param parallelism  the number of threads used for the analysis. A value of 1 analyzes all types sequentially.
+     * @param listener  the listener receiving the performance data
+     */
+    public SpoonAnalyzer(int parallelism, AnalysisListener listener) {
+        this(parallelism, listener, SourceBatches.UNBOUNDED);
+    }
+
+    /**
+     * Creates a new analyzer that builds and analyzes the model of a project in batches of at most the given number
+     * of java files. Only the model of one batch is kept in memory, if the bad smells are passed to a sink. This bounds
+     * the heap needed for large projects. Types are only resolved within their batch, so rules that look beyond the
+     * analyzed type may miss bad smells across batches. The source folders of one module are never split, unless the
+     * module alone exceeds the budget.
+     * @param parallelism  the number of threads used for the analysis. A value of 1 analyzes all types sequentially.
+     * @param listener  the listener receiving the performance data
+     * @param maxFilesPerBatch  the maximum number of java files in one model
+     */
+    public SpoonAnalyzer(int parallelism, AnalysisListener listener, int maxFilesPerBatch) {
+        this(parallelism, listener, maxFilesPerBatch, AnalysisBudget.UNLIMITED);
+    }
+
+    /**
+     * Creates a new analyzer like {@link #SpoonAnalyzer(int, AnalysisListener, int)} that limits the time spent on a
+     * single type and on a whole project. A type exceeding its budget is skipped by the element analyzers, a project
+     * exceeding its budget skips all types not analyzed yet. Both are reported to the listener, the rest of the
+     * analysis completes normally.
+     * @param parallelism  the number of threads used for the analysis. A value of 1 analyzes all types sequentially.
+     * @param listener  the listener receiving the performance data and timeouts
+     * @param maxFilesPerBatch  the maximum number of java files in one model
+     * @param budget  the time budgets per type and per project
+     */
+    public SpoonAnalyzer(int parallelism, AnalysisListener listener, int maxFilesPerBatch, AnalysisBudget budget) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, but was " + parallelism);
+        }
+        if (maxFilesPerBatch < 1) {
+            throw new IllegalArgumentException("The batch size must be at least 1, but was " + maxFilesPerBatch);
+        }
+        this.parallelism = parallelism;
+        this.listener = listener;
+        this.maxFilesPerBatch = maxFilesPerBatch;
+        this.budget = budget;
         this.localAnalyzers = new ArrayList<>();
         localAnalyzers.add(new AccessStaticViaInstanceAnalyzer());
         localAnalyzers.add(new ArrayCanBeReplacedWithEnumValuesAnalyzer());
@@ -37,39 +135,498 @@ public class SpoonAnalyzer {
         localAnalyzers.add(new SizeReplaceableByIsEmptyAnalyzer());
         localAnalyzers.add(new UnnecessaryImplementsAnalyzer());
         localAnalyzers.add(new UnnecessaryTostringAnalyzer());
+        this.fusedAnalyzer = new FusedAnalyzer(localAnalyzers, listener, budget.perType());
+        this.nonLocalAnalyzer = new FusedAnalyzer(
+                localAnalyzers.stream().filter(v -> !v.isTypeLocal()).toList(), listener, budget.perType());
     }
 
     public List<BadSmell> analyze(String path) {
+        try {
+            return analyzeSourceRoots(new SourceRootFinder().findSourceRoots(Path.of(path)));
+        } catch (Exception e) {
+            logger.atSevere().withCause(e).log("Error while analyzing.");
+        }
+        return new ArrayList<>();
+    }
 
-        List<BadSmell> badSmells = new ArrayList<>();
+    /**
+     * Analyzes the project at the given path and passes the bad smells to the sink as soon as a type is analyzed.
+     * Unlike {@link #analyze(String)}, the order of the results depends on the scheduling if the parallelism is greater
+     * than 1.
+     * @param path  the root folder of the project
+     * @param sink  the sink receiving the bad smells
+     */
+    public void analyze(String path, BadSmellSink sink) {
         try {
-            List<Path> files =
-                    Files.walk(Path.of(path)).filter(v -> Files.isDirectory(v)).toList();
-            files = PathUtils.filterResourcePaths(files);
+            analyzeSourceRoots(new SourceRootFinder().findSourceRoots(Path.of(path)), sink);
+        } catch (Exception e) {
+            logger.atSevere().withCause(e).log("Error while analyzing.");
+        }
+    }
+
+    /**
+     * Analyzes the given source and test folders, e.g. found by a {@link SourceRootFinder} that caches the layout of
+     * the project. Unlike {@link #analyze(String)}, errors while building the model are passed to the caller.
+     * @param sourceRoots  the source and test folders of the project
+     * @return  the found bad smells
+     */
+    public List<BadSmell> analyzeSourceRoots(List<Path> sourceRoots) {
+        return analyzeBatches(SourceBatches.ofSourceFolders(sourceRoots, maxFilesPerBatch), this::buildModel);
+    }
+
+    /**
+     * Analyzes the given source and test folders like {@link #analyzeSourceRoots(List)}, but passes the bad smells to
+     * the sink as soon as a type is analyzed.
+     * @param sourceRoots  the source and test folders of the project
+     * @param sink  the sink receiving the bad smells
+     */
+    public void analyzeSourceRoots(List<Path> sourceRoots, BadSmellSink sink) {
+        analyzeBatches(SourceBatches.ofSourceFolders(sourceRoots, maxFilesPerBatch), this::buildModel, sink);
+    }
+
+    /**
+     * Analyzes only the given source files. The model is built from these files alone, so types from other files
+     * are only known by their references. Use {@link #analyzeChangedFiles(List, Collection, BadSmellSink)} to
+     * re-analyze the files changed between two commits with the same results as a full analysis.
+     * Files outside of source and test directories are ignored, like in {@link #analyze(String)}.
+     * Unlike {@link #analyze(String)}, errors while building the model are passed to the caller, so an empty result
+     * always means that the files have no bad smells.
+     * @param files  the java files to analyze
+     * @return  the found bad smells in the given files
+     */
+    public List<BadSmell> analyzeFiles(Collection<Path> files) {
+        List<Path> sourceFiles = files.stream()
+                .filter(v -> PathUtils.isSourceFile(v) && Files.exists(v))
+                .toList();
+        return analyzeBatches(SourceBatches.ofFiles(sourceFiles, maxFilesPerBatch), this::buildModel);
+    }
+
+    /**
+     * Analyzes only the given source files like {@link #analyzeFiles(Collection)}, but passes the bad smells to the
+     * sink as soon as a type is analyzed.
+     * @param files  the java files to analyze
+     * @param sink  the sink receiving the bad smells
+     */
+    public void analyzeFiles(Collection<Path> files, BadSmellSink sink) {
+        List<Path> sourceFiles = files.stream()
+                .filter(v -> PathUtils.isSourceFile(v) && Files.exists(v))
+                .toList();
+        analyzeBatches(SourceBatches.ofFiles(sourceFiles, maxFilesPerBatch), this::buildModel, sink);
+    }
+
+    /**
+     * Analyzes the changed files of a project in the model of the whole project, so their references to unchanged
+     * files are resolved like in {@link #analyzeSourceRoots(List)}. The files of unchanged types referencing a type of
+     * a changed file are analyzed too, because their bad smells may depend on it. Like in
+     * {@link #analyzeSourceRoots(List)}, the model is built in batches of source folders. Batches without a changed
+     * file are skipped, because their types never see the changed files.
+     * @param sourceRoots  the source and test folders of the project
+     * @param changedFiles  the changed java files, files outside of the source folders are ignored
+     * @param sink  the sink receiving the bad smells of the analyzed files
+     * @return  the absolute and normalized paths of the changed files in the analyzed batches and of the files of their
+     *     dependents, the bad smells of these files replace older ones
+     */
+    public Set<Path> analyzeChangedFiles(List<Path> sourceRoots, Collection<Path> changedFiles, BadSmellSink sink) {
+        return analyzeChangedFiles(sourceRoots, changedFiles, List.of(), sink);
+    }
 
-            Launcher launcher = new Launcher();
-            for (Path p : files) {
-                launcher.addInputResource(p.toString());
+    /**
+     * Analyzes the changed files like {@link #analyzeChangedFiles(List, Collection, BadSmellSink)} and runs the
+     * analyzers that are not {@link LocalAnalyzer#isTypeLocal() type-local} on the types of the given unchanged files.
+     * The bad smells of these analyzers can change without a change of the file and of the types it references, so
+     * they can't be kept from an earlier analysis. The batches of the unchanged files are built too, unless all
+     * analyzers are type-local.
+     * @param sourceRoots  the source and test folders of the project
+     * @param changedFiles  the changed java files, files outside of the source folders are ignored
+     * @param unchangedFiles  the java files whose other bad smells are kept from an earlier analysis
+     * @param sink  the sink receiving the bad smells of the analyzed files and the bad smells of the unchanged files
+     *     found by analyzers that are not type-local
+     * @return  the absolute and normalized paths of the files analyzed by all analyzers, like
+     *     {@link #analyzeChangedFiles(List, Collection, BadSmellSink)}
+     * @see #getNonLocalRuleIds()
+     */
+    public Set<Path> analyzeChangedFiles(
+            List<Path> sourceRoots, Collection<Path> changedFiles, Collection<Path> unchangedFiles, BadSmellSink sink) {
+        Set<Path> changed = normalizeSourceFiles(changedFiles);
+        Set<Path> unchanged =
+                nonLocalAnalyzer.getAnalyzers().isEmpty() ? Set.of() : normalizeSourceFiles(unchangedFiles);
+        List<List<Path>> batches = SourceBatches.ofSourceFolders(sourceRoots, maxFilesPerBatch).stream()
+                .filter(batch -> containsAny(batch, changed) || containsAny(batch, unchanged))
+                .toList();
+        Set<Path> analyzedFiles = new HashSet<>();
+        ProjectRun run = new ProjectRun(Deadline.after(budget.perProject()));
+        for (List<Path> batch : batches) {
+            if (run.deadline.isExceeded()) {
+                run.skippedBatches++;
+                continue;
             }
-            launcher.getEnvironment().setAutoImports(true);
-            launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);
-            launcher.getEnvironment().setNoClasspath(true);
-            launcher.getEnvironment().setComplianceLevel(17);
-            launcher.getEnvironment().setIgnoreSyntaxErrors(true);
-            launcher.getEnvironment().setLevel("ERROR");
-            var model = launcher.buildModel();
-            logger.atInfo().log("Found %s types.", model.getAllTypes().size());
-            for (CtType<?> type : model.getAllTypes()) {
-                for (LocalAnalyzer analyzer : localAnalyzers) {
-                    var badSmell = analyzer.analyze(type);
-                    if (badSmell != null) {
-                        badSmells.addAll(badSmell);
-                    }
+            // changed files without types, e.g. package-info.java, are analyzed too
+            changed.stream().filter(file -> containsAny(batch, Set.of(file))).forEach(analyzedFiles::add);
+            List<CtType<?>> types = buildModel(batch);
+            List<CtType<?>> affectedTypes = AffectedTypes.select(types, changed);
+            Set<Path> affectedFiles = new HashSet<>();
+            for (CtType<?> type : affectedTypes) {
+                Path file = AffectedTypes.fileOf(type);
+                if (file != null) {
+                    affectedFiles.add(file);
                 }
             }
-        } catch (Exception e) {
-            logger.atSevere().withCause(e).log("Error while analyzing.");
+            analyzedFiles.addAll(affectedFiles);
+            analyzeTypes(affectedTypes, fusedAnalyzer, sink, run);
+            if (!unchanged.isEmpty()) {
+                List<CtType<?>> unchangedTypes = types.stream()
+                        .filter(type -> {
+                            Path file = AffectedTypes.fileOf(type);
+                            return file != null && unchanged.contains(file) && !affectedFiles.contains(file);
+                        })
+                        .toList();
+                analyzeTypes(unchangedTypes, nonLocalAnalyzer, sink, run);
+            }
+        }
+        reportTimeout(run);
+        return analyzedFiles;
+    }
+
+    /**
+     * Analyzes java sources held in memory, e.g. blobs read from a git object store or the payload of a webhook. No
+     * file is read, the positions of the bad smells have the given paths as files. Like
+     * {@link #analyzeFiles(Collection)}, the sources are built in batches and errors while building the model are
+     * passed to the caller.
+     * @param sources  the content of every java file by its path, e.g. {@code src/main/java/foo/A.java}. Other files
+     *     are ignored.
+     * @return  the found bad smells, ordered by path
+     */
+    public List<BadSmell> analyzeSources(Map<String, ? extends CharSequence> sources) {
+        return analyzeBatches(toVirtualFileBatches(sources), this::buildVirtualModel);
+    }
+
+    /**
+     * Analyzes java sources held in memory like {@link #analyzeSources(Map)}, but passes the bad smells to the sink as
+     * soon as a type is analyzed.
+     * @param sources  the content of every java file by its path
+     * @param sink  the sink receiving the bad smells
+     */
+    public void analyzeSources(Map<String, ? extends CharSequence> sources, BadSmellSink sink) {
+        analyzeBatches(toVirtualFileBatches(sources), this::buildVirtualModel, sink);
+    }
+
+    /**
+     * Analyzes all types of an already built model, e.g. a model shared with the transformations. The model is not
+     * changed, but the indexes of the analyzers are kept in it. They are built again on every call, so a model changed
+     * by transformations since its last analysis is analyzed in its current state.
+     * @param model  the model to analyze
+     * @return  the found bad smells
+     */
+    public List<BadSmell> analyzeModel(CtModel model) {
+        prepareModel(model);
+        List<CtType<?>> types = new ArrayList<>(model.getAllTypes());
+        listener.modelBuilt(types.size());
+        return analyzeTypes(types);
+    }
+
+    /**
+     * Returns the analyzers run on every type, in the order of their results.
+     * @return  an unmodifiable list of the analyzers
+     */
+    public List<LocalAnalyzer> getLocalAnalyzers() {
+        return List.copyOf(localAnalyzers);
+    }
+
+    /**
+     * Returns the rule ids of the analyzers that are not {@link LocalAnalyzer#isTypeLocal() type-local}. Their bad
+     * smells must not be reused for an unchanged file.
+     * @return  the rule ids of the analyzers that are not type-local
+     */
+    public Set<String> getNonLocalRuleIds() {
+        return nonLocalAnalyzer.getAnalyzers().stream()
+                .map(LocalAnalyzer::getRuleId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Returns a version of the used analyzers. Results computed with a different version may be outdated.
+     * The version changes if analyzers are added or removed or if {@link #ANALYZER_SET_REVISION} is increased.
+     * @return  the version of the analyzer set
+     */
+    public String getAnalyzerSetVersion() {
+        String analyzerNames =
+                localAnalyzers.stream().map(v -> v.getClass().getName()).collect(Collectors.joining(","));
+        return ANALYZER_SET_REVISION + "-" + Integer.toHexString(analyzerNames.hashCode());
+    }
+
+    /**
+     * Prepares the shared state of a model before the types are analyzed in parallel. The indexes are built from the
+     * current model, so the analyzers share them, and the shadow types are created before any analyzer thread resolves
+     * a type.
+     */
+    private void prepareModel(CtModel model) {
+        TypeHierarchyIndex.rebuild(model);
+        InvocationIndex.rebuild(model);
+        if (parallelism > 1) {
+            ShadowTypes.resolveReferencedTypes(model);
+        }
+    }
+
+    private static Set<Path> normalizeSourceFiles(Collection<Path> files) {
+        return files.stream()
+                .filter(PathUtils::isSourceFile)
+                .map(v -> v.toAbsolutePath().normalize())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Checks if any of the files is in one of the source folders of the batch.
+     */
+    private static boolean containsAny(List<Path> batch, Set<Path> files) {
+        return batch.stream().map(v -> v.toAbsolutePath().normalize()).anyMatch(folder -> files.stream()
+                .anyMatch(file -> file.startsWith(folder)));
+    }
+
+    private List<List<VirtualFile>> toVirtualFileBatches(Map<String, ? extends CharSequence> sources) {
+        List<VirtualFile> files = new TreeMap<>(sources)
+                .entrySet().stream()
+                        .filter(v -> v.getKey().endsWith(".java"))
+                        .map(v -> new VirtualFile(v.getValue().toString(), v.getKey()))
+                        .toList();
+        return SourceBatches.ofFiles(files, maxFilesPerBatch);
+    }
+
+    private List<CtType<?>> buildVirtualModel(Collection<VirtualFile> inputs) {
+        long start = System.nanoTime();
+        Launcher launcher = new Launcher();
+        inputs.forEach(launcher::addInputResource);
+        return buildModel(launcher, start);
+    }
+
+    private List<CtType<?>> buildModel(Collection<Path> inputs) {
+        long start = System.nanoTime();
+        Launcher launcher = new Launcher();
+        for (Path p : inputs) {
+            launcher.addInputResource(p.toString());
+        }
+        return buildModel(launcher, start);
+    }
+
+    private List<CtType<?>> buildModel(Launcher launcher, long start) {
+        launcher.getEnvironment().setAutoImports(true);
+        launcher.getEnvironment().setIgnoreDuplicateDeclarations(true);
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.getEnvironment().setComplianceLevel(17);
+        launcher.getEnvironment().setIgnoreSyntaxErrors(true);
+        launcher.getEnvironment().setLevel("ERROR");
+        var model = launcher.buildModel();
+        prepareModel(model);
+        List<CtType<?>> types = new ArrayList<>(model.getAllTypes());
+        logger.atInfo().log("Found %s types.", types.size());
+        listener.phaseFinished(AnalysisListener.PHASE_MODEL_BUILD, Duration.ofNanos(System.nanoTime() - start));
+        listener.modelBuilt(types.size());
+        return types;
+    }
+
+    private <T> List<BadSmell> analyzeBatches(List<T> batches, Function<T, List<CtType<?>>> modelBuilder) {
+        ProjectRun run = new ProjectRun(Deadline.after(budget.perProject()));
+        List<BadSmell> badSmells = new ArrayList<>();
+        for (T batch : batches) {
+            if (run.deadline.isExceeded()) {
+                run.skippedBatches++;
+            } else {
+                badSmells.addAll(analyzeTypes(modelBuilder.apply(batch), run));
+            }
+        }
+        reportTimeout(run);
+        return badSmells;
+    }
+
+    private <T> void analyzeBatches(List<T> batches, Function<T, List<CtType<?>>> modelBuilder, BadSmellSink sink) {
+        ProjectRun run = new ProjectRun(Deadline.after(budget.perProject()));
+        for (T batch : batches) {
+            if (run.deadline.isExceeded()) {
+                run.skippedBatches++;
+            } else {
+                analyzeTypes(modelBuilder.apply(batch), fusedAnalyzer, sink, run);
+            }
+        }
+        reportTimeout(run);
+    }
+
+    private void reportTimeout(ProjectRun run) {
+        int skippedTypes = run.skippedTypes.get();
+        if (skippedTypes > 0 || run.skippedBatches > 0) {
+            logger.atWarning().log(
+                    "Analysis exceeded the budget of %s, skipped %d types and %d batches",
+                    budget.perProject(), skippedTypes, run.skippedBatches);
+            listener.projectTimedOut(budget.perProject(), skippedTypes, run.skippedBatches);
+        }
+    }
+
+    /**
+     * Analyzes the given types. The result is ordered like the types, independent of the parallelism.
+     * @param types  the types to analyze
+     * @return  the found bad smells
+     */
+    List<BadSmell> analyzeTypes(List<CtType<?>> types) {
+        ProjectRun run = new ProjectRun(Deadline.after(budget.perProject()));
+        List<BadSmell> badSmells = analyzeTypes(types, run);
+        reportTimeout(run);
+        return badSmells;
+    }
+
+    /**
+     * Analyzes the given types and passes the bad smells of every type to the sink. The calls to the sink are
+     * serialized, so the sink needs no synchronization.
+     * @param types  the types to analyze
+     * @param sink  the sink receiving the bad smells
+     */
+    void analyzeTypes(List<CtType<?>> types, BadSmellSink sink) {
+        ProjectRun run = new ProjectRun(Deadline.after(budget.perProject()));
+        analyzeTypes(types, fusedAnalyzer, sink, run);
+        reportTimeout(run);
+    }
+
+    private List<BadSmell> analyzeTypes(List<CtType<?>> types, ProjectRun run) {
+        long start = System.nanoTime();
+        try {
+            if (parallelism == 1 || types.size() <= TYPES_PER_TASK) {
+                return analyzeSequentially(fusedAnalyzer, types, run);
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                return pool.invoke(new AnalyzeTypesTask(fusedAnalyzer, types, run));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            listener.phaseFinished(AnalysisListener.PHASE_ANALYSIS, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private void analyzeTypes(List<CtType<?>> types, LocalAnalyzer analyzer, BadSmellSink sink, ProjectRun run) {
+        long start = System.nanoTime();
+        BadSmellSink serializedSink = serialize(sink);
+        try {
+            if (parallelism == 1 || types.size() <= TYPES_PER_TASK) {
+                analyzeSequentially(analyzer, types, serializedSink, run);
+                return;
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new StreamTypesTask(analyzer, types, serializedSink, run));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            listener.phaseFinished(AnalysisListener.PHASE_ANALYSIS, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private static BadSmellSink serialize(BadSmellSink sink) {
+        Object lock = new Object();
+        return badSmells -> {
+            synchronized (lock) {
+                sink.accept(badSmells);
+            }
+        };
+    }
+
+    private static void analyzeSequentially(
+            LocalAnalyzer analyzer, List<CtType<?>> types, BadSmellSink sink, ProjectRun run) {
+        for (CtType<?> type : types) {
+            if (run.deadline.isExceeded()) {
+                run.skippedTypes.incrementAndGet();
+                continue;
+            }
+            List<BadSmell> badSmells = analyzer.analyze(type);
+            if (!badSmells.isEmpty()) {
+                sink.accept(badSmells);
+            }
+        }
+    }
+
+    private static List<BadSmell> analyzeSequentially(LocalAnalyzer analyzer, List<CtType<?>> types, ProjectRun run) {
+        List<BadSmell> badSmells = new ArrayList<>();
+        for (CtType<?> type : types) {
+            if (run.deadline.isExceeded()) {
+                run.skippedTypes.incrementAndGet();
+                continue;
+            }
+            badSmells.addAll(analyzer.analyze(type));
         }
         return badSmells;
     }
+
+    /**
+     * The state of the analysis of one project, shared by all its batches and threads.
+     */
+    private static final class ProjectRun {
+
+        private final Deadline deadline;
+        private final AtomicInteger skippedTypes = new AtomicInteger();
+        private int skippedBatches;
+
+        private ProjectRun(Deadline deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Splits a range of types until it is small enough and analyzes it. The results of both halves are joined in
+     * order, so the result does not depend on the scheduling.
+     */
+    private static final class AnalyzeTypesTask extends RecursiveTask<List<BadSmell>> {
+
+        private final LocalAnalyzer analyzer;
+        private final List<CtType<?>> types;
+        private final ProjectRun run;
+
+        private AnalyzeTypesTask(LocalAnalyzer analyzer, List<CtType<?>> types, ProjectRun run) {
+            this.analyzer = analyzer;
+            this.types = types;
+            this.run = run;
+        }
+
+        @Override
+        protected List<BadSmell> compute() {
+            if (types.size() <= TYPES_PER_TASK) {
+                return analyzeSequentially(analyzer, types, run);
+            }
+            int middle = types.size() / 2;
+            AnalyzeTypesTask left = new AnalyzeTypesTask(analyzer, types.subList(0, middle), run);
+            AnalyzeTypesTask right = new AnalyzeTypesTask(analyzer, types.subList(middle, types.size()), run);
+            left.fork();
+            List<BadSmell> rightResult = right.compute();
+            List<BadSmell> badSmells = new ArrayList<>(left.join());
+            badSmells.addAll(rightResult);
+            return badSmells;
+        }
+    }
+
+    /**
+     * Splits a range of types until it is small enough and passes the results of every type to the sink.
+     */
+    private static final class StreamTypesTask extends RecursiveAction {
+
+        private final LocalAnalyzer analyzer;
+        private final List<CtType<?>> types;
+        private final BadSmellSink sink;
+        private final ProjectRun run;
+
+        private StreamTypesTask(LocalAnalyzer analyzer, List<CtType<?>> types, BadSmellSink sink, ProjectRun run) {
+            this.analyzer = analyzer;
+            this.types = types;
+            this.sink = sink;
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            if (types.size() <= TYPES_PER_TASK) {
+                analyzeSequentially(analyzer, types, sink, run);
+                return;
+            }
+            int middle = types.size() / 2;
+            invokeAll(
+                    new StreamTypesTask(analyzer, types.subList(0, middle), sink, run),
+                    new StreamTypesTask(analyzer, types.subList(middle, types.size()), sink, run));
+        }
+    }
 }
@@ -2,10 +2,11 @@ package io.github.martinwitt.spoon_analyzer.badsmells.Index_off_replaceable_by_c
 
 import io.github.martinwitt.laughing_train.spoonutils.InvocationMatcher;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
-import java.util.ArrayList;
+import io.github.martinwitt.spoon_analyzer.RequiredCalls;
 import java.util.List;
+import java.util.Optional;
 import spoon.reflect.code.CtBinaryOperator;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtInvocation;
@@ -15,10 +16,9 @@ import spoon.reflect.code.UnaryOperatorKind;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtExecutableReference;
-import spoon.reflect.visitor.filter.TypeFilter;
 
 public class IndexOfReplaceableByContainsAnalyzer
-        implements LocalAnalyzer, LocalRefactor<IndexOfReplaceableByContains> {
+        implements ElementAnalyzer<CtBinaryOperator<?>>, LocalRefactor<IndexOfReplaceableByContains> {
 
     private InvocationMatcher matcher;
 
@@ -27,19 +27,25 @@ public class IndexOfReplaceableByContainsAnalyzer
     }
 
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<BadSmell> badSmells = new ArrayList<>();
-        List<CtBinaryOperator<?>> list = clazz.getElements(new TypeFilter<>(CtBinaryOperator.class));
-        for (CtBinaryOperator<?> ctBinaryOperator : list) {
-            CtExpression<?> rightHandOperand = ctBinaryOperator.getRightHandOperand();
-            CtExpression<?> leftHandOperand = ctBinaryOperator.getLeftHandOperand();
-            if (isIndexOfCall(leftHandOperand) && isMinusOne(rightHandOperand)) {
-                badSmells.add(new IndexOfReplaceableByContains(clazz, leftHandOperand, rightHandOperand));
-            } else if (isIndexOfCall(rightHandOperand) && isMinusOne(leftHandOperand)) {
-                badSmells.add(new IndexOfReplaceableByContains(clazz, rightHandOperand, leftHandOperand));
-            }
+    public Class<? super CtBinaryOperator<?>> getElementType() {
+        return CtBinaryOperator.class;
+    }
+
+    @Override
+    public Optional<RequiredCalls> getRequiredCalls() {
+        return Optional.of(RequiredCalls.invocationsOf("indexOf"));
+    }
+
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtBinaryOperator<?> ctBinaryOperator) {
+        CtExpression<?> rightHandOperand = ctBinaryOperator.getRightHandOperand();
+        CtExpression<?> leftHandOperand = ctBinaryOperator.getLeftHandOperand();
+        if (isIndexOfCall(leftHandOperand) && isMinusOne(rightHandOperand)) {
+            return List.of(new IndexOfReplaceableByContains(clazz, leftHandOperand, rightHandOperand));
+        } else if (isIndexOfCall(rightHandOperand) && isMinusOne(leftHandOperand)) {
+            return List.of(new IndexOfReplaceableByContains(clazz, rightHandOperand, leftHandOperand));
         }
-        return badSmells;
+        return List.of();
     }
 
     private boolean isIndexOfCall(CtExpression<?> expression) {
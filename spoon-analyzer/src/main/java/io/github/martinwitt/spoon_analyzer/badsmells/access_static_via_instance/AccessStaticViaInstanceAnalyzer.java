@@ -1,9 +1,8 @@
 package io.github.martinwitt.spoon_analyzer.badsmells.access_static_via_instance;
 
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import spoon.reflect.code.CtInvocation;
@@ -11,34 +10,33 @@ import spoon.reflect.code.CtTypeAccess;
 import spoon.reflect.declaration.CtMethod;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.reference.CtTypeReference;
-import spoon.reflect.visitor.Filter;
 
-public class AccessStaticViaInstanceAnalyzer implements LocalAnalyzer, LocalRefactor<AccessStaticViaInstance> {
+public class AccessStaticViaInstanceAnalyzer
+        implements ElementAnalyzer<CtInvocation<?>>, LocalRefactor<AccessStaticViaInstance> {
 
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<CtInvocation<?>> elements = clazz.getElements(new StaticInvocationFilter());
-        List<BadSmell> results = new ArrayList<>();
-        for (CtInvocation<?> element : elements) {
-            results.add(new AccessStaticViaInstance(clazz, element));
-        }
-        return results;
+    public Class<? super CtInvocation<?>> getElementType() {
+        return CtInvocation.class;
     }
 
-    private final class StaticInvocationFilter implements Filter<CtInvocation<?>> {
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtInvocation<?> element) {
+        if (isStaticInvocationViaInstance(element)) {
+            return List.of(new AccessStaticViaInstance(clazz, element));
+        }
+        return List.of();
+    }
 
-        @Override
-        public boolean matches(CtInvocation<?> element) {
-            if (!Optional.ofNullable(element.getExecutable())
-                    .map(v -> v.getExecutableDeclaration())
-                    .filter(v -> v instanceof CtMethod)
-                    .map(v -> (CtMethod<?>) v)
-                    .map(v -> v.isStatic())
-                    .orElse(false)) {
-                return false;
-            }
-            return element.getTarget() != null && !(element.getTarget() instanceof CtTypeAccess);
+    private boolean isStaticInvocationViaInstance(CtInvocation<?> element) {
+        if (!Optional.ofNullable(element.getExecutable())
+                .map(v -> v.getExecutableDeclaration())
+                .filter(v -> v instanceof CtMethod)
+                .map(v -> (CtMethod<?>) v)
+                .map(v -> v.isStatic())
+                .orElse(false)) {
+            return false;
         }
+        return element.getTarget() != null && !(element.getTarget() instanceof CtTypeAccess);
     }
 
     @Override
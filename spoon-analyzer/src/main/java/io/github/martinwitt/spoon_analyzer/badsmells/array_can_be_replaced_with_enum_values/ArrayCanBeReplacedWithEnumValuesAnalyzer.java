@@ -1,50 +1,47 @@
 package io.github.martinwitt.spoon_analyzer.badsmells.array_can_be_replaced_with_enum_values;
 
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
-import java.util.ArrayList;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import java.util.List;
 import java.util.Optional;
 import spoon.reflect.code.CtExpression;
 import spoon.reflect.code.CtNewArray;
 import spoon.reflect.declaration.CtEnum;
 import spoon.reflect.declaration.CtType;
-import spoon.reflect.visitor.Filter;
 
-public class ArrayCanBeReplacedWithEnumValuesAnalyzer implements LocalAnalyzer {
+public class ArrayCanBeReplacedWithEnumValuesAnalyzer implements ElementAnalyzer<CtNewArray<?>> {
 
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<BadSmell> badSmells = new ArrayList<>();
-        EnumArrayInitializer filter = new EnumArrayInitializer();
-        for (CtNewArray<?> element : clazz.getElements(filter)) {
-            badSmells.add(new ArrayCanBeReplacedWithEnumValues(clazz, element));
-        }
-        return badSmells;
+    public Class<? super CtNewArray<?>> getElementType() {
+        return CtNewArray.class;
     }
 
-    private static final class EnumArrayInitializer implements Filter<CtNewArray<?>> {
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtNewArray<?> element) {
+        if (isEnumArrayInitializer(element)) {
+            return List.of(new ArrayCanBeReplacedWithEnumValues(clazz, element));
+        }
+        return List.of();
+    }
 
-        @Override
-        public boolean matches(CtNewArray<?> element) {
-            List<CtExpression<?>> elements = element.getElements();
-            if (elements.isEmpty()) {
-                return false;
-            }
-            // check if all elements are enum values
-            for (CtExpression<?> ctExpression : elements) {
-                if (!Optional.ofNullable(ctExpression.getType())
-                        .map(v -> v.isEnum())
-                        .orElse(false)) {
-                    return false;
-                }
-            }
-            long count = elements.stream().map(CtExpression::getType).distinct().count();
-            CtEnum<?> declaration = (CtEnum<?>) elements.get(0).getType().getTypeDeclaration();
-            if (declaration == null) {
+    private boolean isEnumArrayInitializer(CtNewArray<?> element) {
+        List<CtExpression<?>> elements = element.getElements();
+        if (elements.isEmpty()) {
+            return false;
+        }
+        // check if all elements are enum values
+        for (CtExpression<?> ctExpression : elements) {
+            if (!Optional.ofNullable(ctExpression.getType())
+                    .map(v -> v.isEnum())
+                    .orElse(false)) {
                 return false;
             }
-            return !(declaration.getEnumValues().size() != count);
         }
+        long count = elements.stream().map(CtExpression::getType).distinct().count();
+        CtEnum<?> declaration = (CtEnum<?>) elements.get(0).getType().getTypeDeclaration();
+        if (declaration == null) {
+            return false;
+        }
+        return !(declaration.getEnumValues().size() != count);
     }
 }
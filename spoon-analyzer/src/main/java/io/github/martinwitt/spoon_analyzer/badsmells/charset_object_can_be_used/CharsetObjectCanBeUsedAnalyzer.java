@@ -2,20 +2,27 @@ package io.github.martinwitt.spoon_analyzer.badsmells.charset_object_can_be_used
 
 import static java.util.Map.entry;
 
+import io.github.martinwitt.laughing_train.spoonutils.CallMatcherTable;
 import io.github.martinwitt.laughing_train.spoonutils.ConstructorMatcher;
 import io.github.martinwitt.laughing_train.spoonutils.InvocationMatcher;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
+import io.github.martinwitt.spoon_analyzer.RequiredCalls;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import spoon.reflect.code.CtAbstractInvocation;
+import spoon.reflect.code.CtConstructorCall;
 import spoon.reflect.code.CtExpression;
+import spoon.reflect.code.CtInvocation;
 import spoon.reflect.code.CtLiteral;
 import spoon.reflect.declaration.CtType;
 
-public class CharsetObjectCanBeUsedAnalyzer implements LocalAnalyzer, LocalRefactor<CharsetObjectCanBeUsed> {
+public class CharsetObjectCanBeUsedAnalyzer
+        implements ElementAnalyzer<CtAbstractInvocation<?>>, LocalRefactor<CharsetObjectCanBeUsed> {
 
     private static final Map<String, String> SUPPORTED_CHARSETS = Map.ofEntries(
             entry("US-ASCII", "US_ASCII"),
@@ -69,18 +76,33 @@ public class CharsetObjectCanBeUsedAnalyzer implements LocalAnalyzer, LocalRefac
             new ConstructorMatcher("java.io.PrintWriter", "java.lang.String", "java.lang.String"),
             new ConstructorMatcher("java.io.PrintWriter", "java.io.File", "java.lang.String"));
 
+    private static final CallMatcherTable matcherTable = new CallMatcherTable(matcher, ctorMatcher);
+    private static final RequiredCalls requiredCalls = new RequiredCalls(
+            Set.copyOf(matcherTable.getMethodNames()), Set.copyOf(matcherTable.getConstructorTypes()));
+
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<BadSmell> badSmells = new ArrayList<>();
-        for (InvocationMatcher invocationMatcher : matcher) {
-            clazz.getElements(invocationMatcher).stream()
-                    .map(v -> new CharsetObjectCanBeUsed(clazz, v))
-                    .forEach(badSmells::add);
+    public Class<? super CtAbstractInvocation<?>> getElementType() {
+        return CtAbstractInvocation.class;
+    }
+
+    @Override
+    public Optional<RequiredCalls> getRequiredCalls() {
+        return Optional.of(requiredCalls);
+    }
+
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtAbstractInvocation<?> element) {
+        int matches = matcherTable.countMatches(element);
+        if (matches == 0) {
+            return List.of();
         }
-        for (ConstructorMatcher constructorMatcher : ctorMatcher) {
-            clazz.getElements(constructorMatcher).stream()
-                    .map(v -> new CharsetObjectCanBeUsed(clazz, v))
-                    .forEach(badSmells::add);
+        List<BadSmell> badSmells = new ArrayList<>();
+        for (int i = 0; i < matches; i++) {
+            if (element instanceof CtInvocation<?> invocation) {
+                badSmells.add(new CharsetObjectCanBeUsed(clazz, invocation));
+            } else if (element instanceof CtConstructorCall<?> constructorCall) {
+                badSmells.add(new CharsetObjectCanBeUsed(clazz, constructorCall));
+            }
         }
         return badSmells;
     }
@@ -1,10 +1,11 @@
 package io.github.martinwitt.spoon_analyzer.badsmells.size_replaceable_by_is_empty;
 
+import io.github.martinwitt.laughing_train.spoonutils.matcher.Matcher;
 import io.github.martinwitt.laughing_train.spoonutils.matcher.Matchers;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
-import java.util.ArrayList;
+import io.github.martinwitt.spoon_analyzer.RequiredCalls;
 import java.util.List;
 import java.util.Optional;
 import spoon.reflect.code.BinaryOperatorKind;
@@ -15,32 +16,30 @@ import spoon.reflect.code.UnaryOperatorKind;
 import spoon.reflect.declaration.CtType;
 import spoon.reflect.factory.Factory;
 import spoon.reflect.reference.CtExecutableReference;
-import spoon.reflect.visitor.Filter;
 
-public class SizeReplaceableByIsEmptyAnalyzer implements LocalAnalyzer, LocalRefactor<SizeReplaceableByIsEmpty> {
+public class SizeReplaceableByIsEmptyAnalyzer
+        implements ElementAnalyzer<CtBinaryOperator<?>>, LocalRefactor<SizeReplaceableByIsEmpty> {
+
+    private static final Matcher<CtExpression<?>> ZERO_LITERAL = Matchers.isLiteral(0);
 
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<BadSmell> badSmells = new ArrayList<>();
-        List<CtBinaryOperator<?>> elements = clazz.getElements(new SizeIsEmptyFilter());
-        for (CtBinaryOperator<?> ctBinaryOperator : elements) {
-            CtInvocation<?> sizeInvocation = getSizeInvocation(ctBinaryOperator);
-            CtExpression<?> zeroLiteral = getZeroLiteral(ctBinaryOperator).orElse(null);
-            if (sizeInvocation != null && zeroLiteral != null) {
-                badSmells.add(new SizeReplaceableByIsEmpty(clazz, ctBinaryOperator, sizeInvocation, zeroLiteral));
-            }
-        }
-        return badSmells;
+    public Class<? super CtBinaryOperator<?>> getElementType() {
+        return CtBinaryOperator.class;
     }
 
-    private final class SizeIsEmptyFilter implements Filter<CtBinaryOperator<?>> {
+    @Override
+    public Optional<RequiredCalls> getRequiredCalls() {
+        return Optional.of(RequiredCalls.invocationsOf("size"));
+    }
 
-        @Override
-        public boolean matches(CtBinaryOperator<?> element) {
-            CtExpression<?> zeroLiteral = getZeroLiteral(element).orElse(null);
-            CtExpression<?> sizeInvocation = getSizeInvocation(element);
-            return (sizeInvocation != null && zeroLiteral != null);
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtBinaryOperator<?> ctBinaryOperator) {
+        CtInvocation<?> sizeInvocation = getSizeInvocation(ctBinaryOperator);
+        CtExpression<?> zeroLiteral = getZeroLiteral(ctBinaryOperator).orElse(null);
+        if (sizeInvocation != null && zeroLiteral != null) {
+            return List.of(new SizeReplaceableByIsEmpty(clazz, ctBinaryOperator, sizeInvocation, zeroLiteral));
         }
+        return List.of();
     }
 
     private Optional<CtInvocation<?>> isSizeInvocation(CtExpression<?> expression) {
@@ -60,9 +59,9 @@ public class SizeReplaceableByIsEmptyAnalyzer implements LocalAnalyzer, LocalRef
     }
 
     private Optional<CtExpression<?>> getZeroLiteral(CtBinaryOperator<?> element) {
-        if (Matchers.isLiteral(0).matches(element.getRightHandOperand())) {
+        if (ZERO_LITERAL.matches(element.getRightHandOperand())) {
             return Optional.of(element.getRightHandOperand());
-        } else if (Matchers.isLiteral(0).matches(element.getLeftHandOperand())) {
+        } else if (ZERO_LITERAL.matches(element.getLeftHandOperand())) {
             return Optional.of(element.getLeftHandOperand());
         } else {
             return Optional.empty();
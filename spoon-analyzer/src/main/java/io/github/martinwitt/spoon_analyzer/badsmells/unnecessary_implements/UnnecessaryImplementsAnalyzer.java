@@ -1,5 +1,6 @@
 package io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_implements;
 
+import io.github.martinwitt.laughing_train.spoonutils.TypeHierarchyIndex;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
 import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
@@ -18,13 +19,14 @@ public class UnnecessaryImplementsAnalyzer implements LocalAnalyzer, LocalRefact
         if (superInterfaces.isEmpty()) {
             return List.of();
         }
+        TypeHierarchyIndex index = TypeHierarchyIndex.of(clazz.getFactory());
         List<BadSmell> badSmells = new ArrayList<>();
         for (CtTypeReference<?> ctTypeReference : superInterfaces) {
             for (CtTypeReference<?> needed : superInterfaces) {
                 if (ctTypeReference.equals(needed)) {
                     continue;
                 }
-                if (ctTypeReference.isSubtypeOf(needed)) {
+                if (index.isSubtypeOf(ctTypeReference, needed)) {
                     badSmells.add(new UnnecessaryImplements(ctTypeReference, needed, clazz));
                 }
             }
@@ -32,6 +34,14 @@ public class UnnecessaryImplementsAnalyzer implements LocalAnalyzer, LocalRefact
         return badSmells;
     }
 
+    /**
+     * The interfaces may be redundant through any supertype of another interface, not only the referenced ones.
+     */
+    @Override
+    public boolean isTypeLocal() {
+        return false;
+    }
+
     @Override
     public void refactor(UnnecessaryImplements badSmell) {
         CtTypeReference<?> notNeededImplements = badSmell.getNotNeededImplements();
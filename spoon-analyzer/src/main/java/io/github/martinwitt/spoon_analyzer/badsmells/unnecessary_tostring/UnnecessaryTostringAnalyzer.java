@@ -1,29 +1,36 @@
 package io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_tostring;
 
 import io.github.martinwitt.spoon_analyzer.BadSmell;
-import io.github.martinwitt.spoon_analyzer.LocalAnalyzer;
+import io.github.martinwitt.spoon_analyzer.ElementAnalyzer;
 import io.github.martinwitt.spoon_analyzer.LocalRefactor;
-import java.util.ArrayList;
+import io.github.martinwitt.spoon_analyzer.RequiredCalls;
 import java.util.List;
+import java.util.Optional;
 import spoon.reflect.code.CtInvocation;
 import spoon.reflect.declaration.CtType;
-import spoon.reflect.visitor.filter.TypeFilter;
 
-public class UnnecessaryTostringAnalyzer implements LocalAnalyzer, LocalRefactor<UnnecessaryTostring> {
+public class UnnecessaryTostringAnalyzer
+        implements ElementAnalyzer<CtInvocation<?>>, LocalRefactor<UnnecessaryTostring> {
 
     @Override
-    public List<BadSmell> analyze(CtType<?> clazz) {
-        List<BadSmell> badSmells = new ArrayList<>();
-        List<CtInvocation<?>> elements = clazz.getElements(new TypeFilter<>(CtInvocation.class));
-        for (CtInvocation<?> invocation : elements) {
-            if (invocation.getTarget() != null
-                    && invocation.getTarget().getType() != null
-                    && invocation.getTarget().getType().getSimpleName().equals("String")
-                    && invocation.getExecutable().getSimpleName().equals("toString")) {
-                badSmells.add(new UnnecessaryTostring(clazz, invocation));
-            }
+    public Class<? super CtInvocation<?>> getElementType() {
+        return CtInvocation.class;
+    }
+
+    @Override
+    public Optional<RequiredCalls> getRequiredCalls() {
+        return Optional.of(RequiredCalls.invocationsOf("toString"));
+    }
+
+    @Override
+    public List<BadSmell> analyzeElement(CtType<?> clazz, CtInvocation<?> invocation) {
+        if (invocation.getTarget() != null
+                && invocation.getTarget().getType() != null
+                && invocation.getTarget().getType().getSimpleName().equals("String")
+                && invocation.getExecutable().getSimpleName().equals("toString")) {
+            return List.of(new UnnecessaryTostring(clazz, invocation));
         }
-        return badSmells;
+        return List.of();
     }
 
     @Override
@@ -0,0 +1,203 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.martinwitt.spoon_analyzer.badsmells.Index_off_replaceable_by_contains.IndexOfReplaceableByContainsAnalyzer;
+import io.github.martinwitt.spoon_analyzer.badsmells.equals_hashcode.EqualsHashcodeAnalyzer;
+import io.github.martinwitt.spoon_analyzer.badsmells.private_final_method.PrivateFinalMethodAnalyzer;
+import io.github.martinwitt.spoon_analyzer.badsmells.size_replaceable_by_is_empty.SizeReplaceableByIsEmptyAnalyzer;
+import io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_tostring.UnnecessaryTostringAnalyzer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import spoon.Launcher;
+import spoon.reflect.code.CtBinaryOperator;
+import spoon.reflect.code.CtInvocation;
+import spoon.reflect.declaration.CtElement;
+import spoon.reflect.declaration.CtType;
+import spoon.support.compiler.VirtualFile;
+
+class FusedAnalyzerTest {
+
+    private static final String CODE =
+            """
+        import java.util.List;
+        public class A {
+          private final void foo(List<String> list, String s) {
+            if (list.size() == 0) {
+              System.out.println(s.toString());
+            }
+            boolean b = s.indexOf("a") != -1;
+          }
+          public boolean equals(Object o) {
+            return false;
+          }
+          class Inner {
+            private final void bar(List<String> list) {
+              boolean empty = list.size() == 0;
+            }
+          }
+        }
+        class B {
+          int sum = 1 + 2;
+        }
+        """;
+
+    @Test
+    void fusedResultsEqualSequentialResults() {
+        List<LocalAnalyzer> analyzers = List.of(
+                new SizeReplaceableByIsEmptyAnalyzer(),
+                new EqualsHashcodeAnalyzer(),
+                new IndexOfReplaceableByContainsAnalyzer(),
+                new PrivateFinalMethodAnalyzer(),
+                new UnnecessaryTostringAnalyzer());
+        for (CtType<?> type : buildTypes()) {
+            List<BadSmell> sequential = new ArrayList<>();
+            for (LocalAnalyzer analyzer : analyzers) {
+                sequential.addAll(analyzer.analyze(type));
+            }
+            List<BadSmell> fused = new FusedAnalyzer(analyzers).analyze(type);
+            assertThat(fused)
+                    .extracting(BadSmell::getName)
+                    .containsExactlyElementsOf(
+                            sequential.stream().map(BadSmell::getName).toList());
+        }
+    }
+
+    @Test
+    void nestedTypesAreScannedWithTheirOuterType() {
+        CtType<?> outer = buildTypes().stream()
+                .filter(v -> v.getSimpleName().equals("A"))
+                .findFirst()
+                .orElseThrow();
+        FusedAnalyzer analyzer =
+                new FusedAnalyzer(List.of(new SizeReplaceableByIsEmptyAnalyzer(), new PrivateFinalMethodAnalyzer()));
+        assertThat(analyzer.analyze(outer))
+                .extracting(BadSmell::getName)
+                .containsExactly(
+                        "SizeReplaceableByIsEmpty",
+                        "SizeReplaceableByIsEmpty",
+                        "PrivateFinalMethod",
+                        "PrivateFinalMethod");
+    }
+
+    @Test
+    void listenerReceivesResultsPerRule() {
+        CtType<?> outer = buildTypes().stream()
+                .filter(v -> v.getSimpleName().equals("A"))
+                .findFirst()
+                .orElseThrow();
+        Map<String, Integer> resultsPerRule = new HashMap<>();
+        AnalysisListener listener = new AnalysisListener() {
+            @Override
+            public void analyzerFinished(String ruleId, Duration duration, int numberOfResults) {
+                assertThat(duration.isNegative()).isFalse();
+                resultsPerRule.merge(ruleId, numberOfResults, Integer::sum);
+            }
+        };
+        List<BadSmell> badSmells = new FusedAnalyzer(
+                        List.of(new SizeReplaceableByIsEmptyAnalyzer(), new EqualsHashcodeAnalyzer()), listener)
+                .analyze(outer);
+        assertThat(resultsPerRule)
+                .containsOnly(Map.entry("SizeReplaceableByIsEmpty", 2), Map.entry("EqualsHashcode", 1));
+        assertThat(badSmells).extracting(BadSmell::getName).allMatch(resultsPerRule::containsKey);
+    }
+
+    @Test
+    void typeExceedingTheBudgetIsSkippedByElementAnalyzers() {
+        CtType<?> outer = buildTypes().stream()
+                .filter(v -> v.getSimpleName().equals("A"))
+                .findFirst()
+                .orElseThrow();
+        ElementAnalyzer<CtElement> slowAnalyzer = new ElementAnalyzer<>() {
+            @Override
+            public Class<? super CtElement> getElementType() {
+                return CtElement.class;
+            }
+
+            @Override
+            public List<BadSmell> analyzeElement(CtType<?> clazz, CtElement element) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+
+            @Override
+            public String getRuleId() {
+                return "Slow";
+            }
+        };
+        List<String> timeouts = new ArrayList<>();
+        AnalysisListener listener = new AnalysisListener() {
+            @Override
+            public void typeTimedOut(String qualifiedName, String ruleId, Duration budget) {
+                timeouts.add(qualifiedName + ":" + ruleId);
+            }
+        };
+        FusedAnalyzer analyzer = new FusedAnalyzer(
+                List.of(new EqualsHashcodeAnalyzer(), slowAnalyzer, new SizeReplaceableByIsEmptyAnalyzer()),
+                listener,
+                Duration.ofMillis(20));
+        assertThat(analyzer.analyze(outer)).extracting(BadSmell::getName).containsExactly("EqualsHashcode");
+        assertThat(timeouts).containsExactly("A:Slow");
+    }
+
+    @Test
+    void analyzersWithRequiredCallsOnlySeeTypesAndCallsWithThem() {
+        List<String> seenElements = new ArrayList<>();
+        ElementAnalyzer<CtInvocation<?>> sizeCalls = new ElementAnalyzer<>() {
+            @Override
+            public Class<? super CtInvocation<?>> getElementType() {
+                return CtInvocation.class;
+            }
+
+            @Override
+            public List<BadSmell> analyzeElement(CtType<?> clazz, CtInvocation<?> element) {
+                seenElements.add(
+                        clazz.getSimpleName() + ":" + element.getExecutable().getSimpleName());
+                return List.of();
+            }
+
+            @Override
+            public Optional<RequiredCalls> getRequiredCalls() {
+                return Optional.of(RequiredCalls.invocationsOf("size"));
+            }
+        };
+        ElementAnalyzer<CtBinaryOperator<?>> indexOfComparisons = new ElementAnalyzer<>() {
+            @Override
+            public Class<? super CtBinaryOperator<?>> getElementType() {
+                return CtBinaryOperator.class;
+            }
+
+            @Override
+            public List<BadSmell> analyzeElement(CtType<?> clazz, CtBinaryOperator<?> element) {
+                seenElements.add(clazz.getSimpleName() + ":" + element.getKind());
+                return List.of();
+            }
+
+            @Override
+            public Optional<RequiredCalls> getRequiredCalls() {
+                return Optional.of(RequiredCalls.invocationsOf("indexOf"));
+            }
+        };
+        FusedAnalyzer analyzer = new FusedAnalyzer(List.of(sizeCalls, indexOfComparisons));
+        for (CtType<?> type : buildTypes()) {
+            analyzer.analyze(type);
+        }
+        assertThat(seenElements).containsExactlyInAnyOrder("A:size", "A:size", "A:EQ", "A:NE", "A:EQ");
+    }
+
+    private static List<CtType<?>> buildTypes() {
+        Launcher launcher = new Launcher();
+        launcher.addInputResource(new VirtualFile(CODE));
+        launcher.getEnvironment().setNoClasspath(true);
+        return new ArrayList<>(launcher.buildModel().getAllTypes());
+    }
+}
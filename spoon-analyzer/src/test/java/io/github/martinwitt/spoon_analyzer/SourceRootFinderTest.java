@@ -0,0 +1,129 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceRootFinderTest {
+
+    @Test
+    void gradleModulesAreReadFromTheSettings(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(
+                projectRoot.resolve("settings.gradle"),
+                """
+                rootProject.name = 'project'
+                include ':core', ':tools:cli'
+                include('web')
+                """);
+        createFolders(
+                projectRoot,
+                "core/src/main/java",
+                "core/src/test/java",
+                "tools/cli/src/main/java",
+                "web/src/main/java",
+                "buildSrc/src/main/java",
+                "unlisted/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(
+                        projectRoot.resolve("buildSrc/src/main/java"),
+                        projectRoot.resolve("core/src/main/java"),
+                        projectRoot.resolve("core/src/test/java"),
+                        projectRoot.resolve("tools/cli/src/main/java"),
+                        projectRoot.resolve("web/src/main/java"));
+    }
+
+    @Test
+    void kotlinSettingsAreRead(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(projectRoot.resolve("settings.gradle.kts"), "include(\"app\", \"lib\")\n");
+        createFolders(projectRoot, "app/src/main/java", "lib/src/test/java", "unlisted/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(projectRoot.resolve("app/src/main/java"), projectRoot.resolve("lib/src/test/java"));
+    }
+
+    @Test
+    void mavenModulesAreReadRecursively(@TempDir Path projectRoot) throws IOException {
+        createFolders(projectRoot, "src/main/java", "web/api/src/main/java", "unlisted/src/main/java");
+        Files.writeString(projectRoot.resolve("pom.xml"), "<modules><module>web</module></modules>");
+        Files.writeString(projectRoot.resolve("web/pom.xml"), "<modules><module>api/pom.xml</module></modules>");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(projectRoot.resolve("src/main/java"), projectRoot.resolve("web/api/src/main/java"));
+    }
+
+    @Test
+    void cachedLayoutsFollowChangedBuildFiles(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(projectRoot.resolve("settings.gradle"), "include 'core', 'web'\n");
+        createFolders(projectRoot, "core/src/main/java", "web/src/main/java");
+        SourceRootFinder finder = new SourceRootFinder();
+        assertThat(finder.findSourceRoots("project", projectRoot))
+                .containsExactly(projectRoot.resolve("core/src/main/java"), projectRoot.resolve("web/src/main/java"));
+        Files.writeString(projectRoot.resolve("settings.gradle"), "include 'core'\n");
+        assertThat(finder.findSourceRoots("project", projectRoot))
+                .containsExactly(projectRoot.resolve("core/src/main/java"));
+        createFolders(projectRoot, "buildSrc/src/main/java");
+        assertThat(finder.findSourceRoots("project", projectRoot))
+                .containsExactly(
+                        projectRoot.resolve("buildSrc/src/main/java"), projectRoot.resolve("core/src/main/java"));
+    }
+
+    @Test
+    void computedGradleModulesAreWalked(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(projectRoot.resolve("settings.gradle"), "file('modules').eachDir { include it.name }\n");
+        createFolders(
+                projectRoot,
+                "modules/a/src/main/java",
+                "modules/a/src/main/java/b/src/main/java",
+                "modules/b/src/test/java",
+                "node_modules/c/src/main/java",
+                "modules/a/build/generated/src/main/java",
+                ".git/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(
+                        projectRoot.resolve("modules/a/src/main/java"), projectRoot.resolve("modules/b/src/test/java"));
+    }
+
+    @Test
+    void movedGradleModulesAreWalked(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(
+                projectRoot.resolve("settings.gradle"),
+                """
+                include ':core'
+                project(':core').projectDir = file('libs/core')
+                """);
+        createFolders(projectRoot, "libs/core/src/main/java", "core/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(
+                        projectRoot.resolve("core/src/main/java"), projectRoot.resolve("libs/core/src/main/java"));
+    }
+
+    @Test
+    void interpolatedGradleModulesAreWalked(@TempDir Path projectRoot) throws IOException {
+        Files.writeString(projectRoot.resolve("settings.gradle"), "def name = 'core'\ninclude \"lib-$name\"\n");
+        createFolders(projectRoot, "lib-core/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(projectRoot.resolve("lib-core/src/main/java"));
+    }
+
+    @Test
+    void projectsWithoutBuildFilesAreWalked(@TempDir Path projectRoot) throws IOException {
+        createFolders(projectRoot, "a/src/main/java", "b/c/src/test/java", "target/src/main/java");
+        assertThat(new SourceRootFinder().findSourceRoots(projectRoot))
+                .containsExactly(projectRoot.resolve("a/src/main/java"), projectRoot.resolve("b/c/src/test/java"));
+    }
+
+    @Test
+    void sourceFolderIsItsOwnRoot(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        assertThat(new SourceRootFinder().findSourceRoots(sourceFolder)).containsExactly(sourceFolder);
+    }
+
+    private static void createFolders(Path projectRoot, String... folders) throws IOException {
+        for (String folder : List.of(folders)) {
+            Files.createDirectories(projectRoot.resolve(folder));
+        }
+    }
+}
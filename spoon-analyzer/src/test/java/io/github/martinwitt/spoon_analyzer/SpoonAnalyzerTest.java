@@ -0,0 +1,219 @@
+package io.github.martinwitt.spoon_analyzer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spoon.Launcher;
+import spoon.reflect.CtModel;
+import spoon.reflect.code.CtIf;
+import spoon.reflect.declaration.CtType;
+import spoon.reflect.visitor.filter.TypeFilter;
+import spoon.support.compiler.VirtualFile;
+
+class SpoonAnalyzerTest {
+
+    @Test
+    void parallelAnalysisKeepsTypeOrder() {
+        List<CtType<?>> types = buildTypes(40);
+        List<BadSmell> sequential = new SpoonAnalyzer(1).analyzeTypes(types);
+        List<BadSmell> parallel = new SpoonAnalyzer(4).analyzeTypes(types);
+        assertThat(sequential).hasSize(120);
+        assertThat(parallel)
+                .extracting(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                .containsExactlyElementsOf(sequential.stream()
+                        .map(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                        .toList());
+    }
+
+    @Test
+    void streamedResultsMatchCollectedResults() {
+        List<CtType<?>> types = buildTypes(40);
+        List<BadSmell> collected = new SpoonAnalyzer(1).analyzeTypes(types);
+        List<List<BadSmell>> streamed = new ArrayList<>();
+        new SpoonAnalyzer(4).analyzeTypes(types, streamed::add);
+        assertThat(streamed).hasSize(40).allSatisfy(v -> assertThat(v)
+                .extracting(BadSmell::getAffectedType)
+                .containsOnly(v.get(0).getAffectedType()));
+        assertThat(streamed.stream().flatMap(List::stream))
+                .extracting(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                .containsExactlyInAnyOrderElementsOf(collected.stream()
+                        .map(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                        .toList());
+    }
+
+    @Test
+    void projectExceedingTheBudgetSkipsRemainingTypes() {
+        List<CtType<?>> types = buildTypes(10);
+        List<Integer> skippedTypes = new ArrayList<>();
+        AnalysisListener listener = new AnalysisListener() {
+            @Override
+            public void projectTimedOut(Duration budget, int skipped, int skippedBatches) {
+                skippedTypes.add(skipped);
+            }
+        };
+        AnalysisBudget budget = new AnalysisBudget(AnalysisBudget.UNLIMITED.perType(), Duration.ofNanos(1));
+        SpoonAnalyzer analyzer = new SpoonAnalyzer(2, listener, Integer.MAX_VALUE, budget);
+        assertThat(analyzer.analyzeTypes(types)).isEmpty();
+        assertThat(skippedTypes).containsExactly(10);
+    }
+
+    @Test
+    void invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new SpoonAnalyzer(0));
+    }
+
+    @Test
+    void analyzeSourcesNeedsNoFiles() {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            sources.put("src/main/java/A" + i + ".java", sourceCode(i));
+        }
+        sources.put("README.md", "no java");
+        List<BadSmell> badSmells = new SpoonAnalyzer(2, AnalysisListener.NONE, 2).analyzeSources(sources);
+        assertThat(badSmells).hasSize(15);
+        assertThat(badSmells)
+                .extracting(v -> v.getAffectedType().getPosition().getFile().getPath())
+                .isSubsetOf(sources.keySet().stream()
+                        .map(v -> new File(v).getPath())
+                        .toList());
+        List<List<BadSmell>> streamed = new ArrayList<>();
+        new SpoonAnalyzer(1).analyzeSources(sources, streamed::add);
+        assertThat(streamed).hasSize(5);
+    }
+
+    @Test
+    void analyzeModelSeesChangesSinceTheLastAnalysis() {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        launcher.addInputResource(new VirtualFile(
+                """
+                public class A {
+                  void foo(String s) {
+                    if (s != null) {
+                      System.out.println(s.toString());
+                    }
+                  }
+                }
+                """,
+                "A.java"));
+        CtModel model = launcher.buildModel();
+        SpoonAnalyzer analyzer = new SpoonAnalyzer(1);
+        assertThat(analyzer.analyzeModel(model)).hasSize(1);
+        // the removed invocation must not be found in the invocation index of the first analysis
+        model.getElements(new TypeFilter<>(CtIf.class)).forEach(CtIf::delete);
+        assertThat(analyzer.analyzeModel(model)).isEmpty();
+    }
+
+    @Test
+    void analyzeFilesOnlyAnalyzesGivenSourceFiles(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Path changed = Files.writeString(sourceFolder.resolve("A0.java"), sourceCode(0));
+        Files.writeString(sourceFolder.resolve("A1.java"), sourceCode(1));
+        Path notInSourceFolder = Files.writeString(projectRoot.resolve("A2.java"), sourceCode(2));
+        List<BadSmell> badSmells = new SpoonAnalyzer(1).analyzeFiles(List.of(changed, notInSourceFolder));
+        assertThat(badSmells)
+                .hasSize(3)
+                .allMatch(v -> v.getAffectedType().getQualifiedName().equals("A0"));
+    }
+
+    @Test
+    void changedFilesAreAnalyzedWithTheirDependents(@TempDir Path projectRoot) throws IOException {
+        Path sourceFolder = Files.createDirectories(projectRoot.resolve("src/main/java"));
+        Files.writeString(sourceFolder.resolve("I.java"), "interface I {}");
+        Path changed = Files.writeString(sourceFolder.resolve("J.java"), "interface J extends I {}");
+        Path dependent = Files.writeString(sourceFolder.resolve("B.java"), "class B implements J, I {}");
+        Path subtype = Files.writeString(sourceFolder.resolve("K.java"), "interface K extends J {}");
+        Files.writeString(sourceFolder.resolve("E.java"), "class E implements K, I {}");
+        Files.writeString(sourceFolder.resolve("A0.java"), sourceCode(0));
+        List<BadSmell> badSmells = new ArrayList<>();
+        Set<Path> analyzedFiles = new SpoonAnalyzer(1)
+                .analyzeChangedFiles(
+                        List.of(sourceFolder), List.of(changed, projectRoot.resolve("README.md")), badSmells::addAll);
+        // E only references J through K, so it is not analyzed again
+        assertThat(analyzedFiles)
+                .containsExactlyInAnyOrder(
+                        changed.toAbsolutePath().normalize(),
+                        dependent.toAbsolutePath().normalize(),
+                        subtype.toAbsolutePath().normalize());
+        assertThat(badSmells)
+                .extracting(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                .containsExactly("B:UnnecessaryImplements");
+    }
+
+    @Test
+    void batchedAnalysisFindsTheSameBadSmells(@TempDir Path projectRoot) throws IOException {
+        for (int i = 0; i < 6; i++) {
+            Path module = projectRoot.resolve("module" + (i % 3));
+            Path sourceFolder = Files.createDirectories(module.resolve(i < 3 ? "src/main/java" : "src/test/java"));
+            Files.writeString(sourceFolder.resolve("A" + i + ".java"), sourceCode(i));
+        }
+        List<BadSmell> unbatched = new SpoonAnalyzer(1).analyze(projectRoot.toString());
+        List<BadSmell> batchedByModule = new SpoonAnalyzer(1, AnalysisListener.NONE, 2).analyze(projectRoot.toString());
+        List<List<BadSmell>> batchedByFile = new ArrayList<>();
+        new SpoonAnalyzer(1, AnalysisListener.NONE, 1).analyze(projectRoot.toString(), batchedByFile::add);
+        assertThat(unbatched).hasSize(18);
+        assertThat(batchedByModule)
+                .extracting(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                .containsExactlyInAnyOrderElementsOf(unbatched.stream()
+                        .map(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                        .toList());
+        assertThat(batchedByFile.stream().flatMap(List::stream))
+                .extracting(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                .containsExactlyInAnyOrderElementsOf(unbatched.stream()
+                        .map(v -> v.getAffectedType().getQualifiedName() + ":" + v.getName())
+                        .toList());
+    }
+
+    @Test
+    void sourceFoldersOfAModuleStayInOneBatch(@TempDir Path projectRoot) throws IOException {
+        List<Path> sourceFolders = new ArrayList<>();
+        for (String module : List.of("a", "b", "c")) {
+            for (String folder : List.of("src/main/java", "src/test/java")) {
+                Path sourceFolder =
+                        Files.createDirectories(projectRoot.resolve(module).resolve(folder));
+                Files.writeString(sourceFolder.resolve("A.java"), "class A {}");
+                sourceFolders.add(sourceFolder);
+            }
+        }
+        assertThat(SourceBatches.ofSourceFolders(sourceFolders, 4))
+                .containsExactly(sourceFolders.subList(0, 4), sourceFolders.subList(4, 6));
+        assertThat(SourceBatches.ofSourceFolders(sourceFolders, 1)).hasSize(6);
+        assertThat(SourceBatches.ofSourceFolders(sourceFolders, SourceBatches.UNBOUNDED))
+                .containsExactly(sourceFolders);
+    }
+
+    private static String sourceCode(int index) {
+        return """
+            import java.util.List;
+            public class A%d {
+              private final void foo(List<String> list, String s) {
+                if (list.size() == 0) {
+                  System.out.println(s.indexOf("a") != -1);
+                }
+              }
+            }
+            """
+                .formatted(index);
+    }
+
+    private static List<CtType<?>> buildTypes(int count) {
+        Launcher launcher = new Launcher();
+        launcher.getEnvironment().setNoClasspath(true);
+        for (int i = 0; i < count; i++) {
+            launcher.addInputResource(new VirtualFile(sourceCode(i), "A" + i + ".java"));
+        }
+        return new ArrayList<>(launcher.buildModel().getAllTypes());
+    }
+}
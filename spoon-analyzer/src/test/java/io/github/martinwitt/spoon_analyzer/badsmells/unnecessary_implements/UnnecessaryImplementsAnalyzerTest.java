@@ -2,8 +2,10 @@ package io.github.martinwitt.spoon_analyzer.badsmells.unnecessary_implements;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import io.github.martinwitt.laughing_train.spoonutils.TypeHierarchyIndex;
 import io.github.martinwitt.spoon_analyzer.BadSmell;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import spoon.Launcher;
 import spoon.reflect.CtModel;
@@ -82,4 +84,34 @@ public class UnnecessaryImplementsAnalyzerTest {
         assertEquals("java.util.Set", badSmell2.getLowerType().getQualifiedName());
         assertEquals("java.util.Collection", badSmell2.getNotNeededImplements().getQualifiedName());
     }
+
+    @Test
+    public void testAnalyze_deepHierarchyInModel() {
+        String code =
+                """
+                interface A {}
+                interface B extends A {}
+                interface C extends B {}
+                class Base implements C {}
+                public class Foo extends Base implements C, A {
+                }
+                """;
+        Launcher launcher = new Launcher();
+        launcher.addInputResource(new VirtualFile(code));
+        CtModel model = launcher.buildModel();
+        CtType<?> clazz = model.getAllTypes().stream()
+                .filter(v -> v.getSimpleName().equals("Foo"))
+                .findFirst()
+                .get();
+
+        List<BadSmell> badSmells = new UnnecessaryImplementsAnalyzer().analyze(clazz);
+
+        assertEquals(1, badSmells.size());
+        UnnecessaryImplements badSmell = (UnnecessaryImplements) badSmells.get(0);
+        assertEquals("C", badSmell.getLowerType().getQualifiedName());
+        assertEquals("A", badSmell.getNotNeededImplements().getQualifiedName());
+        TypeHierarchyIndex index = TypeHierarchyIndex.of(model);
+        assertEquals(Set.of("A", "B", "C"), index.getImplementedInterfaces("Foo"));
+        assertEquals(Set.of("B", "C", "Base", "Foo"), index.getSubtypes("A"));
+    }
 }